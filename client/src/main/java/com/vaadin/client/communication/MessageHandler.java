@@ -191,6 +191,12 @@ public class MessageHandler {
 
     private ApplicationConnection connection;
 
+    /**
+     * Shared state property names by id, when the server sends state with
+     * compact property names. Null until the first compact message.
+     */
+    private JsArrayString stateKeys;
+
     /**
      * Data structure holding information about pending UIDL messages.
      */
@@ -1009,6 +1015,9 @@ public class MessageHandler {
                 JsArrayObject<StateChangeEvent> events = JavaScriptObject
                         .createArray().cast();
                 getLogger().info(" * Updating connector states");
+                if (json.containsKey("stateKeys")) {
+                    restoreStateKeys(json);
+                }
                 if (!json.containsKey("state")) {
                     return events;
                 }
@@ -1614,6 +1623,45 @@ public class MessageHandler {
         }
     }
 
+    /**
+     * Updates the dictionary of shared state property names from the given
+     * message and replaces the ids in the states of the message with the
+     * property names.
+     *
+     * @param json
+     *            the message containing a {@code stateKeys} array
+     */
+    private void restoreStateKeys(ValueMap json) {
+        if (stateKeys == null || isResynchronize(json)) {
+            // The server starts over with an empty dictionary on resync
+            stateKeys = JavaScriptObject.createArray().cast();
+        }
+        JsArrayString newKeys = json.getJSStringArray("stateKeys");
+        for (int i = 0; i < newKeys.length(); i++) {
+            stateKeys.push(newKeys.get(i));
+        }
+        if (json.containsKey("state")) {
+            restoreStateKeys(json.getValueMap("state"), stateKeys);
+        }
+    }
+
+    private static native void restoreStateKeys(ValueMap states,
+            JsArrayString keys)
+    /*-{
+        for (var connectorId in states) {
+            if (states.hasOwnProperty(connectorId)) {
+                var compactState = states[connectorId];
+                var state = {};
+                for (var id in compactState) {
+                    if (compactState.hasOwnProperty(id)) {
+                        state[keys[parseInt(id, 36)]] = compactState[id];
+                    }
+                }
+                states[connectorId] = state;
+            }
+        }
+    }-*/;
+
     private static native final int calculateBootstrapTime()
     /*-{
         if ($wnd.performance && $wnd.performance.timing) {
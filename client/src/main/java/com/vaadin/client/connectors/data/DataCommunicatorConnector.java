@@ -33,6 +33,8 @@ import com.vaadin.shared.ui.Connect;
 import elemental.json.Json;
 import elemental.json.JsonArray;
 import elemental.json.JsonObject;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
 
 /**
  * A connector for DataCommunicator class.
@@ -109,17 +111,59 @@ public class DataCommunicatorConnector extends AbstractExtensionConnector {
         }
 
         /**
-         * Updates row data based on row key.
+         * Updates row data based on row key. The given object contains only
+         * the changed values, which are merged into the current row data.
          *
-         * @param row
-         *            new row object
+         * @param changes
+         *            object with the row key and the changed values
          */
-        protected void updateRowData(JsonObject row) {
-            int index = indexOfKey(getRowKey(row));
+        protected void updateRowData(JsonObject changes) {
+            int index = indexOfKey(getRowKey(changes));
             if (index >= 0) {
+                JsonObject row = merge(getRow(index), changes);
                 setRowData(index, Collections.singletonList(row));
             }
         }
+
+        /**
+         * Creates a new object with the given changes applied to the given
+         * object. Nested objects are merged recursively.
+         *
+         * @param object
+         *            the object to apply the changes to
+         * @param changes
+         *            the changed values and the removed keys
+         * @return a new object with the changes applied
+         */
+        private JsonObject merge(JsonObject object, JsonObject changes) {
+            JsonObject merged = Json.createObject();
+            for (String key : object.keys()) {
+                merged.put(key, object.<JsonValue> get(key));
+            }
+
+            if (changes.hasKey(DataCommunicatorConstants.REMOVED)) {
+                JsonArray removed = changes
+                        .getArray(DataCommunicatorConstants.REMOVED);
+                for (int i = 0; i < removed.length(); ++i) {
+                    merged.remove(removed.getString(i));
+                }
+            }
+
+            for (String key : changes.keys()) {
+                if (DataCommunicatorConstants.REMOVED.equals(key)) {
+                    continue;
+                }
+                JsonValue value = changes.get(key);
+                if (value.getType() == JsonType.OBJECT && merged.hasKey(key)
+                        && merged.get(key).getType() == JsonType.OBJECT) {
+                    merged.put(key, merge(merged.getObject(key),
+                            changes.getObject(key)));
+                } else {
+                    merged.put(key, value);
+                }
+            }
+            return merged;
+        }
     }
 
     private DataSource<JsonObject> ds = new VaadinDataSource();
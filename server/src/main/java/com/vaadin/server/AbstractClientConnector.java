@@ -259,14 +259,35 @@ public abstract class AbstractClientConnector
         }
         if (markAsDirty) {
             UI ui = getUI();
-            if (ui != null && !ui.getConnectorTracker().isDirty(this)
-                    && !ui.getConnectorTracker().isWritingResponse()) {
-                ui.getConnectorTracker().markDirty(this);
+            if (ui != null) {
+                ui.getConnectorTracker().markStateDirty(this);
             }
         }
         return sharedState;
     }
 
+    /**
+     * Marks the connector dirty because the given property of its shared state
+     * has been written to. If state change tracking is enabled for the UI,
+     * only the written properties are encoded in the next response unless
+     * the connector is marked dirty for other reasons. Use together with
+     * {@code getState(false)} when setting a single state property.
+     *
+     * @see com.vaadin.ui.ConnectorTracker#markStatePropertyDirty(ClientConnector,
+     *      String)
+     *
+     * @param propertyName
+     *            the name of the written state property
+     * @since 8.0
+     */
+    protected void markStatePropertyDirty(String propertyName) {
+        UI ui = getUI();
+        if (ui != null) {
+            ui.getConnectorTracker().markStatePropertyDirty(this,
+                    propertyName);
+        }
+    }
+
     @Override
     public JsonObject encodeState() {
         return LegacyCommunicationManager.encodeState(this, getState(false));
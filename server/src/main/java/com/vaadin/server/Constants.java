@@ -50,6 +50,13 @@ public interface Constants {
             + "in web.xml. The default of 5min will be used.\n"
             + "===========================================================";
 
+    static final String WARNING_RESPONSE_COMPRESSION_LEVEL_INVALID = "\n"
+            + "===========================================================\n"
+            + "WARNING: responseCompressionLevel has been set to a value\n"
+            + "other than an integer between 0 and 9 in web.xml.\n"
+            + "Responses will not be compressed.\n"
+            + "===========================================================";
+
     static final String WARNING_PUSH_MODE_NOT_RECOGNIZED = "\n"
             + "===========================================================\n"
             + "WARNING: pushMode has been set to an unrecognized value\n"
@@ -115,6 +122,8 @@ public interface Constants {
     static final String SERVLET_PARAMETER_UI_PROVIDER = "UIProvider";
     static final String SERVLET_PARAMETER_SYNC_ID_CHECK = "syncIdCheck";
     static final String SERVLET_PARAMETER_SENDURLSASPARAMETERS = "sendUrlsAsParameters";
+    static final String SERVLET_PARAMETER_COMPACT_STATE_ENCODING = "compactStateEncoding";
+    static final String SERVLET_PARAMETER_RESPONSE_COMPRESSION_LEVEL = "responseCompressionLevel";
     static final String SERVLET_PARAMETER_PUSH_SUSPEND_TIMEOUT_LONGPOLLING = "pushLongPollingSuspendTimeout";
     /**
      * Name of system or context property to write declarative syntax with the
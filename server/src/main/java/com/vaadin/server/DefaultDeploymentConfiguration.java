@@ -54,6 +54,20 @@ public class DefaultDeploymentConfiguration
 
     public static final boolean DEFAULT_SEND_URLS_AS_PARAMETERS = true;
 
+    /**
+     * Default value for {@link #isCompactStateEncoding()} = {@value} .
+     *
+     * @since 8.0
+     */
+    public static final boolean DEFAULT_COMPACT_STATE_ENCODING = false;
+
+    /**
+     * Default value for {@link #getResponseCompressionLevel()} = {@value} .
+     *
+     * @since 8.0
+     */
+    public static final int DEFAULT_RESPONSE_COMPRESSION_LEVEL = 0;
+
     private final Properties initParameters;
     private boolean productionMode;
     private boolean xsrfProtectionEnabled;
@@ -64,6 +78,8 @@ public class DefaultDeploymentConfiguration
     private final Class<?> systemPropertyBaseClass;
     private boolean syncIdCheck;
     private boolean sendUrlsAsParameters;
+    private boolean compactStateEncoding;
+    private int responseCompressionLevel;
 
     /**
      * Create a new deployment configuration instance.
@@ -88,6 +104,8 @@ public class DefaultDeploymentConfiguration
         checkPushMode();
         checkSyncIdCheck();
         checkSendUrlsAsParameters();
+        checkCompactStateEncoding();
+        checkResponseCompressionLevel();
     }
 
     @Override
@@ -245,6 +263,26 @@ public class DefaultDeploymentConfiguration
         return sendUrlsAsParameters;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The default value is <code>false</code>.
+     */
+    @Override
+    public boolean isCompactStateEncoding() {
+        return compactStateEncoding;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The default value is 0, meaning that responses are not compressed.
+     */
+    @Override
+    public int getResponseCompressionLevel() {
+        return responseCompressionLevel;
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -342,6 +380,30 @@ public class DefaultDeploymentConfiguration
                         .equals("true");
     }
 
+    private void checkCompactStateEncoding() {
+        compactStateEncoding = getApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_COMPACT_STATE_ENCODING,
+                Boolean.toString(DEFAULT_COMPACT_STATE_ENCODING))
+                        .equals("true");
+    }
+
+    private void checkResponseCompressionLevel() {
+        try {
+            responseCompressionLevel = Integer
+                    .parseInt(getApplicationOrSystemProperty(
+                            Constants.SERVLET_PARAMETER_RESPONSE_COMPRESSION_LEVEL,
+                            Integer.toString(
+                                    DEFAULT_RESPONSE_COMPRESSION_LEVEL)));
+        } catch (NumberFormatException e) {
+            responseCompressionLevel = -1;
+        }
+        if (responseCompressionLevel < 0 || responseCompressionLevel > 9) {
+            getLogger().warning(
+                    Constants.WARNING_RESPONSE_COMPRESSION_LEVEL_INVALID);
+            responseCompressionLevel = DEFAULT_RESPONSE_COMPRESSION_LEVEL;
+        }
+    }
+
     private Logger getLogger() {
         return Logger.getLogger(getClass().getName());
     }
@@ -80,6 +80,36 @@ public interface DeploymentConfiguration extends Serializable {
      */
     public boolean isSendUrlsAsParameters();
 
+    /**
+     * Returns whether the names of shared state properties are replaced with
+     * short ids in the messages sent to the client. The ids are assigned per
+     * UI, and the client is sent the property name of each new id in the
+     * same message that first uses it. This applies both to responses to
+     * client requests and to push messages.
+     *
+     * @since 8.0
+     *
+     * @return <code>true</code> if compact state encoding is enabled,
+     *         <code>false</code> otherwise
+     */
+    public boolean isCompactStateEncoding();
+
+    /**
+     * Returns the deflate compression level used for UIDL responses, from 1
+     * (fastest) to 9 (smallest), or 0 if the responses are not compressed.
+     * Responses are only compressed if the browser accepts gzip content
+     * encoding.
+     * <p>
+     * Push messages sent over a websocket are not affected by this setting.
+     * Their compression is negotiated between the browser and the servlet
+     * container.
+     *
+     * @since 8.0
+     *
+     * @return the compression level between 0 and 9
+     */
+    public int getResponseCompressionLevel();
+
     /**
      * Returns whether a session should be closed when all its open UIs have
      * been idle for longer than its configured maximum inactivity time.
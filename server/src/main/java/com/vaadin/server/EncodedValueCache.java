@@ -0,0 +1,133 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.vaadin.server;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.vaadin.ui.ConnectorTracker;
+
+import elemental.json.JsonValue;
+import elemental.json.impl.JsonUtil;
+
+/**
+ * Shares encoded and serialized state values between UIs when the same update
+ * is pushed to many UIs. When the same value instance is set to a state
+ * property of connectors in different UIs, it is encoded and serialized only
+ * once, and the result is reused for the other UIs.
+ * <p>
+ * Values are matched by identity, so a value must not be modified while the
+ * cache is in use. Only long strings and collections, maps and arrays whose
+ * declared type can not contain connectors are cached, since the encoding of
+ * a connector depends on the UI.
+ * <p>
+ * The cache is used from many threads at the same time. It is made available
+ * to the encoder through {@link ConnectorTracker#getEncodedValueCache()}.
+ *
+ * @see UIBroadcaster
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public class EncodedValueCache {
+
+    /**
+     * Strings shorter than this are encoded and serialized faster than they
+     * are looked up from the cache.
+     */
+    static final int MIN_STRING_LENGTH = 64;
+
+    private static final class IdentityKey {
+        private final Object value;
+        private final Type type;
+
+        private IdentityKey(Object value, Type type) {
+            this.value = value;
+            this.type = type;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(value);
+            return type == null ? hash : 31 * hash + type.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof IdentityKey)) {
+                return false;
+            }
+            IdentityKey other = (IdentityKey) obj;
+            return value == other.value && (type == null ? other.type == null
+                    : type.equals(other.type));
+        }
+    }
+
+    private final ConcurrentMap<IdentityKey, JsonValue> encodedValues = new ConcurrentHashMap<>();
+    private final ConcurrentMap<IdentityKey, String> serializedValues = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the encoded form of a value encoded for another UI.
+     *
+     * @param value
+     *            the value, not null
+     * @param type
+     *            the declared type of the value
+     * @return the encoded value, or <code>null</code> if the value has not
+     *         been encoded
+     */
+    JsonValue getEncoded(Object value, Type type) {
+        return encodedValues.get(new IdentityKey(value, type));
+    }
+
+    /**
+     * Stores the encoded form of a value for other UIs, and serializes it
+     * right away so that the serialized form can also be reused.
+     *
+     * @param value
+     *            the value, not null
+     * @param type
+     *            the declared type of the value
+     * @param encoded
+     *            the encoded value
+     * @return the encoded value to use, which is the value stored by another
+     *         thread if one was stored at the same time
+     */
+    JsonValue putEncoded(Object value, Type type, JsonValue encoded) {
+        JsonValue previous = encodedValues
+                .putIfAbsent(new IdentityKey(value, type), encoded);
+        if (previous != null) {
+            return previous;
+        }
+        serializedValues.put(new IdentityKey(encoded, null),
+                JsonUtil.stringify(encoded));
+        return encoded;
+    }
+
+    /**
+     * Gets the serialized form of an encoded value returned by this cache.
+     *
+     * @param encoded
+     *            the encoded value
+     * @return the JSON string, or <code>null</code> if the value was not
+     *         returned by this cache
+     */
+    public String getSerialized(JsonValue encoded) {
+        return serializedValues.get(new IdentityKey(encoded, null));
+    }
+}
@@ -20,6 +20,9 @@ import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.GenericArrayType;
@@ -198,6 +201,195 @@ public class JsonCodec implements Serializable {
 
     }
 
+    /**
+     * Encodes the value of one property of a bean. The getter is resolved to a
+     * method handle once, and the values of primitive and string properties
+     * are read without boxing and encoded without going through
+     * {@link JsonCodec#encode(Object, JsonValue, Type, ConnectorTracker)}.
+     */
+    private static class PropertyEncoder {
+        private static final int GENERIC = 0;
+        private static final int BOOLEAN = 1;
+        private static final int INT = 2;
+        private static final int LONG = 3;
+        private static final int FLOAT = 4;
+        private static final int DOUBLE = 5;
+        private static final int STRING = 6;
+
+        private final String name;
+        private final Type type;
+        private final int kind;
+        private final MethodHandle getter;
+        private final BeanProperty property;
+
+        private PropertyEncoder(BeanProperty property) {
+            this.property = property;
+            name = property.getName();
+            type = property.getType();
+
+            MethodHandle handle = findGetter(property);
+            if (handle == null) {
+                kind = GENERIC;
+                getter = null;
+            } else if (type == boolean.class) {
+                kind = BOOLEAN;
+                getter = handle.asType(
+                        MethodType.methodType(boolean.class, Object.class));
+            } else if (type == int.class) {
+                kind = INT;
+                getter = handle.asType(
+                        MethodType.methodType(int.class, Object.class));
+            } else if (type == long.class) {
+                kind = LONG;
+                getter = handle.asType(
+                        MethodType.methodType(long.class, Object.class));
+            } else if (type == float.class) {
+                kind = FLOAT;
+                getter = handle.asType(
+                        MethodType.methodType(float.class, Object.class));
+            } else if (type == double.class) {
+                kind = DOUBLE;
+                getter = handle.asType(
+                        MethodType.methodType(double.class, Object.class));
+            } else if (type == String.class) {
+                kind = STRING;
+                getter = handle.asType(
+                        MethodType.methodType(String.class, Object.class));
+            } else {
+                kind = GENERIC;
+                getter = handle.asType(
+                        MethodType.methodType(Object.class, Object.class));
+            }
+        }
+
+        private static MethodHandle findGetter(BeanProperty property) {
+            try {
+                if (property instanceof FieldProperty) {
+                    return MethodHandles.lookup()
+                            .unreflectGetter(((FieldProperty) property).field);
+                } else if (property instanceof MethodProperty) {
+                    return MethodHandles.lookup().unreflect(
+                            ((MethodProperty) property).pd.getReadMethod());
+                }
+            } catch (IllegalAccessException e) {
+                // Use reflection, which reports the problem when encoding
+            }
+            return null;
+        }
+
+        public EncodeResult encode(Object bean, JsonValue reference,
+                ConnectorTracker connectorTracker) throws Exception {
+            try {
+                switch (kind) {
+                case BOOLEAN:
+                    boolean booleanValue = (boolean) getter.invokeExact(bean);
+                    if (reference != null
+                            && reference.getType() == JsonType.BOOLEAN
+                            && reference.asBoolean() == booleanValue) {
+                        return new EncodeResult(reference);
+                    }
+                    return new EncodeResult(Json.create(booleanValue));
+                case INT:
+                    return encodeNumber((int) getter.invokeExact(bean),
+                            reference);
+                case LONG:
+                    return encodeNumber((long) getter.invokeExact(bean),
+                            reference);
+                case FLOAT:
+                    return encodeNumber((float) getter.invokeExact(bean),
+                            reference);
+                case DOUBLE:
+                    return encodeNumber((double) getter.invokeExact(bean),
+                            reference);
+                case STRING:
+                    String string = (String) getter.invokeExact(bean);
+                    if (string == null) {
+                        return ENCODE_RESULT_NULL;
+                    }
+                    if (reference != null
+                            && reference.getType() == JsonType.STRING
+                            && string.equals(reference.asString())) {
+                        return new EncodeResult(reference);
+                    }
+                    EncodedValueCache stringCache = getEncodedValueCache(
+                            connectorTracker);
+                    if (stringCache != null && string
+                            .length() >= EncodedValueCache.MIN_STRING_LENGTH) {
+                        JsonValue encoded = stringCache.getEncoded(string,
+                                type);
+                        if (encoded == null) {
+                            encoded = stringCache.putEncoded(string, type,
+                                    Json.create(string));
+                        }
+                        return new EncodeResult(encoded);
+                    }
+                    return new EncodeResult(Json.create(string));
+                default:
+                    Object value = getter != null
+                            ? (Object) getter.invokeExact(bean)
+                            : property.getValue(bean);
+                    EncodedValueCache cache = getEncodedValueCache(
+                            connectorTracker);
+                    if (cache != null && isSharable(value, type)) {
+                        JsonValue encoded = cache.getEncoded(value, type);
+                        if (encoded == null) {
+                            encoded = cache.putEncoded(value, type,
+                                    JsonCodec.encode(value, null, type,
+                                            connectorTracker)
+                                            .getEncodedValue());
+                        }
+                        return new EncodeResult(encoded);
+                    }
+                    return JsonCodec.encode(value, reference, type,
+                            connectorTracker);
+                }
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+
+        private static EncodedValueCache getEncodedValueCache(
+                ConnectorTracker connectorTracker) {
+            return connectorTracker == null ? null
+                    : connectorTracker.getEncodedValueCache();
+        }
+
+        /*
+         * Collections, maps and arrays are encoded without a diff, so the same
+         * encoded value can be used for all UIs as long as it does not contain
+         * connectors.
+         */
+        private static boolean isSharable(Object value, Type type) {
+            return (value instanceof Collection || value instanceof Map
+                    || value != null && value.getClass().isArray())
+                    && isConnectorFree(type);
+        }
+
+        /*
+         * Unchanged values are returned as the reference itself, so that the
+         * encoder neither allocates a new value nor compares it with
+         * jsonEquals. All number types are sent as doubles.
+         */
+        private static EncodeResult encodeNumber(double number,
+                JsonValue reference) {
+            if (reference != null && reference.getType() == JsonType.NUMBER
+                    && reference.asNumber() == number) {
+                return new EncodeResult(reference);
+            }
+            return new EncodeResult(Json.create(number));
+        }
+    }
+
+    /**
+     * Cache the property encoders for a given type, so that the getters are
+     * looked up only once. Will be used from any thread that happens to process
+     * Vaadin requests, so it must be protected from corruption caused by
+     * concurrent access.
+     */
+    private static ConcurrentMap<Class<?>, PropertyEncoder[]> typeEncoderCache = new ConcurrentHashMap<>();
+
     /**
      * Cache the collection of bean properties for a given type to avoid doing a
      * quite expensive lookup multiple times. Will be used from any thread that
@@ -206,6 +398,13 @@ public class JsonCodec implements Serializable {
      */
     private static ConcurrentMap<Class<?>, Collection<BeanProperty>> typePropertyCache = new ConcurrentHashMap<>();
 
+    /**
+     * Cache of {@link #isConnectorFree(Type)} results. Will be used from any
+     * thread that happens to process Vaadin requests, so it must be protected
+     * from corruption caused by concurrent access.
+     */
+    private static ConcurrentMap<Type, Boolean> connectorFreeTypeCache = new ConcurrentHashMap<>();
+
     private static Map<Class<?>, String> typeToTransportType = new HashMap<>();
 
     /**
@@ -604,9 +803,15 @@ public class JsonCodec implements Serializable {
     private static Set<Object> decodeSet(Type targetType,
             boolean restrictToInternalTypes, JsonArray jsonArray,
             ConnectorTracker connectorTracker) {
-        HashSet<Object> set = new HashSet<>();
-        set.addAll(decodeList(targetType, restrictToInternalTypes, jsonArray,
-                connectorTracker));
+        int arrayLength = jsonArray.length();
+        HashSet<Object> set = new HashSet<>(
+                Math.max((int) (arrayLength / .75f) + 1, 16));
+        for (int i = 0; i < arrayLength; ++i) {
+            JsonValue encodedValue = jsonArray.get(i);
+            set.add(decodeParametrizedType(targetType,
+                    restrictToInternalTypes, 0, encodedValue,
+                    connectorTracker));
+        }
         return set;
     }
 
@@ -663,8 +868,8 @@ public class JsonCodec implements Serializable {
             toReturn = encodeMap(valueType, (Map<?, ?>) value,
                     connectorTracker);
         } else if (value instanceof Connector) {
-            if (value instanceof Component && !(LegacyCommunicationManager
-                    .isComponentVisibleToClient((Component) value))) {
+            if (value instanceof Component
+                    && !isVisibleToClient((Component) value, connectorTracker)) {
                 // an encoded null is cached, return it directly.
                 return ENCODE_RESULT_NULL;
             }
@@ -696,6 +901,82 @@ public class JsonCodec implements Serializable {
         return new EncodeResult(toReturn);
     }
 
+    /**
+     * Checks whether values of the given declared type are always encoded the
+     * same way regardless of the UI, i.e. they can not contain connectors or
+     * values handled by custom serializers.
+     *
+     * @param type
+     *            the declared type
+     * @return <code>true</code> if the type can not contain connectors,
+     *         <code>false</code> if it can or if it is not known
+     */
+    static boolean isConnectorFree(Type type) {
+        Boolean connectorFree = connectorFreeTypeCache.get(type);
+        if (connectorFree == null) {
+            connectorFree = isConnectorFree(type, new HashSet<>());
+            connectorFreeTypeCache.put(type, connectorFree);
+        }
+        return connectorFree;
+    }
+
+    private static boolean isConnectorFree(Type type, Set<Type> visiting) {
+        if (type instanceof GenericArrayType) {
+            return isConnectorFree(
+                    ((GenericArrayType) type).getGenericComponentType(),
+                    visiting);
+        } else if (type instanceof ParameterizedType) {
+            Class<?> rawType = getClassForType(type);
+            if (!Collection.class.isAssignableFrom(rawType)
+                    && !Map.class.isAssignableFrom(rawType)) {
+                return false;
+            }
+            for (Type argument : ((ParameterizedType) type)
+                    .getActualTypeArguments()) {
+                if (!isConnectorFree(argument, visiting)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (!(type instanceof Class<?>)) {
+            // Type variables and wildcards
+            return false;
+        }
+
+        Class<?> clazz = (Class<?>) type;
+        if (clazz.isPrimitive() || clazz == String.class
+                || clazz == Boolean.class || clazz == Character.class
+                || Number.class.isAssignableFrom(clazz)
+                || Enum.class.isAssignableFrom(clazz)
+                || JsonValue.class.isAssignableFrom(clazz)) {
+            return true;
+        } else if (clazz.isArray()) {
+            return isConnectorFree(clazz.getComponentType(), visiting);
+        } else if (Connector.class.isAssignableFrom(clazz)
+                || clazz.isInterface()
+                || Modifier.isAbstract(clazz.getModifiers())
+                || clazz == Object.class || clazz == UidlValue.class
+                || customSerializers.containsKey(clazz)
+                || !visiting.add(clazz)) {
+            // Connectors, raw collections and maps, recursive beans and types
+            // with unknown contents
+            return false;
+        }
+
+        try {
+            for (BeanProperty property : getProperties(clazz)) {
+                if (!isConnectorFree(property.getType(), visiting)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IntrospectionException e) {
+            return false;
+        } finally {
+            visiting.remove(clazz);
+        }
+    }
+
     public static Collection<BeanProperty> getProperties(Class<?> type)
             throws IntrospectionException {
         Collection<BeanProperty> cachedProperties = typePropertyCache.get(type);
@@ -713,6 +994,34 @@ public class JsonCodec implements Serializable {
         return properties;
     }
 
+    private static PropertyEncoder[] getPropertyEncoders(Class<?> type)
+            throws IntrospectionException {
+        PropertyEncoder[] cachedEncoders = typeEncoderCache.get(type);
+        if (cachedEncoders != null) {
+            return cachedEncoders;
+        }
+
+        Collection<BeanProperty> properties = getProperties(type);
+        PropertyEncoder[] encoders = new PropertyEncoder[properties.size()];
+        Set<String> names = new HashSet<>();
+        int i = 0;
+        for (BeanProperty property : properties) {
+            String fieldName = property.getName();
+            if (!names.add(fieldName)) {
+                throw new RuntimeException("Can't encode " + type.getName()
+                        + " as it has multiple properties with the name "
+                        + fieldName.toLowerCase()
+                        + ". This can happen if there are getters and setters for a public field (the framework can't know which to ignore) or if there are properties with only casing distinguishing between the names (e.g. getFoo() and getFOO())");
+            }
+            encoders[i++] = new PropertyEncoder(property);
+        }
+
+        // Doesn't matter if the same calculation is done multiple times from
+        // different threads, so there's no need to do e.g. putIfAbsent
+        typeEncoderCache.put(type, encoders);
+        return encoders;
+    }
+
     /*
      * Loops through the fields of value and encodes them.
      */
@@ -722,20 +1031,8 @@ public class JsonCodec implements Serializable {
         JsonObject diff = Json.createObject();
 
         try {
-            for (BeanProperty property : getProperties(valueType)) {
-                String fieldName = property.getName();
-                // We can't use PropertyDescriptor.getPropertyType() as it does
-                // not support generics
-                Type fieldType = property.getType();
-                Object fieldValue = property.getValue(value);
-
-                if (encoded.hasKey(fieldName)) {
-                    throw new RuntimeException("Can't encode "
-                            + valueType.getName()
-                            + " as it has multiple properties with the name "
-                            + fieldName.toLowerCase()
-                            + ". This can happen if there are getters and setters for a public field (the framework can't know which to ignore) or if there are properties with only casing distinguishing between the names (e.g. getFoo() and getFOO())");
-                }
+            for (PropertyEncoder property : getPropertyEncoders(valueType)) {
+                String fieldName = property.name;
 
                 JsonValue fieldReference;
                 if (referenceValue != null) {
@@ -747,8 +1044,8 @@ public class JsonCodec implements Serializable {
                     fieldReference = null;
                 }
 
-                EncodeResult encodeResult = encode(fieldValue, fieldReference,
-                        fieldType, connectorTracker);
+                EncodeResult encodeResult = property.encode(value,
+                        fieldReference, connectorTracker);
                 encoded.put(fieldName, encodeResult.getEncodedValue());
 
                 if (valueChanged(encodeResult.getEncodedValue(),
@@ -763,6 +1060,60 @@ public class JsonCodec implements Serializable {
         return new EncodeResult(encoded, diff);
     }
 
+    /**
+     * Encodes only the given properties of a bean. The encoded value of the
+     * result contains only the given properties and the diff contains those
+     * of them that differ from the reference. Properties that the bean type
+     * does not have are ignored.
+     *
+     * @param value
+     *            the bean to encode, not <code>null</code>
+     * @param referenceValue
+     *            the previously encoded bean to compare with, not
+     *            <code>null</code>
+     * @param valueType
+     *            the type of the bean
+     * @param propertyNames
+     *            the names of the properties to encode
+     * @param connectorTracker
+     *            the connector tracker to use for encoding connectors
+     * @return the encode result
+     * @since 8.0
+     */
+    public static EncodeResult encodeProperties(Object value,
+            JsonObject referenceValue, Class<?> valueType,
+            Collection<String> propertyNames,
+            ConnectorTracker connectorTracker) {
+        JsonObject encoded = Json.createObject();
+        JsonObject diff = Json.createObject();
+
+        try {
+            for (PropertyEncoder property : getPropertyEncoders(valueType)) {
+                String fieldName = property.name;
+                if (!propertyNames.contains(fieldName)) {
+                    continue;
+                }
+
+                JsonValue fieldReference = referenceValue.get(fieldName);
+                if (fieldReference instanceof JsonNull) {
+                    fieldReference = null;
+                }
+
+                EncodeResult encodeResult = property.encode(value,
+                        fieldReference, connectorTracker);
+                encoded.put(fieldName, encodeResult.getEncodedValue());
+
+                if (valueChanged(encodeResult.getEncodedValue(),
+                        fieldReference)) {
+                    diff.put(fieldName, encodeResult.getDiffOrValue());
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        return new EncodeResult(encoded, diff);
+    }
+
     /**
      * Compares the value with the reference. If they match, returns false.
      *
@@ -945,6 +1296,16 @@ public class JsonCodec implements Serializable {
         return jsonMap;
     }
 
+    private static boolean isVisibleToClient(ClientConnector connector,
+            ConnectorTracker connectorTracker) {
+        if (connectorTracker != null) {
+            return connectorTracker.isConnectorVisibleToClient(connector);
+        } else {
+            return LegacyCommunicationManager
+                    .isConnectorVisibleToClient(connector);
+        }
+    }
+
     /*
      * Encodes a connector map. Invisible connectors are skipped.
      */
@@ -954,7 +1315,7 @@ public class JsonCodec implements Serializable {
 
         for (Entry<?, ?> entry : map.entrySet()) {
             ClientConnector key = (ClientConnector) entry.getKey();
-            if (LegacyCommunicationManager.isConnectorVisibleToClient(key)) {
+            if (isVisibleToClient(key, connectorTracker)) {
                 EncodeResult encodedValue = encode(entry.getValue(), null,
                         valueType, connectorTracker);
                 jsonMap.put(key.getConnectorId(),
@@ -96,6 +96,22 @@ public class LegacyCommunicationManager implements Serializable {
         JsonValue diffState = connectorTracker.getDiffState(connector);
         boolean supportsDiffState = !JavaScriptConnectorState.class
                 .isAssignableFrom(stateType);
+        Set<String> writtenProperties = connectorTracker
+                .getWrittenStateProperties(connector);
+        if (diffState != null && supportsDiffState
+                && writtenProperties != null) {
+            // Only the written properties can differ from the state last
+            // sent to the client
+            JsonObject previousState = (JsonObject) diffState;
+            EncodeResult encodeResult = JsonCodec.encodeProperties(state,
+                    previousState, stateType, writtenProperties,
+                    connectorTracker);
+            JsonObject encoded = (JsonObject) encodeResult.getEncodedValue();
+            for (String property : encoded.keys()) {
+                previousState.put(property, (JsonValue) encoded.get(property));
+            }
+            return (JsonObject) encodeResult.getDiff();
+        }
         if (diffState == null && supportsDiffState) {
             // Use an empty state object as reference for full
             // repaints
@@ -205,6 +221,8 @@ public class LegacyCommunicationManager implements Serializable {
      * of connectors, the contextual visibility of its first Component ancestor
      * is used. If no Component ancestor is found, the connector is not visible.
      *
+     * @see ConnectorTracker#isConnectorVisibleToClient(ClientConnector)
+     *
      * @deprecated As of 7.1. See #11411.
      *
      * @param connector
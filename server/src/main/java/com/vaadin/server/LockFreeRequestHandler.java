@@ -0,0 +1,61 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.IOException;
+
+/**
+ * A specialized RequestHandler which can handle some requests without locking
+ * the session, so that they are not blocked by other requests for the same
+ * session, e.g. from other browser tabs.
+ * <p>
+ * Lock free request handlers are asked to handle a request before the session
+ * is locked, if the session already exists. If no lock free request handler
+ * handles the request, it is handled in the normal way using
+ * {@link #handleRequest(VaadinSession, VaadinRequest, VaadinResponse)}.
+ *
+ * @since 8.0
+ * @author Vaadin Ltd
+ */
+public interface LockFreeRequestHandler extends RequestHandler {
+
+    /**
+     * Called when a request could be handled without locking the session. If a
+     * response is written, this method should return <code>true</code> to
+     * indicate that the request should not be handled any further.
+     * <p>
+     * The session is not locked when this method is called, so only the parts
+     * of the session that are safe to use concurrently, such as
+     * {@link VaadinSession#getUIByIdWithoutLock(int)}, may be used. Anything
+     * else, including the state of the UIs, must only be used with the session
+     * locked. If the request cannot be handled without the lock, this method
+     * should return <code>false</code>.
+     *
+     * @param session
+     *            The session for the request, not locked
+     * @param request
+     *            The request to handle
+     * @param response
+     *            The response object to which a response can be written.
+     * @return true if a response has been written and no further request
+     *         handlers should be called, otherwise false
+     * @throws IOException
+     *             If an IO error occurred
+     */
+    boolean handleRequestWithoutLock(VaadinSession session,
+            VaadinRequest request, VaadinResponse response) throws IOException;
+
+}
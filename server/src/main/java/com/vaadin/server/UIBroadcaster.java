@@ -0,0 +1,187 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.vaadin.server;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.vaadin.ui.ConnectorTracker;
+import com.vaadin.ui.UI;
+import com.vaadin.util.CurrentInstance;
+
+/**
+ * Applies the same update to many UIs and pushes the resulting changes to the
+ * clients, e.g. to show the same live data to all users of a dashboard.
+ * <p>
+ * Compared to calling {@link UI#access(Runnable)} for each UI, a broadcast
+ * <ul>
+ * <li>locks each session only once, running the update for all target UIs of
+ * the session in a single {@link VaadinService#accessSession(VaadinSession,
+ * Runnable) access task},
+ * <li>processes up to a given number of sessions in parallel, and
+ * <li>encodes and serializes state values shared by the UIs only once, if the
+ * update sets the same string, collection, map or array instance to the
+ * components of each UI. See {@link EncodedValueCache}.
+ * </ul>
+ * Changes are pushed right away to UIs that have push enabled, regardless of
+ * the push mode and the push interval. For other UIs, the changes are sent
+ * with the response to the next request.
+ * <p>
+ * A broadcaster is typically created once for the application, and it should
+ * be {@link #shutdown() shut down} when the application is undeployed, e.g.
+ * from a {@link ServiceDestroyListener}.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public class UIBroadcaster {
+
+    private final VaadinService service;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a new broadcaster.
+     *
+     * @param service
+     *            the Vaadin service of the UIs, not null
+     * @param parallelism
+     *            the maximum number of sessions to update at the same time
+     */
+    public UIBroadcaster(VaadinService service, int parallelism) {
+        if (service == null) {
+            throw new IllegalArgumentException("Service cannot be null");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(
+                    "Parallelism must be at least 1");
+        }
+        this.service = service;
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable,
+                    "Vaadin broadcaster " + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs an update for each of the given UIs with the session of the UI
+     * locked, and pushes the changes to the UIs that have push enabled.
+     * <p>
+     * The update is run with {@link UI#getCurrent()} and
+     * {@link VaadinSession#getCurrent()} set up. Exceptions thrown by the
+     * update are passed to the error handler of the UI and do not prevent
+     * updating the other UIs. Values set to the components by the update must
+     * not be modified before the returned future is done.
+     * <p>
+     * The returned future should not be waited for while holding the lock of
+     * a session.
+     *
+     * @param uis
+     *            the UIs to update, not null
+     * @param update
+     *            the update to run for each UI, not null
+     * @return a future that is done when all UIs have been updated
+     */
+    public <T extends UI> Future<Void> broadcast(Collection<T> uis,
+            Consumer<? super T> update) {
+        Map<VaadinSession, List<T>> uisBySession = new LinkedHashMap<>();
+        for (T ui : uis) {
+            VaadinSession session = ui.getSession();
+            if (session != null) {
+                uisBySession.computeIfAbsent(session, s -> new ArrayList<>())
+                        .add(ui);
+            }
+        }
+
+        EncodedValueCache encodedValueCache = new EncodedValueCache();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(
+                uisBySession.size());
+        for (Entry<VaadinSession, List<T>> entry : uisBySession.entrySet()) {
+            VaadinSession session = entry.getKey();
+            List<T> sessionUIs = entry.getValue();
+            futures.add(CompletableFuture.runAsync(
+                    () -> accessAndWait(session, () -> update(session,
+                            sessionUIs, update, encodedValueCache)),
+                    executor));
+        }
+        return CompletableFuture
+                .allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Stops the threads of this broadcaster. Broadcasts that have not yet
+     * been started for all sessions are left incomplete.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void accessAndWait(VaadinSession session, Runnable runnable) {
+        try {
+            // Usually run right away in this thread, unless another thread
+            // holds the lock
+            service.accessSession(session, runnable).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Already passed to the error handler of the session
+        }
+    }
+
+    private static <T extends UI> void update(VaadinSession session,
+            List<T> uis, Consumer<? super T> update,
+            EncodedValueCache encodedValueCache) {
+        for (T ui : uis) {
+            if (ui.getSession() != session) {
+                // Detached after the broadcast was started
+                continue;
+            }
+            ConnectorTracker tracker = ui.getConnectorTracker();
+            Map<Class<?>, CurrentInstance> old = CurrentInstance
+                    .setCurrent(ui);
+            try {
+                update.accept(ui);
+                if (ui.getPushConfiguration().getPushMode().isEnabled()) {
+                    tracker.setEncodedValueCache(encodedValueCache);
+                    ui.push();
+                }
+            } catch (Exception e) {
+                ErrorHandler errorHandler = ErrorEvent.findErrorHandler(ui);
+                if (errorHandler == null) {
+                    errorHandler = new DefaultErrorHandler();
+                }
+                errorHandler.error(new ErrorEvent(e));
+            } finally {
+                tracker.setEncodedValueCache(null);
+                CurrentInstance.restoreInstances(old);
+            }
+        }
+    }
+}
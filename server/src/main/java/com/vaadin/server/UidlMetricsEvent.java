@@ -0,0 +1,193 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.vaadin.server;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EventObject;
+import java.util.Map;
+
+import com.vaadin.ui.UI;
+
+/**
+ * Event fired when a client message has been handled or a response has been
+ * written for a UI, containing the time spent in each processing phase and
+ * the size of the response.
+ * <p>
+ * A UIDL request produces a single event with both the client message and the
+ * response phases. With server push, messages received and responses pushed
+ * through the push connection produce separate events.
+ *
+ * @see UidlMetricsListener#uidlProcessed(UidlMetricsEvent)
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public class UidlMetricsEvent extends EventObject {
+
+    /**
+     * The phases of processing a client message and writing a response.
+     */
+    public enum Phase {
+        /**
+         * Parsing the client message and decoding the RPC invocations.
+         */
+        RPC_DECODE,
+        /**
+         * Invoking the server RPC methods and legacy variable changes.
+         */
+        RPC_INVOKE,
+        /**
+         * Calling {@link ClientConnector#beforeClientResponse(boolean)} for
+         * dirty connectors.
+         */
+        BEFORE_CLIENT_RESPONSE,
+        /**
+         * Painting legacy components.
+         */
+        LEGACY_PAINT,
+        /**
+         * Encoding the shared state of dirty connectors.
+         */
+        STATE_ENCODE,
+        /**
+         * Writing the connector types and the connector hierarchy.
+         */
+        HIERARCHY,
+        /**
+         * Writing the client RPC invocations.
+         */
+        CLIENT_RPC;
+    }
+
+    private final UI ui;
+    private final boolean async;
+    private final Map<Phase, Long> phaseNanos;
+    private final int responseSize;
+    private final Map<Class<? extends ClientConnector>, Integer> stateSizes;
+
+    /**
+     * Creates a new event.
+     *
+     * @param service
+     *            the Vaadin service from which the event originates
+     * @param ui
+     *            the UI that handled the message or for which the response was
+     *            written
+     * @param async
+     *            <code>true</code> if the response was pushed to the client
+     *            asynchronously, <code>false</code> otherwise
+     * @param phaseNanos
+     *            the time spent in each phase in nanoseconds
+     * @param responseSize
+     *            the size of the response in bytes before compression, or 0
+     *            if no response was written
+     * @param stateSizes
+     *            the size of the shared state written for each connector
+     *            class, in bytes
+     */
+    public UidlMetricsEvent(VaadinService service, UI ui, boolean async,
+            Map<Phase, Long> phaseNanos, int responseSize,
+            Map<Class<? extends ClientConnector>, Integer> stateSizes) {
+        super(service);
+        this.ui = ui;
+        this.async = async;
+        this.phaseNanos = new EnumMap<>(Phase.class);
+        this.phaseNanos.putAll(phaseNanos);
+        this.responseSize = responseSize;
+        this.stateSizes = Collections.unmodifiableMap(stateSizes);
+    }
+
+    @Override
+    public VaadinService getSource() {
+        return (VaadinService) super.getSource();
+    }
+
+    /**
+     * Gets the Vaadin service from which this event originates.
+     *
+     * @return the Vaadin service instance
+     */
+    public VaadinService getService() {
+        return getSource();
+    }
+
+    /**
+     * Gets the UI that handled the client message or for which the response
+     * was written.
+     *
+     * @return the UI
+     */
+    public UI getUI() {
+        return ui;
+    }
+
+    /**
+     * Checks whether the response was pushed to the client asynchronously.
+     *
+     * @return <code>true</code> if the response was pushed asynchronously,
+     *         <code>false</code> otherwise
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Gets the time spent in the given phase.
+     *
+     * @param phase
+     *            the phase, not null
+     * @return the time in nanoseconds, or 0 if the phase was not run
+     */
+    public long getNanos(Phase phase) {
+        Long nanos = phaseNanos.get(phase);
+        return nanos == null ? 0 : nanos;
+    }
+
+    /**
+     * Gets the total time spent in all phases.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for (Long nanos : phaseNanos.values()) {
+            total += nanos;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the size of the response before compression.
+     *
+     * @return the size in bytes, or 0 if no response was written
+     */
+    public int getResponseSize() {
+        return responseSize;
+    }
+
+    /**
+     * Gets the size of the shared state written for each connector class.
+     * Only classes of connectors whose state was written are included.
+     *
+     * @return an unmodifiable map from connector class to the total size of
+     *         the states written for connectors of that class, in bytes
+     */
+    public Map<Class<? extends ClientConnector>, Integer> getStateSizes() {
+        return stateSizes;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.vaadin.server;
+
+import java.io.Serializable;
+
+/**
+ * Event listener that can be registered to a {@link VaadinService} to get
+ * timing and size information about the processing of each client message
+ * and each response written to a UI, e.g. to publish it through a monitoring
+ * system.
+ * <p>
+ * The listener is called from the thread that handled the message or wrote
+ * the response, while the session is locked. Implementations should be fast
+ * and thread safe, since the listener is shared by all sessions.
+ *
+ * @see VaadinService#addUidlMetricsListener(UidlMetricsListener)
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public interface UidlMetricsListener extends Serializable {
+    /**
+     * Invoked when a client message has been handled or a response has been
+     * written for a UI.
+     *
+     * @param event
+     *            the metrics event
+     */
+    public void uidlProcessed(UidlMetricsEvent event);
+}
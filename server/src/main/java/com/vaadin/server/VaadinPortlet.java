@@ -644,10 +644,9 @@ public class VaadinPortlet extends GenericPortlet
     /**
      * Gets the currently used Vaadin portlet. The current portlet is
      * automatically defined when initializing the portlet and when processing
-     * requests to the server and in threads started at a point when the current
-     * portlet is defined (see {@link InheritableThreadLocal}). In other cases,
-     * (e.g. from background threads started in some other way), the current
-     * portlet is not automatically defined.
+     * requests to the server and when running tasks using
+     * {@link VaadinSession#access(Runnable)}. In other cases, (e.g. from
+     * background threads), the current portlet is not automatically defined.
      * <p>
      * The current portlet is derived from the current service using
      * {@link VaadinService#getCurrent()}
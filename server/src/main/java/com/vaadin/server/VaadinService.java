@@ -35,7 +35,10 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -53,9 +56,11 @@ import com.vaadin.event.EventRouter;
 import com.vaadin.server.VaadinSession.FutureAccess;
 import com.vaadin.server.VaadinSession.State;
 import com.vaadin.server.communication.AtmospherePushConnection;
+import com.vaadin.server.communication.CompressionStatistics;
 import com.vaadin.server.communication.FileUploadHandler;
 import com.vaadin.server.communication.HeartbeatHandler;
 import com.vaadin.server.communication.PublishedFileHandler;
+import com.vaadin.server.communication.ResponseBufferPool;
 import com.vaadin.server.communication.SessionRequestHandler;
 import com.vaadin.server.communication.UidlRequestHandler;
 import com.vaadin.shared.ApplicationConstants;
@@ -109,6 +114,10 @@ public abstract class VaadinService implements Serializable {
             .findMethod(ServiceDestroyListener.class, "serviceDestroy",
                     ServiceDestroyEvent.class);
 
+    private static final Method UIDL_METRICS_METHOD = ReflectTools.findMethod(
+            UidlMetricsListener.class, "uidlProcessed",
+            UidlMetricsEvent.class);
+
     /**
      * @deprecated As of 7.0. Only supported for {@link LegacyApplication}.
      */
@@ -148,6 +157,21 @@ public abstract class VaadinService implements Serializable {
      */
     private boolean initialized = false;
 
+    private final CompressionStatistics compressionStatistics = new CompressionStatistics();
+
+    /**
+     * Pool of buffers and compressors for UIDL responses. Created when first
+     * needed and cleared when the service is destroyed.
+     */
+    private transient ResponseBufferPool responseBufferPool;
+
+    /**
+     * Runs delayed session access tasks. Created when first needed.
+     */
+    private transient ScheduledExecutorService accessScheduler;
+
+    private transient volatile Executor accessExecutor;
+
     /**
      * Creates a new vaadin service based on a deployment configuration
      *
@@ -326,6 +350,94 @@ public abstract class VaadinService implements Serializable {
         return deploymentConfiguration;
     }
 
+    /**
+     * Gets the statistics about the compression of UIDL responses handled by
+     * this service.
+     *
+     * @see DeploymentConfiguration#getResponseCompressionLevel()
+     *
+     * @return the compression statistics, not null
+     * @since 8.0
+     */
+    public CompressionStatistics getCompressionStatistics() {
+        return compressionStatistics;
+    }
+
+    /**
+     * Gets the pool of buffers and compressors used for writing UIDL responses
+     * of this service. The pool is cleared when the service is destroyed.
+     *
+     * @return the response buffer pool, not null
+     * @since 8.0
+     */
+    public synchronized ResponseBufferPool getResponseBufferPool() {
+        if (responseBufferPool == null) {
+            responseBufferPool = new ResponseBufferPool(
+                    Runtime.getRuntime().availableProcessors());
+        }
+        return responseBufferPool;
+    }
+
+    /**
+     * Adds a listener that gets notified with timing and size information
+     * whenever a client message has been handled or a response has been
+     * written for a UI of this service. The information is only collected
+     * while at least one listener is registered.
+     * <p>
+     * Listeners should be added when the service is initialized, e.g. from an
+     * overridden {@link VaadinServlet#servletInitialized()}, since adding
+     * listeners is not thread safe.
+     *
+     * @see #removeUidlMetricsListener(UidlMetricsListener)
+     * @see UidlMetricsListener
+     *
+     * @param listener
+     *            the metrics listener to add
+     * @since 8.0
+     */
+    public void addUidlMetricsListener(UidlMetricsListener listener) {
+        eventRouter.addListener(UidlMetricsEvent.class, listener,
+                UIDL_METRICS_METHOD);
+    }
+
+    /**
+     * Removes a metrics listener that was previously added with
+     * {@link #addUidlMetricsListener(UidlMetricsListener)}.
+     *
+     * @param listener
+     *            the metrics listener to remove
+     * @since 8.0
+     */
+    public void removeUidlMetricsListener(UidlMetricsListener listener) {
+        eventRouter.removeListener(UidlMetricsEvent.class, listener,
+                UIDL_METRICS_METHOD);
+    }
+
+    /**
+     * Checks whether any metrics listeners have been added to this service.
+     *
+     * @see #addUidlMetricsListener(UidlMetricsListener)
+     *
+     * @return <code>true</code> if there are metrics listeners,
+     *         <code>false</code> otherwise
+     * @since 8.0
+     */
+    public boolean hasUidlMetricsListeners() {
+        return eventRouter.hasListeners(UidlMetricsEvent.class);
+    }
+
+    /**
+     * Notifies all metrics listeners of this service. This should only be
+     * called by the framework.
+     *
+     * @param event
+     *            the metrics event to fire
+     * @since 8.0
+     */
+    public void fireUidlMetricsEvent(UidlMetricsEvent event) {
+        eventRouter.fireEvent(event);
+    }
+
     /**
      * Sets the system messages provider to use for getting system messages to
      * display to users of this service.
@@ -888,9 +1000,8 @@ public abstract class VaadinService implements Serializable {
     /**
      * Gets the currently used Vaadin service. The current service is
      * automatically defined when processing requests related to the service and
-     * in threads started at a point when the current service is defined (see
-     * {@link InheritableThreadLocal}). In other cases, (e.g. from background
-     * threads started in some other way), the current service is not
+     * when running tasks using {@link VaadinSession#access(Runnable)}. In other
+     * cases, (e.g. from background threads), the current service is not
      * automatically defined.
      *
      * @return the current Vaadin service instance if available, otherwise
@@ -1412,6 +1523,10 @@ public abstract class VaadinService implements Serializable {
 
         VaadinSession vaadinSession = null;
         try {
+            if (handleRequestWithoutLock(request, response)) {
+                return;
+            }
+
             // Find out the service session this request is related to
             vaadinSession = findVaadinSession(request);
             if (vaadinSession == null) {
@@ -1437,6 +1552,60 @@ public abstract class VaadinService implements Serializable {
         }
     }
 
+    /**
+     * Lets the {@link LockFreeRequestHandler lock free request handlers} handle
+     * the request without locking the session, if the session already exists.
+     * The session is cleaned up after the request only if it is not locked by
+     * another thread, since the thread holding the lock will clean it up at
+     * the end of its own request.
+     *
+     * @param request
+     *            The incoming request
+     * @param response
+     *            The outgoing response
+     * @return <code>true</code> if the request was handled,
+     *         <code>false</code> if it should be handled with the session
+     *         locked
+     * @throws IOException
+     *             If an IO error occurred
+     */
+    private boolean handleRequestWithoutLock(VaadinRequest request,
+            VaadinResponse response) throws IOException {
+        WrappedSession wrappedSession = request.getWrappedSession(false);
+        if (wrappedSession == null) {
+            return false;
+        }
+        VaadinSession session = loadSessionWithoutLock(wrappedSession);
+        if (session == null || !session.isOpenWithoutLock()) {
+            // Closing sessions are handled with the lock held
+            return false;
+        }
+
+        for (RequestHandler handler : getRequestHandlers()) {
+            if (handler instanceof LockFreeRequestHandler) {
+                VaadinSession.setCurrent(session);
+                request.setAttribute(VaadinSession.class.getName(), session);
+                if (((LockFreeRequestHandler) handler)
+                        .handleRequestWithoutLock(session, request, response)) {
+                    if (session.getLockInstance().tryLock()) {
+                        try {
+                            cleanupSession(session);
+                            final long duration = (System.nanoTime()
+                                    - (Long) request.getAttribute(
+                                            REQUEST_START_TIME_ATTRIBUTE))
+                                    / 1000000;
+                            session.setLastRequestDuration(duration);
+                        } finally {
+                            session.unlock();
+                        }
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     private void handleExceptionDuringRequest(VaadinRequest request,
             VaadinResponse response, VaadinSession vaadinSession, Throwable t)
             throws ServiceException {
@@ -1777,18 +1946,123 @@ public abstract class VaadinService implements Serializable {
         return future;
     }
 
+    /**
+     * Enqueues a task to be run with the session locked after the given
+     * delay, in the same way as with {@link #accessSession(VaadinSession,
+     * Runnable)}. The delay is measured by a single background thread shared
+     * by all sessions of this service, which is stopped when the service is
+     * destroyed.
+     * <p>
+     * This is used by the framework to push changes to UIs that have a
+     * {@link com.vaadin.ui.PushConfiguration#setPushInterval(int) push
+     * interval}.
+     *
+     * @since 8.0
+     * @param session
+     *            the vaadin session to access
+     * @param runnable
+     *            the runnable to run with the session locked
+     * @param delayMillis
+     *            the delay in milliseconds
+     */
+    public void accessSessionLater(VaadinSession session, Runnable runnable,
+            long delayMillis) {
+        getAccessScheduler().schedule(() -> accessSession(session, runnable),
+                delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized ScheduledExecutorService getAccessScheduler() {
+        if (accessScheduler == null) {
+            accessScheduler = Executors.newSingleThreadScheduledExecutor(
+                    runnable -> {
+                        Thread thread = new Thread(runnable,
+                                "Vaadin access scheduler");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        return accessScheduler;
+    }
+
+    /**
+     * Sets the executor that runs the tasks enqueued with
+     * {@link VaadinSession#access(Runnable)} and pushes the resulting changes
+     * to UIs with automatic push.
+     * <p>
+     * By default, there is no executor. The pending tasks of a session are
+     * then run by the thread that enqueues a task if the session is not
+     * locked, and otherwise by the thread that unlocks the session, which is
+     * often a thread serving a request. With an executor, the tasks are always
+     * run by a thread of the executor, which waits for the session lock to be
+     * released. Request threads then never run tasks enqueued by other
+     * threads, except when a response is written or {@link UI#push()} is
+     * called.
+     * <p>
+     * Since the threads of the executor may wait for the session lock, the
+     * executor should not limit the number of threads. On Java 21 and newer,
+     * an executor running each task in a new virtual thread, i.e.
+     * <code>Executors.newVirtualThreadPerTaskExecutor()</code>, is a good fit,
+     * as a virtual thread waiting for a lock does not tie up a platform
+     * thread. The executor is not shut down by the framework.
+     *
+     * @since 8.0
+     * @param accessExecutor
+     *            the executor for running access tasks, or <code>null</code>
+     *            to run them in the thread that unlocks the session
+     */
+    public void setAccessExecutor(Executor accessExecutor) {
+        this.accessExecutor = accessExecutor;
+    }
+
+    /**
+     * Gets the executor that runs the tasks enqueued with
+     * {@link VaadinSession#access(Runnable)}.
+     *
+     * @see #setAccessExecutor(Executor)
+     *
+     * @since 8.0
+     * @return the executor for running access tasks, or <code>null</code> if
+     *         they are run in the thread that unlocks the session
+     */
+    public Executor getAccessExecutor() {
+        return accessExecutor;
+    }
+
     /**
      * Makes sure the pending access queue is purged for the provided session.
      * If the session is currently locked by the current thread or some other
      * thread, the queue will be purged when the session is unlocked. If the
      * lock is not held by any thread, it is acquired and the queue is purged
      * right away.
+     * <p>
+     * If there is an {@link #setAccessExecutor(Executor) access executor}, the
+     * queue is instead purged by a thread of the executor, as soon as the lock
+     * is available.
      *
      * @since 7.1.2
      * @param session
      *            the session for which the access queue should be purged
      */
     public void ensureAccessQueuePurged(VaadinSession session) {
+        Executor executor = getAccessExecutor();
+        if (executor != null) {
+            /*
+             * If the current thread holds the lock, the queue is purged when
+             * the lock is released. One purge at a time is enough, it runs all
+             * tasks in the queue.
+             */
+            if (!session.hasLock() && session.getAccessQueuePurgeScheduled()
+                    .compareAndSet(false, true)) {
+                try {
+                    executor.execute(() -> purgeAccessQueue(session));
+                } catch (RuntimeException e) {
+                    session.getAccessQueuePurgeScheduled().set(false);
+                    throw e;
+                }
+            }
+            return;
+        }
+
         /*
          * If no thread is currently holding the lock, pending changes for UIs
          * with automatic push would not be processed and pushed until the next
@@ -1813,6 +2087,33 @@ public abstract class VaadinService implements Serializable {
         }
     }
 
+    /**
+     * Runs the pending access tasks of a session in a thread of the access
+     * executor. The tasks are run without any current instances the thread
+     * might have inherited from the thread that created it, and the current
+     * instances of the thread are restored afterwards.
+     */
+    private void purgeAccessQueue(VaadinSession session) {
+        // Tasks enqueued after this are either run below or purged again
+        session.getAccessQueuePurgeScheduled().set(false);
+
+        Map<Class<?>, CurrentInstance> oldInstances = CurrentInstance
+                .getInstances(false);
+        CurrentInstance.clearAll();
+        try {
+            session.lock();
+            try {
+                runPendingAccessTasks(session);
+            } finally {
+                // Pushes the changes to UIs with automatic push
+                session.unlock();
+            }
+        } finally {
+            CurrentInstance.clearAll();
+            CurrentInstance.restoreInstances(oldInstances);
+        }
+    }
+
     /**
      * Purges the queue of pending access invocations enqueued with
      * {@link VaadinSession#access(Runnable)}.
@@ -1902,6 +2203,17 @@ public abstract class VaadinService implements Serializable {
      */
     public void destroy() {
         eventRouter.fireEvent(new ServiceDestroyEvent(this));
+
+        synchronized (this) {
+            if (accessScheduler != null) {
+                accessScheduler.shutdownNow();
+                accessScheduler = null;
+            }
+            if (responseBufferPool != null) {
+                responseBufferPool.clear();
+                responseBufferPool = null;
+            }
+        }
     }
 
     /**
@@ -1981,6 +2293,41 @@ public abstract class VaadinService implements Serializable {
         return vaadinSession;
     }
 
+    /**
+     * Called when the VaadinSession should be loaded from the underlying HTTP
+     * session for handling a request without locking the session. Returning
+     * <code>null</code> makes the request be handled in the regular way, with
+     * the session loaded by {@link #loadSession(WrappedSession)} while holding
+     * the session lock.
+     * <p>
+     * The default implementation reads the session with
+     * {@link #readFromHttpSession(WrappedSession)}. The session is only
+     * returned if it has already been loaded through
+     * {@link #loadSession(WrappedSession)} by this service, since refreshing
+     * the transient fields of the session requires the lock. Subclasses that
+     * override {@link #loadSession(WrappedSession)} or
+     * {@link #getExistingSession(VaadinRequest, boolean)} to load sessions in
+     * some other way should also override this method, or make it return
+     * <code>null</code> to always lock the session.
+     *
+     * @see LockFreeRequestHandler
+     *
+     * @param wrappedSession
+     *            the underlying HTTP session, not <code>null</code>
+     * @return the VaadinSession to use without locking, or <code>null</code>
+     *         to handle the request with the session locked
+     * @since 8.0
+     */
+    protected VaadinSession loadSessionWithoutLock(
+            WrappedSession wrappedSession) {
+        VaadinSession vaadinSession = readFromHttpSession(wrappedSession);
+        if (vaadinSession == null || vaadinSession.getService() != this) {
+            // Missing or not yet refreshed after deserialization
+            return null;
+        }
+        return vaadinSession;
+    }
+
     /**
      * Performs the actual read of the VaadinSession from the underlying HTTP
      * session after sanity checks have been performed.
@@ -33,10 +33,13 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -229,7 +232,11 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
     private LinkedList<RequestHandler> requestHandlers = new LinkedList<>();
 
     private int nextUIId = 0;
-    private Map<Integer, UI> uIs = new HashMap<>();
+    /*
+     * Concurrent so that UIs can be looked up without the lock, see
+     * getUIByIdWithoutLock(int).
+     */
+    private Map<Integer, UI> uIs = new ConcurrentHashMap<>();
 
     private final Map<String, Integer> embedIdMap = new HashMap<>();
 
@@ -249,7 +256,11 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
 
     private long lastRequestTimestamp = System.currentTimeMillis();
 
-    private State state = State.OPEN;
+    /*
+     * Volatile since the state is also read without the lock when handling
+     * requests that do not lock the session
+     */
+    private volatile State state = State.OPEN;
 
     private transient WrappedSession session;
 
@@ -268,6 +279,20 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      */
     private transient ConcurrentLinkedQueue<FutureAccess> pendingAccessQueue = new ConcurrentLinkedQueue<>();
 
+    /*
+     * The time of the latest automatic push and the UIs waiting for a
+     * scheduled automatic push, for UIs that have a push interval. Only used
+     * while the session is locked.
+     */
+    private transient Map<UI, Long> automaticPushTimes = new HashMap<>();
+    private transient Set<UI> scheduledAutomaticPushes = new HashSet<>();
+
+    /*
+     * Whether a thread of the access executor will purge the pending access
+     * queue.
+     */
+    private transient AtomicBoolean accessQueuePurgeScheduled = new AtomicBoolean();
+
     /**
      * Creates a new VaadinSession tied to a VaadinService.
      *
@@ -693,14 +718,9 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
 
     /**
      * Gets the currently used session. The current session is automatically
-     * defined when processing requests to the server and in threads started at
-     * a point when the current session is defined (see
-     * {@link InheritableThreadLocal}). In other cases, (e.g. from background
-     * threads started in some other way), the current session is not
-     * automatically defined.
-     * <p>
-     * The session is stored using a weak reference to avoid leaking memory in
-     * case it is not explicitly cleared.
+     * defined when processing requests to the server and when running tasks
+     * using {@link #access(Runnable)}. In other cases, (e.g. from background
+     * threads), the current session is not automatically defined.
      *
      * @return the current session instance if available, otherwise
      *         <code>null</code>
@@ -719,11 +739,9 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      * and it is cleared when the request has been processed.
      * <p>
      * The application developer can also use this method to define the current
-     * session outside the normal request handling and treads started from
-     * request handling threads, e.g. when initiating custom background threads.
-     * <p>
-     * The session is stored using a weak reference to avoid leaking memory in
-     * case it is not explicitly cleared.
+     * session outside the normal request handling, e.g. when initiating custom
+     * background threads. The current session should be cleared when it is no
+     * longer needed to avoid leaking memory.
      *
      * @param session
      *            the session to set as current
@@ -787,6 +805,26 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         return uIs.get(uiId);
     }
 
+    /**
+     * Returns a UI with the given id without requiring the session to be
+     * locked. The returned UI may be concurrently modified, removed or closed
+     * by another thread, so it must not be used without locking the session
+     * except for the few methods that are documented to be safe to call
+     * concurrently, such as {@link UI#setLastHeartbeatTimestamp(long)}.
+     * <p>
+     * This is meant for framework internal use, e.g. in
+     * {@link LockFreeRequestHandler lock free request handlers}.
+     * </p>
+     *
+     * @since 8.0
+     * @param uiId
+     *            The UI id
+     * @return The UI with the given id or null if not found
+     */
+    public UI getUIByIdWithoutLock(int uiId) {
+        return uIs.get(uiId);
+    }
+
     /**
      * Checks if the current thread has exclusive access to this VaadinSession
      *
@@ -878,6 +916,8 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         Integer id = Integer.valueOf(ui.getUIId());
         ui.setSession(null);
         uIs.remove(id);
+        automaticPushTimes.remove(ui);
+        scheduledAutomaticPushes.remove(ui);
         String embedId = ui.getEmbedId();
         if (embedId != null && id.equals(embedIdMap.get(embedId))) {
             embedIdMap.remove(embedId);
@@ -982,7 +1022,10 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      * <p>
      * For UIs in this session that have its push mode set to
      * {@link PushMode#AUTOMATIC automatic}, pending changes will be pushed to
-     * their respective clients.
+     * their respective clients. If a UI has a
+     * {@link com.vaadin.ui.PushConfiguration#setPushInterval(int) push
+     * interval} and it was pushed to less than the interval ago, the push is
+     * instead scheduled to happen when the interval has elapsed.
      *
      * @see #lock()
      * @see UI#push()
@@ -993,15 +1036,19 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         try {
             /*
              * Run pending tasks and push if the reentrant lock will actually be
-             * released by this unlock() invocation.
+             * released by this unlock() invocation. With an access executor,
+             * the pending tasks are run by the executor instead.
              */
             if (((ReentrantLock) getLockInstance()).getHoldCount() == 1) {
                 ultimateRelease = true;
-                getService().runPendingAccessTasks(this);
+                if (getService().getAccessExecutor() == null) {
+                    getService().runPendingAccessTasks(this);
+                }
 
                 for (UI ui : getUIs()) {
                     if (ui.getPushConfiguration()
-                            .getPushMode() == PushMode.AUTOMATIC) {
+                            .getPushMode() == PushMode.AUTOMATIC
+                            && isAutomaticPushDue(ui)) {
                         Map<Class<?>, CurrentInstance> oldCurrent = CurrentInstance
                                 .setCurrent(ui);
                         try {
@@ -1271,6 +1318,19 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         return state;
     }
 
+    /**
+     * Checks whether this session is open, without requiring the session lock.
+     * The state may change right after this method returns, so the result can
+     * only be used for deciding whether to attempt handling a request without
+     * the lock.
+     *
+     * @return <code>true</code> if the session is open, <code>false</code>
+     *         if it is closing or closed
+     */
+    boolean isOpenWithoutLock() {
+        return state == State.OPEN;
+    }
+
     /**
      * Sets the lifecycle state of this session. The allowed transitions are
      * OPEN to CLOSING and CLOSING to CLOSED.
@@ -1405,6 +1465,17 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         return pendingAccessQueue;
     }
 
+    /**
+     * Gets the flag telling whether a thread of the
+     * {@link VaadinService#setAccessExecutor(java.util.concurrent.Executor)
+     * access executor} will purge the pending access queue.
+     *
+     * @return the purge scheduled flag, not null
+     */
+    AtomicBoolean getAccessQueuePurgeScheduled() {
+        return accessQueuePurgeScheduled;
+    }
+
     /**
      * Gets the CSRF token (aka double submit cookie) that is used to protect
      * against Cross Site Request Forgery attacks.
@@ -1417,6 +1488,50 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         return csrfToken;
     }
 
+    /**
+     * Checks whether changes should be pushed right away to a UI with
+     * automatic push. If the UI has a push interval and the previous automatic
+     * push was less than the interval ago, schedules a task that allows the
+     * push when the interval has elapsed.
+     *
+     * @param ui
+     *            the UI with automatic push
+     * @return <code>true</code> to push now, <code>false</code> to not push
+     */
+    private boolean isAutomaticPushDue(UI ui) {
+        int pushInterval = ui.getPushConfiguration().getPushInterval();
+        if (pushInterval == 0) {
+            return true;
+        }
+        if (scheduledAutomaticPushes.contains(ui)
+                || !ui.getConnectorTracker().hasDirtyConnectors()) {
+            return false;
+        }
+
+        long now = System.nanoTime();
+        Long lastPush = automaticPushTimes.get(ui);
+        if (lastPush != null) {
+            long remainingMillis = pushInterval
+                    - TimeUnit.NANOSECONDS.toMillis(now - lastPush);
+            if (remainingMillis > 0) {
+                /*
+                 * The task is run with the session locked, after which the
+                 * unlock pushes all changes made in the meantime. The interval
+                 * has elapsed once the task runs, so the time of the previous
+                 * push is no longer needed.
+                 */
+                scheduledAutomaticPushes.add(ui);
+                getService().accessSessionLater(this, () -> {
+                    scheduledAutomaticPushes.remove(ui);
+                    automaticPushTimes.remove(ui);
+                }, remainingMillis);
+                return false;
+            }
+        }
+        automaticPushTimes.put(ui, now);
+        return true;
+    }
+
     /**
      * Override default deserialization logic to account for transient
      * {@link #pendingAccessQueue}.
@@ -1427,6 +1542,9 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         try {
             stream.defaultReadObject();
             pendingAccessQueue = new ConcurrentLinkedQueue<>();
+            automaticPushTimes = new HashMap<>();
+            scheduledAutomaticPushes = new HashSet<>();
+            accessQueuePurgeScheduled = new AtomicBoolean();
         } finally {
             CurrentInstance.restoreInstances(old);
         }
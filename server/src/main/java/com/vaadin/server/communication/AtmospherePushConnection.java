@@ -21,8 +21,6 @@ import java.io.ObjectInputStream;
 import java.io.Reader;
 import java.io.Serializable;
 import java.io.StringReader;
-import java.io.StringWriter;
-import java.io.Writer;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -35,6 +33,7 @@ import org.atmosphere.cpr.AtmosphereResource;
 import org.atmosphere.cpr.AtmosphereResource.TRANSPORT;
 import org.atmosphere.util.Version;
 
+import com.vaadin.server.VaadinService;
 import com.vaadin.shared.communication.PushConstants;
 import com.vaadin.ui.UI;
 
@@ -163,12 +162,29 @@ public class AtmospherePushConnection implements PushConnection {
                 state = State.RESPONSE_PENDING;
             }
         } else {
+            // Atmosphere needs the message as a string, so build it in a
+            // pooled buffer instead of concatenating it
+            VaadinService service = getUI().getSession().getService();
+            ResponseBufferPool pool = service.getResponseBufferPool();
+            Utf8BufferWriter writer = pool.obtainWriter();
+            UidlMetricsCollector metrics = UidlMetricsCollector
+                    .begin(service);
             try {
-                Writer writer = new StringWriter();
+                writer.write("for(;;);[{");
                 new UidlWriter().write(getUI(), writer, async);
-                sendMessage("for(;;);[{" + writer.toString() + "}]");
+                writer.write("}]");
+                sendMessage(writer.toString());
+                if (metrics != null) {
+                    metrics.end(getUI(), async, writer.size());
+                    metrics = null;
+                }
             } catch (Exception e) {
                 throw new RuntimeException("Push failed", e);
+            } finally {
+                if (metrics != null) {
+                    metrics.cancel();
+                }
+                pool.releaseWriter(writer);
             }
         }
     }
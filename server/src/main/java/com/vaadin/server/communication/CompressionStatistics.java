@@ -0,0 +1,122 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.vaadin.server.communication;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.vaadin.server.DeploymentConfiguration;
+import com.vaadin.server.VaadinService;
+
+/**
+ * Statistics about the compression of UIDL responses of a
+ * {@link VaadinService}. The statistics are updated concurrently by all
+ * request threads and can be read at any time, e.g. to be published through a
+ * monitoring system.
+ *
+ * @see DeploymentConfiguration#getResponseCompressionLevel()
+ * @see VaadinService#getCompressionStatistics()
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public class CompressionStatistics implements Serializable {
+
+    private final AtomicLong responseCount = new AtomicLong();
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final AtomicLong compressionNanos = new AtomicLong();
+
+    /**
+     * Records the compression of one response.
+     *
+     * @param uncompressedSize
+     *            the size of the response before compression in bytes
+     * @param compressedSize
+     *            the size of the response after compression in bytes
+     * @param nanos
+     *            the CPU time spent compressing the response in nanoseconds
+     */
+    void record(int uncompressedSize, int compressedSize, long nanos) {
+        responseCount.incrementAndGet();
+        uncompressedBytes.addAndGet(uncompressedSize);
+        compressedBytes.addAndGet(compressedSize);
+        compressionNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Gets the number of compressed responses.
+     *
+     * @return the number of compressed responses
+     */
+    public long getResponseCount() {
+        return responseCount.get();
+    }
+
+    /**
+     * Gets the total size of the compressed responses before compression.
+     *
+     * @return the number of uncompressed bytes
+     */
+    public long getUncompressedBytes() {
+        return uncompressedBytes.get();
+    }
+
+    /**
+     * Gets the total size of the compressed responses after compression.
+     *
+     * @return the number of compressed bytes
+     */
+    public long getCompressedBytes() {
+        return compressedBytes.get();
+    }
+
+    /**
+     * Gets the total CPU time spent compressing responses. If the JVM does not
+     * support measuring the CPU time of threads, the elapsed time is used
+     * instead.
+     *
+     * @return the compression CPU time in nanoseconds
+     */
+    public long getCompressionNanos() {
+        return compressionNanos.get();
+    }
+
+    /**
+     * Gets the ratio of the compressed size to the uncompressed size of all
+     * compressed responses.
+     *
+     * @return the compression ratio, or 1 if no responses have been
+     *         compressed
+     */
+    public double getCompressionRatio() {
+        long uncompressed = getUncompressedBytes();
+        if (uncompressed == 0) {
+            return 1;
+        }
+        return (double) getCompressedBytes() / uncompressed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%d responses compressed from %d to %d bytes (ratio %.3f) in %.3f ms of CPU time",
+                getResponseCount(), getUncompressedBytes(),
+                getCompressedBytes(), getCompressionRatio(),
+                getCompressionNanos() / 1e6);
+    }
+}
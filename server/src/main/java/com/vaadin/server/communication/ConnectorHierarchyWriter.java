@@ -19,15 +19,17 @@ package com.vaadin.server.communication;
 import java.io.IOException;
 import java.io.Serializable;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 import com.vaadin.server.AbstractClientConnector;
 import com.vaadin.server.ClientConnector;
-import com.vaadin.server.LegacyCommunicationManager;
 import com.vaadin.server.PaintException;
 import com.vaadin.server.VaadinRequest;
 import com.vaadin.server.VaadinService;
+import com.vaadin.ui.ConnectorTracker;
 import com.vaadin.ui.UI;
 
 import elemental.json.Json;
@@ -46,7 +48,9 @@ public class ConnectorHierarchyWriter implements Serializable {
 
     /**
      * Writes a JSON object containing the connector hierarchy (parent-child
-     * mappings) of the dirty connectors in the given UI.
+     * mappings) of the dirty connectors in the given UI. The hierarchy of a
+     * connector without state changes is left out if it is the same as the
+     * hierarchy last sent to the client.
      *
      * @param ui
      *            The {@link UI} whose hierarchy to write.
@@ -60,25 +64,38 @@ public class ConnectorHierarchyWriter implements Serializable {
     public void write(UI ui, Writer writer, Set<String> stateUpdateConnectors)
             throws IOException {
 
-        Collection<ClientConnector> dirtyVisibleConnectors = ui
-                .getConnectorTracker().getDirtyVisibleConnectors();
+        ConnectorTracker connectorTracker = ui.getConnectorTracker();
+        Collection<ClientConnector> dirtyVisibleConnectors = connectorTracker
+                .getDirtyVisibleConnectors();
 
         JsonObject hierarchyInfo = Json.createObject();
         for (ClientConnector connector : dirtyVisibleConnectors) {
             String connectorId = connector.getConnectorId();
-            JsonArray children = Json.createArray();
+            List<String> childIds = new ArrayList<>();
 
             for (ClientConnector child : AbstractClientConnector
                     .getAllChildrenIterable(connector)) {
-                if (LegacyCommunicationManager
-                        .isConnectorVisibleToClient(child)) {
-                    children.set(children.length(), child.getConnectorId());
+                if (connectorTracker.isConnectorVisibleToClient(child)) {
+                    childIds.add(child.getConnectorId());
                 }
             }
 
-            // Omit for leaf nodes with state changes
-            if (children.length() > 0
-                    || !stateUpdateConnectors.contains(connectorId)) {
+            boolean sendHierarchy;
+            if (stateUpdateConnectors.contains(connectorId)) {
+                // Omit for leaf nodes with state changes, the client assumes
+                // no children for connectors with state but no hierarchy
+                sendHierarchy = !childIds.isEmpty();
+            } else {
+                // Omit if the client already has the same hierarchy
+                sendHierarchy = !childIds
+                        .equals(connectorTracker.getSentHierarchy(connector));
+            }
+
+            if (sendHierarchy) {
+                JsonArray children = Json.createArray();
+                for (String childId : childIds) {
+                    children.set(children.length(), childId);
+                }
                 try {
                     hierarchyInfo.put(connectorId, children);
                 } catch (JsonException e) {
@@ -89,6 +106,7 @@ public class ConnectorHierarchyWriter implements Serializable {
                             e);
                 }
             }
+            connectorTracker.setSentHierarchy(connector, childIds);
         }
         // Dummy assert just for conditionally storing away data that will be
         // used by the real assert later on
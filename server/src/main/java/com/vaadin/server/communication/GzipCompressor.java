@@ -0,0 +1,171 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.vaadin.server.communication;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses data to the gzip format with a reusable {@link Deflater}. Creating
+ * a deflater allocates a native compression context, so instances are kept in
+ * a {@link ResponseBufferPool} instead of creating a new one for each
+ * response. The native context is released with {@link #end()}.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+class GzipCompressor {
+
+    private static final int INITIAL_CAPACITY = 4 * 1024;
+
+    /**
+     * Compressors with larger output buffers are not kept in a pool, so that
+     * a single large response does not keep reserving memory.
+     */
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+    private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED,
+            0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    private static final int TRAILER_SIZE = 8;
+
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private int level;
+
+    private byte[] output = new byte[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Creates a new compressor.
+     *
+     * @param level
+     *            the compression level, from 1 to 9
+     */
+    GzipCompressor(int level) {
+        this.level = level;
+        // Raw deflate data, the gzip header and trailer are written separately
+        deflater = new Deflater(level, true);
+    }
+
+    /**
+     * Sets the compression level used for the next data to compress.
+     *
+     * @param level
+     *            the compression level, from 1 to 9
+     */
+    void setLevel(int level) {
+        if (this.level != level) {
+            deflater.setLevel(level);
+            this.level = level;
+        }
+    }
+
+    /**
+     * Checks whether this compressor is small enough to be kept in a pool.
+     *
+     * @return {@code true} if this compressor can be pooled
+     */
+    boolean isPoolable() {
+        return output.length <= MAX_POOLED_CAPACITY;
+    }
+
+    /**
+     * Releases the native resources of this compressor. The compressor must
+     * not be used after this.
+     */
+    void end() {
+        deflater.end();
+    }
+
+    /**
+     * Compresses the given data. The compressed data replaces any data
+     * previously compressed with this compressor.
+     *
+     * @param data
+     *            the data to compress
+     * @param length
+     *            the number of bytes to compress from the start of the data
+     */
+    void compress(byte[] data, int length) {
+        reset();
+        crc.update(data, 0, length);
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+
+        append(HEADER, HEADER.length);
+        while (!deflater.finished()) {
+            ensureCapacity(size + 1);
+            size += deflater.deflate(output, size, output.length - size);
+        }
+
+        ensureCapacity(size + TRAILER_SIZE);
+        writeInt((int) crc.getValue());
+        writeInt(length);
+    }
+
+    /**
+     * Gets the number of bytes of compressed data.
+     *
+     * @return the number of compressed bytes
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Writes the compressed data to the given output stream.
+     *
+     * @param out
+     *            the output stream to write to
+     * @throws IOException
+     *             if writing to the stream fails
+     */
+    void writeTo(OutputStream out) throws IOException {
+        out.write(output, 0, size);
+    }
+
+    private void reset() {
+        deflater.reset();
+        crc.reset();
+        size = 0;
+    }
+
+    private void append(byte[] bytes, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(bytes, 0, output, size, length);
+        size += length;
+    }
+
+    private void writeInt(int value) {
+        // gzip uses little-endian byte order
+        output[size++] = (byte) value;
+        output[size++] = (byte) (value >> 8);
+        output[size++] = (byte) (value >> 16);
+        output[size++] = (byte) (value >> 24);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > output.length) {
+            output = Arrays.copyOf(output,
+                    Math.max(capacity, output.length * 2));
+        }
+    }
+}
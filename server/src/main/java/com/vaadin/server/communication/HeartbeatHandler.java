@@ -20,6 +20,7 @@ import java.io.IOException;
 
 import javax.servlet.http.HttpServletResponse;
 
+import com.vaadin.server.LockFreeRequestHandler;
 import com.vaadin.server.ServletPortletHelper;
 import com.vaadin.server.SessionExpiredHandler;
 import com.vaadin.server.SynchronizedRequestHandler;
@@ -36,12 +37,15 @@ import com.vaadin.ui.UI;
  * no UIDL requests for a prolonged period of time. UIs that do not receive
  * either heartbeat or UIDL requests are eventually removed from the session and
  * garbage collected.
+ * <p>
+ * Heartbeats for existing UIs are handled without locking the session, so that
+ * they are not delayed by long running requests from other browser tabs.
  *
  * @author Vaadin Ltd
  * @since 7.1
  */
 public class HeartbeatHandler extends SynchronizedRequestHandler
-        implements SessionExpiredHandler {
+        implements SessionExpiredHandler, LockFreeRequestHandler {
 
     @Override
     protected boolean canHandleRequest(VaadinRequest request) {
@@ -60,13 +64,7 @@ public class HeartbeatHandler extends SynchronizedRequestHandler
             VaadinRequest request, VaadinResponse response) throws IOException {
         UI ui = session.getService().findUI(request);
         if (ui != null) {
-            ui.setLastHeartbeatTimestamp(System.currentTimeMillis());
-            // Ensure that the browser does not cache heartbeat responses.
-            // iOS 6 Safari requires this (#10370)
-            response.setHeader("Cache-Control", "no-cache");
-            // If Content-Type is not set, browsers assume text/html and may
-            // complain about the empty response body (#12182)
-            response.setHeader("Content-Type", "text/plain");
+            handleHeartbeat(ui, response);
         } else {
             response.sendError(HttpServletResponse.SC_NOT_FOUND,
                     "UI not found");
@@ -75,6 +73,40 @@ public class HeartbeatHandler extends SynchronizedRequestHandler
         return true;
     }
 
+    /**
+     * Handles a heartbeat request for an existing UI without locking the
+     * session. Requests for which the UI is not found or is closing are left
+     * to be handled with the session locked by
+     * {@link #synchronizedHandleRequest(VaadinSession, VaadinRequest, VaadinResponse)}.
+     */
+    @Override
+    public boolean handleRequestWithoutLock(VaadinSession session,
+            VaadinRequest request, VaadinResponse response) throws IOException {
+        if (!canHandleRequest(request)) {
+            return false;
+        }
+        String uiIdString = request.getParameter(UIConstants.UI_ID_PARAMETER);
+        if (uiIdString == null) {
+            return false;
+        }
+        UI ui = session.getUIByIdWithoutLock(Integer.parseInt(uiIdString));
+        if (ui == null || ui.isClosing()) {
+            return false;
+        }
+        handleHeartbeat(ui, response);
+        return true;
+    }
+
+    private static void handleHeartbeat(UI ui, VaadinResponse response) {
+        ui.setLastHeartbeatTimestamp(System.currentTimeMillis());
+        // Ensure that the browser does not cache heartbeat responses.
+        // iOS 6 Safari requires this (#10370)
+        response.setHeader("Cache-Control", "no-cache");
+        // If Content-Type is not set, browsers assume text/html and may
+        // complain about the empty response body (#12182)
+        response.setHeader("Content-Type", "text/plain");
+    }
+
     /*
      * (non-Javadoc)
      *
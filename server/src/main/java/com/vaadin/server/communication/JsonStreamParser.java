@@ -0,0 +1,338 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.vaadin.server.communication;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonException;
+import elemental.json.JsonObject;
+import elemental.json.JsonValue;
+
+/**
+ * Parses JSON directly from a {@link Reader} using a small fixed size buffer.
+ * Unlike {@link Json#parse(String)}, the message does not first have to be
+ * read into a string, which for large messages avoids holding two extra
+ * copies of the whole message in memory while it is being parsed.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+class JsonStreamParser {
+
+    private static final int BUFFER_SIZE = 4 * 1024;
+
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int position = 0;
+    private int limit = 0;
+
+    private final StringBuilder text = new StringBuilder();
+
+    private JsonStreamParser(Reader reader, int bufferSize) {
+        this.reader = reader;
+        buffer = new char[bufferSize];
+    }
+
+    /**
+     * Parses a JSON object from the given reader. The reader is read until
+     * the end of the object, and anything but white space after the object
+     * is considered an error.
+     *
+     * @param reader
+     *            the reader to parse JSON from, not null
+     * @return the parsed object, or <code>null</code> if the reader contains
+     *         only white space
+     * @throws IOException
+     *             if reading fails
+     * @throws JsonException
+     *             if the reader does not contain a valid JSON object
+     */
+    static JsonObject parseObject(Reader reader) throws IOException {
+        return parseObject(reader, BUFFER_SIZE);
+    }
+
+    // Package-private to allow testing values spanning several buffers
+    static JsonObject parseObject(Reader reader, int bufferSize)
+            throws IOException {
+        JsonStreamParser parser = new JsonStreamParser(reader, bufferSize);
+        int c = parser.nextNonWhitespace();
+        if (c == EOF) {
+            return null;
+        }
+        if (c != '{') {
+            throw parser.unexpected(c, "{");
+        }
+        JsonObject object = parser.readObject();
+        c = parser.nextNonWhitespace();
+        if (c != EOF) {
+            throw parser.unexpected(c, "end of message");
+        }
+        return object;
+    }
+
+    private JsonValue readValue(int c) throws IOException {
+        switch (c) {
+        case '{':
+            return readObject();
+        case '[':
+            return readArray();
+        case '"':
+            return Json.create(readString());
+        case 't':
+            readLiteral("rue");
+            return Json.create(true);
+        case 'f':
+            readLiteral("alse");
+            return Json.create(false);
+        case 'n':
+            readLiteral("ull");
+            return Json.createNull();
+        default:
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                return Json.create(readNumber(c));
+            }
+            throw unexpected(c, "a value");
+        }
+    }
+
+    private JsonObject readObject() throws IOException {
+        JsonObject object = Json.createObject();
+        int c = nextNonWhitespace();
+        if (c == '}') {
+            return object;
+        }
+        while (true) {
+            if (c != '"') {
+                throw unexpected(c, "a property name");
+            }
+            String key = readString();
+            c = nextNonWhitespace();
+            if (c != ':') {
+                throw unexpected(c, ":");
+            }
+            object.put(key, readValue(nextNonWhitespace()));
+            c = nextNonWhitespace();
+            if (c == '}') {
+                return object;
+            } else if (c != ',') {
+                throw unexpected(c, ", or }");
+            }
+            c = nextNonWhitespace();
+        }
+    }
+
+    private JsonArray readArray() throws IOException {
+        JsonArray array = Json.createArray();
+        int c = nextNonWhitespace();
+        if (c == ']') {
+            return array;
+        }
+        int index = 0;
+        while (true) {
+            array.set(index++, readValue(c));
+            c = nextNonWhitespace();
+            if (c == ']') {
+                return array;
+            } else if (c != ',') {
+                throw unexpected(c, ", or ]");
+            }
+            c = nextNonWhitespace();
+        }
+    }
+
+    /**
+     * Reads a string whose opening quote has already been read.
+     */
+    private String readString() throws IOException {
+        // Fast path for strings without escapes that are in the buffer
+        for (int i = position; i < limit; i++) {
+            char c = buffer[i];
+            if (c == '"') {
+                String value = new String(buffer, position, i - position);
+                position = i + 1;
+                return value;
+            } else if (c == '\\' || c < ' ') {
+                break;
+            }
+        }
+
+        text.setLength(0);
+        while (true) {
+            int c = next();
+            if (c == '"') {
+                return text.toString();
+            } else if (c == '\\') {
+                text.append(readEscape());
+            } else if (c == EOF || c < ' ') {
+                throw unexpected(c, "\"");
+            } else {
+                text.append((char) c);
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = next();
+        switch (c) {
+        case '"':
+        case '\\':
+        case '/':
+            return (char) c;
+        case 'b':
+            return '\b';
+        case 'f':
+            return '\f';
+        case 'n':
+            return '\n';
+        case 'r':
+            return '\r';
+        case 't':
+            return '\t';
+        case 'u':
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = Character.digit(next(), 16);
+                if (digit == -1) {
+                    throw new JsonException("Invalid unicode escape");
+                }
+                value = value * 16 + digit;
+            }
+            return (char) value;
+        default:
+            throw unexpected(c, "an escape sequence");
+        }
+    }
+
+    /*
+     * Reads a number following the JSON grammar: an optional minus sign, an
+     * integer part without leading zeros, an optional fraction with at least
+     * one digit and an optional exponent with at least one digit.
+     * Double.parseDouble alone would also accept e.g. 01, 1. and +1.
+     */
+    private double readNumber(int first) throws IOException {
+        text.setLength(0);
+        int c = first;
+        if (c == '-') {
+            text.append('-');
+            c = next();
+        }
+        if (c == '0') {
+            text.append('0');
+            if (isDigit(peek())) {
+                throw new JsonException(
+                        "Invalid number literal: leading zero in " + text
+                                + (char) peek());
+            }
+        } else if (c >= '1' && c <= '9') {
+            text.append((char) c);
+            readDigits();
+        } else {
+            throw unexpected(c, "a digit");
+        }
+
+        if (peek() == '.') {
+            text.append((char) next());
+            readRequiredDigits();
+        }
+
+        c = peek();
+        if (c == 'e' || c == 'E') {
+            text.append((char) next());
+            c = peek();
+            if (c == '+' || c == '-') {
+                text.append((char) next());
+            }
+            readRequiredDigits();
+        }
+
+        return Double.parseDouble(text.toString());
+    }
+
+    private void readRequiredDigits() throws IOException {
+        int c = peek();
+        if (!isDigit(c)) {
+            throw unexpected(c, "a digit");
+        }
+        readDigits();
+    }
+
+    private void readDigits() throws IOException {
+        while (isDigit(peek())) {
+            text.append((char) next());
+        }
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private void readLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            int c = next();
+            if (c != rest.charAt(i)) {
+                throw unexpected(c, rest.substring(i));
+            }
+        }
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        while (true) {
+            int c = next();
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return c;
+            }
+        }
+    }
+
+    private int next() throws IOException {
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = reader.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read == EOF) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private JsonException unexpected(int c, String expected) {
+        String found = c == EOF ? "end of message" : "'" + (char) c + "'";
+        return new JsonException(
+                "Invalid JSON: expected " + expected + " but got " + found);
+    }
+}
@@ -145,7 +145,21 @@ public class PushHandler {
             assert vaadinRequest != null;
 
             try {
-                new ServerRpcHandler().handleRpc(ui, reader, vaadinRequest);
+                UidlMetricsCollector metrics = UidlMetricsCollector
+                        .begin(ui.getSession().getService());
+                try {
+                    new ServerRpcHandler().handleRpc(ui, reader,
+                            vaadinRequest);
+                    if (metrics != null) {
+                        // The response is pushed separately
+                        metrics.end(ui, false, 0);
+                        metrics = null;
+                    }
+                } finally {
+                    if (metrics != null) {
+                        metrics.cancel();
+                    }
+                }
                 connection.push(false);
             } catch (JsonException e) {
                 getLogger().log(Level.SEVERE, "Error writing JSON to response",
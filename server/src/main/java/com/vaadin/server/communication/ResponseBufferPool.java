@@ -0,0 +1,132 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.vaadin.server.VaadinService;
+
+/**
+ * A bounded pool of the buffers and compressors used for writing UIDL
+ * responses of a {@link VaadinService}. Only a limited number of them is kept
+ * for reuse, and they are all released when the service is destroyed, since
+ * each compressor holds native memory.
+ *
+ * @see VaadinService#getResponseBufferPool()
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public class ResponseBufferPool {
+
+    private final BlockingQueue<Utf8BufferWriter> writers;
+    private final BlockingQueue<GzipCompressor> compressors;
+    private volatile boolean cleared = false;
+
+    /**
+     * Creates a new pool.
+     *
+     * @param capacity
+     *            the maximum number of objects of each kind to keep in the
+     *            pool
+     */
+    public ResponseBufferPool(int capacity) {
+        writers = new ArrayBlockingQueue<>(capacity);
+        compressors = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Gets an empty writer from the pool, or creates a new one if the pool is
+     * empty.
+     *
+     * @return an empty writer, not null
+     */
+    Utf8BufferWriter obtainWriter() {
+        Utf8BufferWriter writer = writers.poll();
+        if (writer == null) {
+            return new Utf8BufferWriter();
+        }
+        return writer;
+    }
+
+    /**
+     * Returns a writer to the pool. The writer must not be used after it has
+     * been released.
+     *
+     * @param writer
+     *            the writer to release, not null
+     */
+    void releaseWriter(Utf8BufferWriter writer) {
+        if (!cleared && writer.isPoolable()) {
+            writer.reset();
+            writers.offer(writer);
+        }
+    }
+
+    /**
+     * Gets a compressor from the pool, or creates a new one if the pool is
+     * empty.
+     *
+     * @param level
+     *            the compression level, from 1 to 9
+     * @return a compressor, not null
+     */
+    GzipCompressor obtainCompressor(int level) {
+        GzipCompressor compressor = compressors.poll();
+        if (compressor == null) {
+            return new GzipCompressor(level);
+        }
+        compressor.setLevel(level);
+        return compressor;
+    }
+
+    /**
+     * Returns a compressor to the pool. If the compressor is not kept in the
+     * pool, its native resources are released. The compressor must not be used
+     * after it has been released.
+     *
+     * @param compressor
+     *            the compressor to release, not null
+     */
+    void releaseCompressor(GzipCompressor compressor) {
+        if (cleared || !compressor.isPoolable()
+                || !compressors.offer(compressor)) {
+            compressor.end();
+        } else if (cleared) {
+            // Cleared while the compressor was being added
+            endCompressors();
+        }
+    }
+
+    /**
+     * Removes all objects from the pool and releases the native resources of
+     * the pooled compressors. Objects released to the pool after this are not
+     * kept. This is called when the service is destroyed.
+     */
+    public void clear() {
+        cleared = true;
+        writers.clear();
+        endCompressors();
+    }
+
+    private void endCompressors() {
+        GzipCompressor compressor;
+        while ((compressor = compressors.poll()) != null) {
+            compressor.end();
+        }
+    }
+}
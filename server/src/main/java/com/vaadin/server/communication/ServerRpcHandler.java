@@ -36,6 +36,7 @@ import com.vaadin.server.LegacyCommunicationManager.InvalidUIDLSecurityKeyExcept
 import com.vaadin.server.ServerRpcManager;
 import com.vaadin.server.ServerRpcManager.RpcInvocationException;
 import com.vaadin.server.ServerRpcMethodInvocation;
+import com.vaadin.server.UidlMetricsEvent.Phase;
 import com.vaadin.server.VaadinRequest;
 import com.vaadin.server.VaadinService;
 import com.vaadin.server.VariableOwner;
@@ -59,6 +60,12 @@ import elemental.json.impl.JsonUtil;
 /**
  * Handles a client-to-server message containing serialized {@link ServerRpc
  * server RPC} invocations.
+ * <p>
+ * As of 8.0, the message is parsed directly from the reader by
+ * {@link #readRpcRequest(Reader, VaadinRequest)} instead of first being read
+ * into a string by {@link #getMessage(Reader)}. Subclasses that override
+ * {@link #getMessage(Reader)}, e.g. to log or rewrite the message, still have
+ * it called, in which case the message is parsed from the returned string.
  *
  * @author Vaadin Ltd
  * @since 7.1
@@ -83,7 +90,20 @@ public class ServerRpcHandler implements Serializable {
         private String widgetsetVersion = null;
 
         public RpcRequest(String jsonString, VaadinRequest request) {
-            json = JsonUtil.parse(jsonString);
+            this(JsonUtil.<JsonObject> parse(jsonString), request);
+        }
+
+        /**
+         * Creates a new RPC request from an already parsed JSON message.
+         *
+         * @since 8.0
+         * @param json
+         *            the JSON message received from the client, not null
+         * @param request
+         *            the request the message was received in
+         */
+        public RpcRequest(JsonObject json, VaadinRequest request) {
+            this.json = json;
 
             JsonValue token = json.get(ApplicationConstants.CSRF_TOKEN);
             if (token == null) {
@@ -202,6 +222,9 @@ public class ServerRpcHandler implements Serializable {
 
     private static final int MAX_BUFFER_SIZE = 64 * 1024;
 
+    private final boolean getMessageOverridden = isGetMessageOverridden(
+            getClass());
+
     /**
      * Reads JSON containing zero or more serialized RPC calls (including legacy
      * variable changes) and executes the calls.
@@ -221,15 +244,20 @@ public class ServerRpcHandler implements Serializable {
             throws IOException, InvalidUIDLSecurityKeyException {
         ui.getSession().setLastRequestTimestamp(System.currentTimeMillis());
 
-        String changeMessage = getMessage(reader);
+        UidlMetricsCollector metrics = UidlMetricsCollector.getCurrent();
+        if (metrics != null) {
+            metrics.startPhase();
+        }
+        RpcRequest rpcRequest = readRpcRequest(reader, request);
+        if (metrics != null) {
+            metrics.endPhase(Phase.RPC_DECODE);
+        }
 
-        if (changeMessage == null || changeMessage.equals("")) {
+        if (rpcRequest == null) {
             // The client sometimes sends empty messages, this is probably a bug
             return;
         }
 
-        RpcRequest rpcRequest = new RpcRequest(changeMessage, request);
-
         // Security: double cookie submission pattern unless disabled by
         // property
         if (!VaadinService.isCsrfTokenValid(ui.getSession(),
@@ -336,9 +364,17 @@ public class ServerRpcHandler implements Serializable {
 
             Set<Connector> enabledConnectors = new HashSet<>();
 
+            UidlMetricsCollector metrics = UidlMetricsCollector.getCurrent();
+            if (metrics != null) {
+                metrics.startPhase();
+            }
             List<MethodInvocation> invocations = parseInvocations(
                     ui.getConnectorTracker(), invocationsData,
                     lastSyncIdSeenByClient);
+            if (metrics != null) {
+                metrics.endPhase(Phase.RPC_DECODE);
+                metrics.startPhase();
+            }
             for (MethodInvocation invocation : invocations) {
                 final ClientConnector connector = connectorTracker
                         .getConnector(invocation.getConnectorId());
@@ -411,6 +447,9 @@ public class ServerRpcHandler implements Serializable {
                     handleInvocation(ui, connector, legacyInvocation);
                 }
             }
+            if (metrics != null) {
+                metrics.endPhase(Phase.RPC_INVOKE);
+            }
         } catch (JsonException e) {
             getLogger().warning("Unable to parse RPC call from the client: "
                     + e.getMessage());
@@ -627,6 +666,57 @@ public class ServerRpcHandler implements Serializable {
         owner.changeVariables(source, m);
     }
 
+    /**
+     * Reads and parses the message sent by the client. The JSON is parsed
+     * directly from the reader as it is read, without first reading the whole
+     * message into a string. If a subclass overrides
+     * {@link #getMessage(Reader)}, the message returned by it is parsed
+     * instead.
+     *
+     * @since 8.0
+     * @param reader
+     *            the reader to read the message from
+     * @param request
+     *            the request the message is received in
+     * @return the parsed request, or <code>null</code> if the message is
+     *         empty
+     * @throws IOException
+     *             if reading the message fails
+     * @throws JsonException
+     *             if the message is not a valid JSON object
+     */
+    protected RpcRequest readRpcRequest(Reader reader, VaadinRequest request)
+            throws IOException {
+        if (getMessageOverridden) {
+            String changeMessage = getMessage(reader);
+            if (changeMessage == null || changeMessage.equals("")) {
+                return null;
+            }
+            return new RpcRequest(changeMessage, request);
+        }
+
+        JsonObject json = JsonStreamParser.parseObject(reader);
+        if (json == null) {
+            return null;
+        }
+        return new RpcRequest(json, request);
+    }
+
+    /**
+     * Reads the whole message sent by the client into a string.
+     *
+     * @param reader
+     *            the reader to read the message from
+     * @return the message
+     * @throws IOException
+     *             if reading the message fails
+     * @deprecated As of 8.0, messages are parsed directly from the reader by
+     *             {@link #readRpcRequest(Reader, VaadinRequest)}. This method
+     *             is only called if it is overridden, which disables parsing
+     *             the message while it is read. Override
+     *             {@link #readRpcRequest(Reader, VaadinRequest)} instead.
+     */
+    @Deprecated
     protected String getMessage(Reader reader) throws IOException {
 
         StringBuilder sb = new StringBuilder(MAX_BUFFER_SIZE);
@@ -643,6 +733,19 @@ public class ServerRpcHandler implements Serializable {
         return sb.toString();
     }
 
+    private static boolean isGetMessageOverridden(Class<?> type) {
+        for (Class<?> c = type; c != ServerRpcHandler.class; c = c
+                .getSuperclass()) {
+            try {
+                c.getDeclaredMethod("getMessage", Reader.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // Check the superclass
+            }
+        }
+        return false;
+    }
+
     private static final Logger getLogger() {
         return Logger.getLogger(ServerRpcHandler.class.getName());
     }
@@ -24,13 +24,16 @@ import java.util.HashSet;
 import java.util.Set;
 
 import com.vaadin.server.ClientConnector;
+import com.vaadin.server.EncodedValueCache;
 import com.vaadin.server.PaintException;
 import com.vaadin.shared.communication.SharedState;
+import com.vaadin.ui.ConnectorTracker;
 import com.vaadin.ui.UI;
 
 import elemental.json.Json;
 import elemental.json.JsonException;
 import elemental.json.JsonObject;
+import elemental.json.JsonValue;
 import elemental.json.impl.JsonUtil;
 
 /**
@@ -54,12 +57,43 @@ public class SharedStateWriter implements Serializable {
      *             If the serialization fails.
      */
     public Set<String> write(UI ui, Writer writer) throws IOException {
+        return write(ui, writer, null);
+    }
+
+    /**
+     * Writes a JSON object containing the pending state changes of the dirty
+     * connectors of the given UI, optionally with the names of the top level
+     * state properties replaced by ids from the given dictionary.
+     *
+     * @param ui
+     *            The UI whose state changes should be written.
+     * @param writer
+     *            The writer to use.
+     * @param stateKeyDictionary
+     *            The dictionary for replacing property names with ids, or
+     *            <code>null</code> to write the property names as such.
+     * @return a set of connector ids with state changes
+     * @throws IOException
+     *             If the serialization fails.
+     * @since 8.0
+     */
+    public Set<String> write(UI ui, Writer writer,
+            StateKeyDictionary stateKeyDictionary) throws IOException {
+        return write(ui, writer, stateKeyDictionary, null);
+    }
+
+    Set<String> write(UI ui, Writer writer,
+            StateKeyDictionary stateKeyDictionary, UidlMetricsCollector metrics)
+            throws IOException {
 
-        Collection<ClientConnector> dirtyVisibleConnectors = ui
-                .getConnectorTracker().getDirtyVisibleConnectors();
+        ConnectorTracker connectorTracker = ui.getConnectorTracker();
+        Collection<ClientConnector> dirtyVisibleConnectors = connectorTracker
+                .getDirtyVisibleConnectors();
+        EncodedValueCache encodedValueCache = connectorTracker
+                .getEncodedValueCache();
 
         Set<String> writtenConnectors = new HashSet<>();
-        JsonObject sharedStates = Json.createObject();
+        writer.write('{');
         for (ClientConnector connector : dirtyVisibleConnectors) {
             // encode and send shared state
             String connectorId = connector.getConnectorId();
@@ -67,8 +101,27 @@ public class SharedStateWriter implements Serializable {
                 JsonObject stateJson = connector.encodeState();
 
                 if (stateJson != null && stateJson.keys().length != 0) {
-                    sharedStates.put(connectorId, stateJson);
+                    if (stateKeyDictionary != null) {
+                        stateJson = compactKeys(stateJson, stateKeyDictionary);
+                    }
+                    String json = encodedValueCache == null
+                            ? JsonUtil.stringify(stateJson)
+                            : stringify(stateJson, encodedValueCache);
+                    if (!writtenConnectors.isEmpty()) {
+                        writer.write(',');
+                    }
+                    writer.write(JsonUtil.quote(connectorId));
+                    writer.write(':');
+                    writer.write(json);
                     writtenConnectors.add(connectorId);
+                    if (metrics != null) {
+                        metrics.addState(connector, json);
+                    }
+                } else {
+                    // Connectors only touched through getState() are left
+                    // out of the rest of the response if state change
+                    // tracking is enabled
+                    connectorTracker.markStateUnchanged(connector);
                 }
             } catch (JsonException e) {
                 throw new PaintException(
@@ -78,8 +131,38 @@ public class SharedStateWriter implements Serializable {
                         e);
             }
         }
-        writer.write(JsonUtil.stringify(sharedStates));
+        writer.write('}');
 
         return writtenConnectors;
     }
+
+    /**
+     * Serializes a state object using the serialized form of the property
+     * values shared with other UIs when available.
+     */
+    private static String stringify(JsonObject stateJson,
+            EncodedValueCache encodedValueCache) {
+        StringBuilder json = new StringBuilder();
+        json.append('{');
+        for (String key : stateJson.keys()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            JsonValue value = stateJson.get(key);
+            String serialized = encodedValueCache.getSerialized(value);
+            json.append(JsonUtil.quote(key)).append(':').append(
+                    serialized != null ? serialized : JsonUtil.stringify(value));
+        }
+        return json.append('}').toString();
+    }
+
+    private static JsonObject compactKeys(JsonObject stateJson,
+            StateKeyDictionary stateKeyDictionary) {
+        JsonObject compactJson = Json.createObject();
+        for (String key : stateJson.keys()) {
+            JsonValue value = stateJson.get(key);
+            compactJson.put(stateKeyDictionary.getId(key), value);
+        }
+        return compactJson;
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.vaadin.server.DeploymentConfiguration;
+
+/**
+ * Dictionary of shared state property names sent to the client of one UI.
+ * When compact state encoding is enabled, the names of top level shared state
+ * properties are replaced with short ids in the JSON sent to the client. The
+ * names given an id since the previous response are sent in the
+ * {@code stateKeys} array of the response, in id order, and the client uses
+ * them to restore the property names.
+ * <p>
+ * The dictionary must be cleared whenever the client side is resynchronized,
+ * since the client then discards its copy of the dictionary.
+ *
+ * @see DeploymentConfiguration#isCompactStateEncoding()
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public class StateKeyDictionary implements Serializable {
+
+    private final Map<String, String> keyToId = new HashMap<>();
+    private final List<String> newKeys = new ArrayList<>();
+
+    /**
+     * Gets the id of the given property name, assigning a new id if the name
+     * is not yet in the dictionary.
+     *
+     * @param key
+     *            the property name, not null
+     * @return the id of the property name
+     */
+    public String getId(String key) {
+        String id = keyToId.get(key);
+        if (id == null) {
+            id = Integer.toString(keyToId.size(), Character.MAX_RADIX);
+            keyToId.put(key, id);
+            newKeys.add(key);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the property names that have been assigned an id since the
+     * previous call to this method, in id order, and marks them as sent to
+     * the client.
+     *
+     * @return a list of new property names, not null
+     */
+    public List<String> takeNewKeys() {
+        if (newKeys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> keys = new ArrayList<>(newKeys);
+        newKeys.clear();
+        return keys;
+    }
+
+    /**
+     * Removes all property names from the dictionary.
+     */
+    public void clear() {
+        keyToId.clear();
+        newKeys.clear();
+    }
+
+    /**
+     * Gets the number of property names in the dictionary.
+     *
+     * @return the number of property names
+     */
+    public int size() {
+        return keyToId.size();
+    }
+}
@@ -19,6 +19,8 @@ package com.vaadin.server.communication;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -55,6 +57,12 @@ public abstract class UIInitHandler extends SynchronizedRequestHandler {
 
     public static final String BROWSER_DETAILS_PARAMETER = "v-browserDetails";
 
+    /**
+     * Smaller responses are not compressed since the gzip header and trailer
+     * would take up most of the savings.
+     */
+    private static final int MIN_COMPRESSED_SIZE = 256;
+
     protected abstract boolean isInitRequest(VaadinRequest request);
 
     @Override
@@ -104,6 +112,38 @@ public abstract class UIInitHandler extends SynchronizedRequestHandler {
      */
     static boolean commitJsonResponse(VaadinRequest request,
             VaadinResponse response, String json) throws IOException {
+        VaadinService service = request.getService();
+        ResponseBufferPool pool = service != null
+                ? service.getResponseBufferPool() : null;
+        Utf8BufferWriter writer = pool != null ? pool.obtainWriter()
+                : new Utf8BufferWriter();
+        try {
+            writer.write(json);
+            return commitJsonResponse(request, response, writer);
+        } finally {
+            if (pool != null) {
+                pool.releaseWriter(writer);
+            }
+        }
+    }
+
+    /**
+     * Commit the JSON response written to the given buffer. The UTF-8 encoded
+     * content of the buffer is written to the output stream as is.
+     *
+     * @param request
+     *            The request that resulted in this response
+     * @param response
+     *            The response to write to
+     * @param json
+     *            The buffer containing the JSON to write
+     * @return true if the JSON was written successfully, false otherwise
+     * @throws IOException
+     *             If there was an exception while writing to the output
+     */
+    static boolean commitJsonResponse(VaadinRequest request,
+            VaadinResponse response, Utf8BufferWriter json)
+            throws IOException {
         // The response was produced without errors so write it to the client
         response.setContentType(JsonConstants.JSON_CONTENT_TYPE);
 
@@ -111,17 +151,88 @@ public abstract class UIInitHandler extends SynchronizedRequestHandler {
         // iOS 6 Safari requires this (#9732)
         response.setHeader("Cache-Control", "no-cache");
 
-        byte[] b = json.getBytes("UTF-8");
-        response.setContentLength(b.length);
+        int compressionLevel = getCompressionLevel(request);
+        if (compressionLevel > 0 && json.size() >= MIN_COMPRESSED_SIZE
+                && acceptsGzip(request)) {
+            writeCompressed(request.getService(), response, json,
+                    compressionLevel);
+            return true;
+        }
+
+        response.setContentLength(json.size());
 
         OutputStream outputStream = response.getOutputStream();
-        outputStream.write(b);
+        json.writeTo(outputStream);
         // NOTE GateIn requires the buffers to be flushed to work
         outputStream.flush();
 
         return true;
     }
 
+    private static int getCompressionLevel(VaadinRequest request) {
+        VaadinService service = request.getService();
+        if (service == null) {
+            return 0;
+        }
+        return service.getDeploymentConfiguration()
+                .getResponseCompressionLevel();
+    }
+
+    private static boolean acceptsGzip(VaadinRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                // Explicitly refused with gzip;q=0
+                return parts.length < 2
+                        || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static void writeCompressed(VaadinService service,
+            VaadinResponse response, Utf8BufferWriter json, int level)
+            throws IOException {
+        ResponseBufferPool pool = service.getResponseBufferPool();
+        GzipCompressor compressor = pool.obtainCompressor(level);
+        try {
+            long start = getCpuTime();
+            compressor.compress(json.getBuffer(), json.size());
+            service.getCompressionStatistics().record(json.size(),
+                    compressor.size(), getCpuTime() - start);
+
+            response.setHeader("Content-Encoding", "gzip");
+            response.setHeader("Vary", "Accept-Encoding");
+            response.setContentLength(compressor.size());
+
+            OutputStream outputStream = response.getOutputStream();
+            compressor.writeTo(outputStream);
+            // NOTE GateIn requires the buffers to be flushed to work
+            outputStream.flush();
+        } finally {
+            pool.releaseCompressor(compressor);
+        }
+    }
+
+    /**
+     * Gets the CPU time used by the current thread, or the elapsed time if the
+     * JVM cannot measure the CPU time of threads.
+     *
+     * @return the time in nanoseconds
+     */
+    private static long getCpuTime() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads.isCurrentThreadCpuTimeSupported()
+                && threads.isThreadCpuTimeEnabled()) {
+            return threads.getCurrentThreadCpuTime();
+        }
+        return System.nanoTime();
+    }
+
     private UI getBrowserDetailsUI(VaadinRequest request,
             VaadinSession session) {
         VaadinService vaadinService = request.getService();
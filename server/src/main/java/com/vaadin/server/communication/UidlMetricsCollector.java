@@ -0,0 +1,185 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.vaadin.server.communication;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.vaadin.server.ClientConnector;
+import com.vaadin.server.UidlMetricsEvent;
+import com.vaadin.server.UidlMetricsEvent.Phase;
+import com.vaadin.server.VaadinService;
+import com.vaadin.ui.UI;
+import com.vaadin.util.CurrentInstance;
+
+/**
+ * Collects the metrics reported to
+ * {@link VaadinService#addUidlMetricsListener(com.vaadin.server.UidlMetricsListener)
+ * metrics listeners} while a client message is handled or a response is
+ * written. A collector is only created if the service has metrics listeners,
+ * and it is made available to the code handling the message through
+ * {@link #getCurrent()}. When there is no current collector, the
+ * instrumented code does not collect anything.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+class UidlMetricsCollector {
+
+    private final VaadinService service;
+    private final UidlMetricsCollector previous;
+
+    private final Map<Phase, Long> phaseNanos = new EnumMap<>(Phase.class);
+    private final Map<Class<? extends ClientConnector>, Integer> stateSizes = new HashMap<>();
+    private long phaseStart;
+
+    private UidlMetricsCollector(VaadinService service,
+            UidlMetricsCollector previous) {
+        this.service = service;
+        this.previous = previous;
+    }
+
+    /**
+     * Starts collecting metrics and makes the new collector the current one,
+     * if the service has metrics listeners.
+     *
+     * @param service
+     *            the service to which the metrics are reported
+     * @return the new current collector, or <code>null</code> if the service
+     *         has no metrics listeners
+     */
+    static UidlMetricsCollector begin(VaadinService service) {
+        if (service == null || !service.hasUidlMetricsListeners()) {
+            return null;
+        }
+        UidlMetricsCollector collector = new UidlMetricsCollector(service,
+                getCurrent());
+        CurrentInstance.set(UidlMetricsCollector.class, collector);
+        return collector;
+    }
+
+    /**
+     * Gets the collector for the message or response currently being
+     * processed.
+     *
+     * @return the current collector, or <code>null</code> if metrics are not
+     *         collected
+     */
+    static UidlMetricsCollector getCurrent() {
+        return CurrentInstance.get(UidlMetricsCollector.class);
+    }
+
+    /**
+     * Marks the start of a phase.
+     */
+    void startPhase() {
+        phaseStart = System.nanoTime();
+    }
+
+    /**
+     * Marks the end of a phase started with {@link #startPhase()}.
+     *
+     * @param phase
+     *            the phase that ended
+     */
+    void endPhase(Phase phase) {
+        long nanos = System.nanoTime() - phaseStart;
+        Long previousNanos = phaseNanos.get(phase);
+        if (previousNanos != null) {
+            nanos += previousNanos;
+        }
+        phaseNanos.put(phase, nanos);
+    }
+
+    /**
+     * Records the state written for a connector.
+     *
+     * @param connector
+     *            the connector whose state was written
+     * @param stateJson
+     *            the state JSON written for the connector
+     */
+    void addState(ClientConnector connector, String stateJson) {
+        Class<? extends ClientConnector> type = connector.getClass();
+        int size = utf8Length(stateJson);
+        Integer previousSize = stateSizes.get(type);
+        if (previousSize != null) {
+            size += previousSize;
+        }
+        stateSizes.put(type, size);
+    }
+
+    /**
+     * Stops collecting metrics, restores the previously current collector and
+     * notifies the metrics listeners. Exceptions thrown by the listeners are
+     * logged but do not affect the request.
+     *
+     * @param ui
+     *            the UI that handled the message or for which the response was
+     *            written
+     * @param async
+     *            <code>true</code> if the response was pushed asynchronously
+     * @param responseSize
+     *            the size of the response in bytes, or 0 if no response was
+     *            written
+     */
+    void end(UI ui, boolean async, int responseSize) {
+        CurrentInstance.set(UidlMetricsCollector.class, previous);
+        try {
+            service.fireUidlMetricsEvent(new UidlMetricsEvent(service, ui,
+                    async, phaseNanos, responseSize, stateSizes));
+        } catch (RuntimeException e) {
+            getLogger().log(Level.WARNING, "Metrics listener failed", e);
+        }
+    }
+
+    /**
+     * Stops collecting metrics and restores the previously current collector
+     * without notifying the listeners, e.g. because processing failed.
+     */
+    void cancel() {
+        CurrentInstance.set(UidlMetricsCollector.class, previous);
+    }
+
+    /**
+     * Gets the length of the given string when encoded as UTF-8.
+     *
+     * @param string
+     *            the string
+     * @return the number of bytes
+     */
+    static int utf8Length(String string) {
+        int length = string.length();
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c >= 0x800) {
+                // Surrogate pairs are 2 chars and 4 bytes
+                length += Character.isSurrogate(c) ? 1 : 2;
+            } else if (c >= 0x80) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    private static Logger getLogger() {
+        return Logger.getLogger(UidlMetricsCollector.class.getName());
+    }
+}
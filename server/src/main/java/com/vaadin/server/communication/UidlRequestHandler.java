@@ -17,7 +17,6 @@
 package com.vaadin.server.communication;
 
 import java.io.IOException;
-import java.io.StringWriter;
 import java.io.Writer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -84,12 +83,21 @@ public class UidlRequestHandler extends SynchronizedRequestHandler
             return true;
         }
 
-        StringWriter stringWriter = new StringWriter();
+        ResponseBufferPool pool = session.getService()
+                .getResponseBufferPool();
+        Utf8BufferWriter writer = pool.obtainWriter();
+        UidlMetricsCollector metrics = UidlMetricsCollector
+                .begin(session.getService());
 
         try {
             rpcHandler.handleRpc(uI, request.getReader(), request);
 
-            writeUidl(request, response, uI, stringWriter);
+            writeUidl(request, response, uI, writer);
+            if (metrics != null) {
+                metrics.end(uI, false, writer.size());
+                metrics = null;
+            }
+            return UIInitHandler.commitJsonResponse(request, response, writer);
         } catch (JsonException e) {
             getLogger().log(Level.SEVERE, "Error writing JSON to response", e);
             // Refresh on client side
@@ -103,11 +111,11 @@ public class UidlRequestHandler extends SynchronizedRequestHandler
             writeRefresh(request, response);
             return true;
         } finally {
-            stringWriter.close();
+            if (metrics != null) {
+                metrics.cancel();
+            }
+            pool.releaseWriter(writer);
         }
-
-        return UIInitHandler.commitJsonResponse(request, response,
-                stringWriter.toString());
     }
 
     private void writeRefresh(VaadinRequest request, VaadinResponse response)
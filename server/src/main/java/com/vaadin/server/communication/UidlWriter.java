@@ -36,6 +36,7 @@ import com.vaadin.server.JsonPaintTarget;
 import com.vaadin.server.LegacyCommunicationManager;
 import com.vaadin.server.LegacyCommunicationManager.ClientCache;
 import com.vaadin.server.SystemMessages;
+import com.vaadin.server.UidlMetricsEvent.Phase;
 import com.vaadin.server.VaadinService;
 import com.vaadin.server.VaadinSession;
 import com.vaadin.shared.ApplicationConstants;
@@ -89,33 +90,44 @@ public class UidlWriter implements Serializable {
         ConnectorTracker uiConnectorTracker = ui.getConnectorTracker();
         getLogger().log(Level.FINE, "* Creating response to client");
 
-        while (true) {
-            ArrayList<ClientConnector> connectorsToProcess = new ArrayList<>();
-            for (ClientConnector c : uiConnectorTracker.getDirtyConnectors()) {
-                if (!processedConnectors.contains(c)
-                        && LegacyCommunicationManager
-                                .isConnectorVisibleToClient(c)) {
-                    connectorsToProcess.add(c);
-                }
-            }
+        UidlMetricsCollector metrics = UidlMetricsCollector.getCurrent();
+        if (metrics != null) {
+            metrics.startPhase();
+        }
 
-            if (connectorsToProcess.isEmpty()) {
-                break;
+        // Connectors marked dirty by beforeClientResponse are added to the end
+        // of the queue and processed in the same pass
+        List<ClientConnector> dirtyConnectorQueue = uiConnectorTracker
+                .getDirtyConnectorQueue();
+        List<ClientConnector> invisibleConnectors = new ArrayList<>();
+        int queueIndex = 0;
+        boolean processed = true;
+        while (processed) {
+            processed = false;
+
+            // beforeClientResponse might have made invisible connectors
+            // visible
+            List<ClientConnector> connectorsToRecheck = invisibleConnectors;
+            invisibleConnectors = new ArrayList<>();
+            for (ClientConnector connector : connectorsToRecheck) {
+                processed |= processDirtyConnector(uiConnectorTracker,
+                        manager, connector, processedConnectors,
+                        invisibleConnectors);
             }
 
-            for (ClientConnector connector : connectorsToProcess) {
-                boolean initialized = uiConnectorTracker
-                        .isClientSideInitialized(connector);
-                processedConnectors.add(connector);
-
-                try {
-                    connector.beforeClientResponse(!initialized);
-                } catch (RuntimeException e) {
-                    manager.handleConnectorRelatedException(connector, e);
-                }
+            while (queueIndex < dirtyConnectorQueue.size()) {
+                ClientConnector connector = dirtyConnectorQueue
+                        .get(queueIndex++);
+                processed |= processDirtyConnector(uiConnectorTracker,
+                        manager, connector, processedConnectors,
+                        invisibleConnectors);
             }
         }
 
+        if (metrics != null) {
+            metrics.endPhase(Phase.BEFORE_CLIENT_RESPONSE);
+        }
+
         getLogger().log(Level.FINE, "Found " + processedConnectors.size()
                 + " dirty connectors to paint");
 
@@ -137,6 +149,9 @@ public class UidlWriter implements Serializable {
                     + "\": " + nextClientToServerMessageId + ", ");
             writer.write("\"changes\" : ");
 
+            if (metrics != null) {
+                metrics.startPhase();
+            }
             JsonPaintTarget paintTarget = new JsonPaintTarget(manager, writer,
                     !repaintAll);
 
@@ -144,6 +159,9 @@ public class UidlWriter implements Serializable {
 
             paintTarget.close();
             writer.write(", "); // close changes
+            if (metrics != null) {
+                metrics.endPhase(Phase.LEGACY_PAINT);
+            }
 
             // send shared state to client
 
@@ -156,31 +174,55 @@ public class UidlWriter implements Serializable {
             // client after component creation but before legacy UIDL
             // processing.
 
+            StateKeyDictionary stateKeyDictionary = null;
+            if (service.getDeploymentConfiguration().isCompactStateEncoding()) {
+                stateKeyDictionary = uiConnectorTracker.getStateKeyDictionary();
+                if (repaintAll) {
+                    // The client starts over with an empty dictionary
+                    stateKeyDictionary.clear();
+                }
+            }
+
+            if (metrics != null) {
+                metrics.startPhase();
+            }
             writer.write("\"state\":");
             Set<String> stateUpdateConnectors = new SharedStateWriter()
-                    .write(ui, writer);
+                    .write(ui, writer, stateKeyDictionary, metrics);
             writer.write(", "); // close states
 
-            // TODO This should be optimized. The type only needs to be
-            // sent once for each connector id + on refresh. Use the same cache
-            // as
-            // widget mapping
+            if (stateKeyDictionary != null) {
+                // Always present so that the client knows to restore the
+                // property names
+                writer.write("\"stateKeys\":");
+                writer.write(JsonUtil.stringify(
+                        toJsonArray(stateKeyDictionary.takeNewKeys())));
+                writer.write(", ");
+            }
+            if (metrics != null) {
+                metrics.endPhase(Phase.STATE_ENCODE);
+                metrics.startPhase();
+            }
+
+            // Types are only sent for connectors not yet known by the client
 
             writer.write("\"types\":");
             new ConnectorTypeWriter().write(ui, writer, paintTarget);
             writer.write(", "); // close states
 
-            // Send update hierarchy information to the client.
-
-            // This could be optimized aswell to send only info if hierarchy has
-            // actually changed. Much like with the shared state. Note though
-            // that an empty hierarchy is information aswell (e.g. change from 1
-            // child to 0 children)
+            // Send update hierarchy information to the client, only for
+            // connectors whose hierarchy has changed. Note though that an
+            // empty hierarchy is information aswell (e.g. change from 1 child
+            // to 0 children)
 
             writer.write("\"hierarchy\":");
             new ConnectorHierarchyWriter().write(ui, writer,
                     stateUpdateConnectors);
             writer.write(", "); // close hierarchy
+            if (metrics != null) {
+                metrics.endPhase(Phase.HIERARCHY);
+                metrics.startPhase();
+            }
 
             // send server to client RPC calls for components in the UI, in call
             // order
@@ -191,6 +233,9 @@ public class UidlWriter implements Serializable {
             writer.write("\"rpc\" : ");
             new ClientRpcWriter().write(ui, writer);
             writer.write(", "); // close rpc
+            if (metrics != null) {
+                metrics.endPhase(Phase.CLIENT_RPC);
+            }
 
             uiConnectorTracker.markAllConnectorsClean();
 
@@ -344,6 +389,40 @@ public class UidlWriter implements Serializable {
         return result;
     }
 
+    /**
+     * Calls {@link ClientConnector#beforeClientResponse(boolean)} for a
+     * connector taken from the dirty connector queue, unless the connector is
+     * no longer dirty or has already been processed. Invisible connectors are
+     * collected so that they can be checked again later.
+     *
+     * @return <code>true</code> if beforeClientResponse was called,
+     *         <code>false</code> otherwise
+     */
+    private boolean processDirtyConnector(ConnectorTracker connectorTracker,
+            LegacyCommunicationManager manager, ClientConnector connector,
+            Set<ClientConnector> processedConnectors,
+            List<ClientConnector> invisibleConnectors) {
+        if (!connectorTracker.isDirty(connector)
+                || processedConnectors.contains(connector)) {
+            return false;
+        }
+        if (!connectorTracker.isConnectorVisibleToClient(connector)) {
+            invisibleConnectors.add(connector);
+            return false;
+        }
+
+        boolean initialized = connectorTracker
+                .isClientSideInitialized(connector);
+        processedConnectors.add(connector);
+
+        try {
+            connector.beforeClientResponse(!initialized);
+        } catch (RuntimeException e) {
+            manager.handleConnectorRelatedException(connector, e);
+        }
+        return true;
+    }
+
     /**
      * Adds the performance timing data (used by TestBench 3) to the UIDL
      * response.
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.vaadin.server.communication;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A writer that encodes characters to UTF-8 directly into a reusable byte
+ * buffer. Responses written with it exist on the heap only once, as UTF-8
+ * bytes, instead of first as characters in a {@link java.io.StringWriter},
+ * then as a string and finally as bytes.
+ * <p>
+ * Instances are kept in a {@link ResponseBufferPool}, so the buffer is not
+ * allocated again for each response. The whole content is still available as
+ * a string through {@link #toString()} for code that needs it.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+class Utf8BufferWriter extends Writer {
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    /**
+     * Larger buffers are not kept in a pool, so that a single large response
+     * does not keep reserving memory.
+     */
+    private static final int MAX_POOLED_CAPACITY = 256 * 1024;
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int size = 0;
+    /**
+     * High surrogate written as the last character, waiting for the low
+     * surrogate of the pair.
+     */
+    private char pendingHighSurrogate = 0;
+
+    /**
+     * Checks whether the buffer of this writer is small enough to be kept in a
+     * pool.
+     *
+     * @return {@code true} if this writer can be pooled
+     */
+    boolean isPoolable() {
+        return buffer.length <= MAX_POOLED_CAPACITY;
+    }
+
+    @Override
+    public void write(int c) {
+        ensureCapacity(size + 4);
+        encode((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        // Most of the content is ASCII, reserve room for that up front
+        ensureCapacity(size + len);
+        for (int i = off; i < off + len; i++) {
+            encode(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        ensureCapacity(size + len);
+        for (int i = off; i < off + len; i++) {
+            encode(str.charAt(i));
+        }
+    }
+
+    private void encode(char c) {
+        if (pendingHighSurrogate != 0) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                ensureCapacity(size + 4);
+                int codePoint = Character.toCodePoint(high, c);
+                buffer[size++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[size++] = (byte) (0x80 | (codePoint & 0x3F));
+                return;
+            }
+            // Unpaired surrogates are replaced like String.getBytes does
+            appendByte('?');
+        }
+
+        if (c < 0x80) {
+            appendByte(c);
+        } else if (c < 0x800) {
+            ensureCapacity(size + 2);
+            buffer[size++] = (byte) (0xC0 | (c >> 6));
+            buffer[size++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            pendingHighSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            appendByte('?');
+        } else {
+            ensureCapacity(size + 3);
+            buffer[size++] = (byte) (0xE0 | (c >> 12));
+            buffer[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[size++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    private void appendByte(int b) {
+        ensureCapacity(size + 1);
+        buffer[size++] = (byte) b;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer,
+                    Math.max(capacity, buffer.length * 2));
+        }
+    }
+
+    private void completeSurrogatePair() {
+        if (pendingHighSurrogate != 0) {
+            pendingHighSurrogate = 0;
+            appendByte('?');
+        }
+    }
+
+    /**
+     * Gets the number of UTF-8 bytes written so far.
+     *
+     * @return the number of bytes
+     */
+    int size() {
+        completeSurrogatePair();
+        return size;
+    }
+
+    /**
+     * Gets the internal buffer of this writer. The first {@link #size()}
+     * bytes of the buffer contain the UTF-8 encoded content. The buffer must
+     * not be modified, and it is only valid until the next write.
+     *
+     * @return the internal buffer
+     */
+    byte[] getBuffer() {
+        completeSurrogatePair();
+        return buffer;
+    }
+
+    /**
+     * Writes the UTF-8 encoded content to the given output stream.
+     *
+     * @param out
+     *            the output stream to write to
+     * @throws IOException
+     *             if writing to the stream fails
+     */
+    void writeTo(OutputStream out) throws IOException {
+        completeSurrogatePair();
+        out.write(buffer, 0, size);
+    }
+
+    /**
+     * Removes all content from this writer.
+     */
+    void reset() {
+        size = 0;
+        pendingHighSurrogate = 0;
+    }
+
+    /**
+     * Gets the content written to this writer as a string.
+     *
+     * @return the written content
+     */
+    @Override
+    public String toString() {
+        completeSurrogatePair();
+        return new String(buffer, 0, size, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void flush() {
+        // Nothing to flush
+    }
+
+    @Override
+    public void close() {
+        // Content is still available after closing
+    }
+}
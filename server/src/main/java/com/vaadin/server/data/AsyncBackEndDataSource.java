@@ -0,0 +1,90 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A {@link DataSource} for back ends that can be queried asynchronously.
+ * <p>
+ * When a {@link DataCommunicator} uses this data source, the session is not
+ * kept locked while rows are being fetched. The requested rows are sent to the
+ * client once the returned {@link CompletionStage} completes, using
+ * {@link com.vaadin.ui.UI#access(Runnable)} and pushed to the client. Until
+ * then, the client shows the rows as not yet loaded.
+ * <p>
+ * Rows are only fetched asynchronously if server push is enabled for the UI.
+ * Without push, the rows could not be sent before the next request from the
+ * client, so they are fetched synchronously instead, with
+ * {@link #apply(Query)} blocking until the data has been fetched. The size of
+ * the data is always queried synchronously.
+ *
+ * @param <T>
+ *            data source data type
+ *
+ * @since 8.0
+ */
+public class AsyncBackEndDataSource<T> extends BackEndDataSource<T> {
+
+    private Function<Query, CompletionStage<Stream<T>>> request;
+
+    /**
+     * Constructs a new DataSource to request data asynchronously from an
+     * arbitrary back end request function.
+     *
+     * @param request
+     *            function that starts a back end request based on query and
+     *            returns a completion stage for the data
+     * @param sizeCallback
+     *            function that return the amount of data in back end for query
+     */
+    public AsyncBackEndDataSource(
+            Function<Query, CompletionStage<Stream<T>>> request,
+            Function<Query, Integer> sizeCallback) {
+        super(query -> request.apply(query).toCompletableFuture().join(),
+                sizeCallback);
+        this.request = Objects.requireNonNull(request,
+                "Request function can't be null");
+    }
+
+    /**
+     * Starts fetching data from the back end based on the given query.
+     *
+     * @param query
+     *            the query
+     * @return completion stage for the requested data
+     */
+    public CompletionStage<Stream<T>> applyAsync(Query query) {
+        return request.apply(query);
+    }
+
+    @Override
+    public AsyncBackEndDataSource<T> sortingBy(
+            List<SortOrder<String>> sortOrders) {
+        return new AsyncBackEndDataSource<>(query -> {
+            List<SortOrder<String>> queryOrder = new ArrayList<>(
+                    query.getSortOrders());
+            queryOrder.addAll(sortOrders);
+            return request.apply(new Query(query.getOffset(), query.getLimit(),
+                    queryOrder, query.getFilters()));
+        }, this::size);
+    }
+}
@@ -72,7 +72,7 @@ public class BackEndDataSource<T> extends AbstractDataSource<T> {
             List<SortOrder<String>> queryOrder = new ArrayList<>(
                     query.getSortOrders());
             queryOrder.addAll(sortOrders);
-            return request.apply(new Query(query.getLimit(), query.getOffset(),
+            return request.apply(new Query(query.getOffset(), query.getLimit(),
                     queryOrder, query.getFilters()));
         }, sizeCallback);
     }
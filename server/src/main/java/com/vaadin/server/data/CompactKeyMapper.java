@@ -0,0 +1,307 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.data;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import com.vaadin.server.KeyMapper;
+
+/**
+ * A {@link DataKeyMapper} for large amounts of data. Keys are generated the
+ * same way as in {@link KeyMapper}, but they are stored as {@code int}s in two
+ * open addressing hash tables instead of two {@code HashMap}s with
+ * {@code String} keys. The key strings are only created when
+ * {@link #key(Object)} is called, so no key strings are kept in memory. The
+ * mappings are also serialized as plain key-object pairs.
+ * <p>
+ * To use this key mapper with a {@link DataCommunicator}, override
+ * {@link DataCommunicator#createKeyMapper()} to return a new instance of this
+ * class.
+ *
+ * @param <T>
+ *            data type
+ *
+ * @since 8.0
+ */
+public class CompactKeyMapper<T> implements DataKeyMapper<T> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int lastKey = 0;
+    private int size = 0;
+
+    /**
+     * Data objects and their keys, indexed by the hash of the data object.
+     */
+    private transient Object[] objects;
+    private transient int[] objectKeys;
+
+    /**
+     * Keys and their data objects, indexed by the hash of the key. Zero marks
+     * an empty slot since generated keys start from one.
+     */
+    private transient int[] keys;
+    private transient Object[] keyObjects;
+
+    /**
+     * Creates a new empty key mapper.
+     */
+    public CompactKeyMapper() {
+        init(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public String key(T dataObject) {
+        if (dataObject == null) {
+            return "null";
+        }
+        return String.valueOf(intKey(dataObject));
+    }
+
+    /**
+     * Gets the key for data object as an integer. If no key exists beforehand,
+     * a new key is created.
+     *
+     * @param dataObject
+     *            data object for key mapping, not null
+     * @return key for given data object
+     */
+    public int intKey(T dataObject) {
+        int slot = findObject(dataObject);
+        if (objects[slot] != null) {
+            return objectKeys[slot];
+        }
+
+        if (needsResize(size + 1, objects.length)) {
+            resize(objects.length * 2);
+            slot = findObject(dataObject);
+        }
+
+        int key = ++lastKey;
+        objects[slot] = dataObject;
+        objectKeys[slot] = key;
+
+        int keySlot = findKey(key);
+        keys[keySlot] = key;
+        keyObjects[keySlot] = dataObject;
+
+        ++size;
+        return key;
+    }
+
+    @Override
+    public T get(String key) {
+        int intKey = parseKey(key);
+        if (intKey <= 0) {
+            return null;
+        }
+        return get(intKey);
+    }
+
+    /**
+     * Gets the data object identified by given integer key.
+     *
+     * @param key
+     *            key of a data object
+     * @return identified data object; <code>null</code> if invalid key
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int key) {
+        if (key <= 0) {
+            return null;
+        }
+        return (T) keyObjects[findKey(key)];
+    }
+
+    @Override
+    public void remove(T dataObject) {
+        if (dataObject == null) {
+            return;
+        }
+        int slot = findObject(dataObject);
+        if (objects[slot] == null) {
+            return;
+        }
+        int key = objectKeys[slot];
+        removeObjectAt(slot);
+        removeKeyAt(findKey(key));
+        --size;
+    }
+
+    @Override
+    public void removeAll() {
+        init(INITIAL_CAPACITY);
+        size = 0;
+    }
+
+    /**
+     * Gets the number of data objects currently mapped.
+     *
+     * @return number of mapped data objects
+     */
+    public int size() {
+        return size;
+    }
+
+    private void init(int capacity) {
+        objects = new Object[capacity];
+        objectKeys = new int[capacity];
+        keys = new int[capacity];
+        keyObjects = new Object[capacity];
+    }
+
+    private static boolean needsResize(int size, int capacity) {
+        // Keep the load factor below 2/3 for short probe sequences
+        return size * 3 > capacity * 2;
+    }
+
+    private static int hash(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int findObject(Object dataObject) {
+        int mask = objects.length - 1;
+        int slot = hash(dataObject.hashCode()) & mask;
+        while (objects[slot] != null && !objects[slot].equals(dataObject)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int findKey(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        Object[] oldObjects = objects;
+        int[] oldObjectKeys = objectKeys;
+        init(capacity);
+        for (int i = 0; i < oldObjects.length; ++i) {
+            if (oldObjects[i] != null) {
+                put(oldObjects[i], oldObjectKeys[i]);
+            }
+        }
+    }
+
+    private void put(Object dataObject, int key) {
+        int slot = findObject(dataObject);
+        objects[slot] = dataObject;
+        objectKeys[slot] = key;
+
+        int keySlot = findKey(key);
+        keys[keySlot] = key;
+        keyObjects[keySlot] = dataObject;
+    }
+
+    private void removeObjectAt(int slot) {
+        // Shift back the rest of the probe sequence instead of leaving a
+        // tombstone, so lookups do not slow down as data is dropped
+        int mask = objects.length - 1;
+        int gap = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            Object dataObject = objects[i];
+            if (dataObject == null) {
+                break;
+            }
+            int home = hash(dataObject.hashCode()) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                objects[gap] = dataObject;
+                objectKeys[gap] = objectKeys[i];
+                gap = i;
+            }
+        }
+        objects[gap] = null;
+        objectKeys[gap] = 0;
+    }
+
+    private void removeKeyAt(int slot) {
+        int mask = keys.length - 1;
+        int gap = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            int key = keys[i];
+            if (key == 0) {
+                break;
+            }
+            int home = hash(key) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = key;
+                keyObjects[gap] = keyObjects[i];
+                gap = i;
+            }
+        }
+        keys[gap] = 0;
+        keyObjects[gap] = null;
+    }
+
+    /**
+     * Parses a key string generated by this key mapper.
+     *
+     * @param key
+     *            the key string
+     * @return the integer key, or -1 if the string is not a valid key
+     */
+    private static int parseKey(String key) {
+        if (key == null || key.isEmpty() || key.length() > 10
+                || key.charAt(0) == '0') {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < key.length(); ++i) {
+            char c = key.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value > Integer.MAX_VALUE ? -1 : (int) value;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        for (int i = 0; i < objects.length; ++i) {
+            if (objects[i] != null) {
+                out.writeInt(objectKeys[i]);
+                out.writeObject(objects[i]);
+            }
+        }
+    }
+
+    private void readObject(ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int capacity = INITIAL_CAPACITY;
+        while (needsResize(size, capacity)) {
+            capacity *= 2;
+        }
+        init(capacity);
+        for (int i = 0; i < size; ++i) {
+            int key = in.readInt();
+            put(in.readObject(), key);
+        }
+    }
+}
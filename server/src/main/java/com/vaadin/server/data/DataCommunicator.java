@@ -20,26 +20,40 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import com.vaadin.server.AbstractExtension;
+import com.vaadin.server.JsonCodec;
 import com.vaadin.server.KeyMapper;
 import com.vaadin.shared.Range;
 import com.vaadin.shared.Registration;
+import com.vaadin.shared.communication.PushMode;
 import com.vaadin.shared.data.DataCommunicatorClientRpc;
 import com.vaadin.shared.data.DataCommunicatorConstants;
 import com.vaadin.shared.data.DataRequestRpc;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.UIDetachedException;
+import com.vaadin.util.CurrentInstance;
 
 import elemental.json.Json;
 import elemental.json.JsonArray;
 import elemental.json.JsonObject;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
 
 /**
  * DataProvider base class. This class is the base for all DataProvider
@@ -51,6 +65,20 @@ import elemental.json.JsonObject;
  */
 public class DataCommunicator<T> extends AbstractExtension {
 
+    /**
+     * The largest number of first rows to select with a partial sort.
+     */
+    private static final int MAX_PARTIAL_SORT_ROWS = 1000;
+    /**
+     * How many times the size of the data must be larger than the number of
+     * rows needed to select them with a partial sort.
+     */
+    private static final int PARTIAL_SORT_RATIO = 16;
+
+    private static final String RESERVED_KEY_MESSAGE = "Data generators "
+            + "must not use the reserved key "
+            + DataCommunicatorConstants.REMOVED;
+
     private Registration dataSourceUpdateRegistration;
 
     /**
@@ -76,11 +104,12 @@ public class DataCommunicator<T> extends AbstractExtension {
 
     /**
      * A class for handling currently active data and dropping data that is no
-     * longer needed. Data tracking is based on key string provided by
+     * longer needed. Active data is tracked by the data objects themselves, so
+     * checking whether an object is active does not need to go through the
      * {@link DataKeyMapper}.
      * <p>
      * When the {@link DataCommunicator} is pushing new data to the client-side
-     * via {@link DataCommunicator#pushData(long, Collection)},
+     * via {@link DataCommunicator#pushData(int, Stream)},
      * {@link #addActiveData(Collection)} and {@link #cleanUp(Collection)} are
      * called with the same parameter. In the clean up method any dropped data
      * objects that are not in the given collection will be cleaned up and
@@ -90,9 +119,16 @@ public class DataCommunicator<T> extends AbstractExtension {
             implements Serializable, DataGenerator<T> {
 
         /**
-         * Set of key strings for currently active data objects
+         * Set of currently active data objects
          */
-        private final Set<String> activeData = new HashSet<>();
+        private final Set<T> activeData = new HashSet<>();
+
+        /**
+         * Map of the JSON most recently sent to the client-side for each active
+         * data object. This is used to send only the changed values when an
+         * active data object is updated.
+         */
+        private final Map<T, JsonObject> sentData = new HashMap<>();
 
         /**
          * Set of key strings for data objects dropped on the client. This set
@@ -106,10 +142,8 @@ public class DataCommunicator<T> extends AbstractExtension {
          * @param dataObjects
          *            collection of new active data objects
          */
-        public void addActiveData(Stream<T> dataObjects) {
-            dataObjects.map(getKeyMapper()::key)
-                    .filter(key -> !activeData.contains(key))
-                    .forEach(activeData::add);
+        public void addActiveData(Collection<T> dataObjects) {
+            activeData.addAll(dataObjects);
         }
 
         /**
@@ -124,12 +158,15 @@ public class DataCommunicator<T> extends AbstractExtension {
          * @param dataObjects
          *            collection of most recently sent data to the client
          */
-        public void cleanUp(Stream<T> dataObjects) {
-            Collection<String> keys = dataObjects.map(getKeyMapper()::key)
-                    .collect(Collectors.toSet());
+        public void cleanUp(Collection<T> dataObjects) {
+            if (droppedData.isEmpty()) {
+                return;
+            }
 
             // Remove still active rows that were dropped by the client
-            droppedData.removeAll(keys);
+            for (T data : dataObjects) {
+                droppedData.remove(getKeyMapper().key(data));
+            }
             // Do data clean up for object no longer needed.
             dropData(droppedData);
             droppedData.clear();
@@ -142,22 +179,58 @@ public class DataCommunicator<T> extends AbstractExtension {
          *            key string
          */
         public void dropActiveData(String key) {
-            if (activeData.contains(key)) {
+            T data = getKeyMapper().get(key);
+            if (data != null && activeData.contains(data)) {
                 droppedData.add(key);
             }
         }
 
         /**
-         * Returns the collection of all currently active data.
+         * Checks whether the given data object is currently active.
+         *
+         * @param data
+         *            the data object to check
+         * @return {@code true} if the data object is active; {@code false} if
+         *         not
+         */
+        public boolean isActive(T data) {
+            return activeData.contains(data);
+        }
+
+        /**
+         * Returns the collection of all currently active data. The returned
+         * collection is an unmodifiable view of the active data.
          *
          * @return collection of active data objects
          */
         public Collection<T> getActiveData() {
-            HashSet<T> hashSet = new HashSet<>();
-            for (String key : activeData) {
-                hashSet.add(getKeyMapper().get(key));
-            }
-            return hashSet;
+            return Collections.unmodifiableSet(activeData);
+        }
+
+        /**
+         * Stores the JSON most recently sent to the client-side for an active
+         * data object.
+         *
+         * @param data
+         *            the active data object
+         * @param dataObject
+         *            the JSON sent for the data object
+         */
+        public void setSentData(T data, JsonObject dataObject) {
+            sentData.put(data, dataObject);
+        }
+
+        /**
+         * Gets the JSON most recently sent to the client-side for an active
+         * data object.
+         *
+         * @param data
+         *            the active data object
+         * @return the JSON sent for the data object; {@code null} if the data
+         *         object is not active
+         */
+        public JsonObject getSentData(T data) {
+            return sentData.get(data);
         }
 
         @Override
@@ -170,12 +243,26 @@ public class DataCommunicator<T> extends AbstractExtension {
         @Override
         public void destroyData(T data) {
             // Remove from active data set
-            activeData.remove(getKeyMapper().key(data));
+            activeData.remove(data);
+            sentData.remove(data);
             // Drop the registered key
             getKeyMapper().remove(data);
         }
     }
 
+    /**
+     * Data object with its position in the unsorted data.
+     */
+    private static class IndexedItem<T> implements Serializable {
+        private final T item;
+        private final int index;
+
+        private IndexedItem(T item, int index) {
+            this.item = item;
+            this.index = index;
+        }
+    }
+
     private Collection<DataGenerator<T>> generators = new LinkedHashSet<>();
     private ActiveDataHandler handler = new ActiveDataHandler();
 
@@ -185,11 +272,39 @@ public class DataCommunicator<T> extends AbstractExtension {
     private boolean reset = false;
     private final Set<T> updatedData = new HashSet<>();
     private Range pushRows = Range.withLength(0, 40);
+    /**
+     * The most recent non-empty range of rows pushed to the client. Used for
+     * estimating the rows needed after a reset, when the client has not yet
+     * requested any rows.
+     */
+    private Range lastPushRows = pushRows;
 
     private Comparator<T> inMemorySorting;
     private Predicate<T> inMemoryFilter;
+    /**
+     * Filtered and sorted in-memory data. This is built on demand and cleared
+     * on {@link #reset()}.
+     */
+    private transient List<T> inMemoryData;
+    /**
+     * The first rows of the filtered and sorted in-memory data, and the size
+     * of the filtered data, when they have been found without sorting all the
+     * data. These are cleared on {@link #reset()}.
+     */
+    private transient List<T> inMemoryHead;
+    private transient int inMemoryHeadLimit;
+    private transient int inMemorySize = -1;
     private List<SortOrder<String>> backEndSorting = new ArrayList<>();
+    private Set<Object> backEndFilters = new HashSet<>();
     private DataCommunicatorClientRpc rpc;
+    private transient Executor dataGenerationExecutor;
+    private int backEndReadAhead = 0;
+    private ReadAheadCache<T> readAheadCache;
+    /**
+     * Incremented on {@link #reset()} so that rows fetched asynchronously for
+     * outdated requests are not sent to the client.
+     */
+    private int fetchGeneration = 0;
 
     public DataCommunicator() {
         addDataGenerator(handler);
@@ -222,50 +337,70 @@ public class DataCommunicator<T> extends AbstractExtension {
             return;
         }
 
-        // FIXME: Sorting and Filtering with Backend
-        Set<Object> filters = Collections.emptySet();
-
         if (initial || reset) {
             int dataSourceSize;
-            if (getDataSource().isInMemory() && inMemoryFilter != null) {
-                dataSourceSize = (int) getDataSource().apply(new Query())
-                        .filter(inMemoryFilter).count();
+            if (getDataSource().isInMemory()) {
+                // After a reset, the client requests the rows it last showed
+                Range rowsNeeded = pushRows.isEmpty() ? lastPushRows
+                        : pushRows;
+                dataSourceSize = getInMemorySize(rowsNeeded.getEnd());
             } else {
-                dataSourceSize = getDataSource().size(new Query(filters));
+                dataSourceSize = getDataSource()
+                        .size(new Query(backEndFilters));
             }
             rpc.reset(dataSourceSize);
         }
 
         if (!pushRows.isEmpty()) {
+            lastPushRows = pushRows;
             int offset = pushRows.getStart();
             int limit = pushRows.length();
 
             Stream<T> rowsToPush;
 
-            if (getDataSource().isInMemory()) {
-                // We can safely request all the data when in memory
-                rowsToPush = getDataSource().apply(new Query());
-                if (inMemoryFilter != null) {
-                    rowsToPush = rowsToPush.filter(inMemoryFilter);
-                }
-                if (inMemorySorting != null) {
-                    rowsToPush = rowsToPush.sorted(inMemorySorting);
-                }
-                rowsToPush = rowsToPush.skip(offset).limit(limit);
+            if (getDataSource() instanceof AsyncBackEndDataSource
+                    && isPushEnabled()) {
+                // Rows are pushed once the back end request completes
+                fetchAsync(offset, limit);
+                rowsToPush = null;
+            } else if (getDataSource().isInMemory()) {
+                rowsToPush = getInMemoryRows(offset, limit);
+            } else if (readAheadCache != null) {
+                rowsToPush = readAheadCache
+                        .get(offset, limit, this::fetchFromBackEnd).stream();
             } else {
-                Query query = new Query(offset, limit, backEndSorting, filters);
+                Query query = new Query(offset, limit, backEndSorting,
+                        backEndFilters);
                 rowsToPush = getDataSource().apply(query);
             }
-            pushData(offset, rowsToPush);
+            if (rowsToPush != null) {
+                pushData(offset, rowsToPush);
+            }
         }
 
         if (!updatedData.isEmpty()) {
+            // Skip data dropped after the refresh was requested
+            List<T> activeUpdatedData = updatedData.stream()
+                    .filter(handler::isActive).collect(Collectors.toList());
+            List<JsonObject> dataObjects = getDataObjects(activeUpdatedData);
+
             JsonArray dataArray = Json.createArray();
             int i = 0;
-            for (T data : updatedData) {
-                dataArray.set(i++, getDataObject(data));
+            for (int j = 0; j < activeUpdatedData.size(); ++j) {
+                T data = activeUpdatedData.get(j);
+                JsonObject sent = handler.getSentData(data);
+                JsonObject dataObject = dataObjects.get(j);
+                JsonObject diff = createDiff(sent, dataObject);
+                if (diff.keys().length > 0) {
+                    diff.put(DataCommunicatorConstants.KEY, dataObject
+                            .getString(DataCommunicatorConstants.KEY));
+                    dataArray.set(i++, diff);
+                    handler.setSentData(data, dataObject);
+                }
+            }
+            if (dataArray.length() > 0) {
+                rpc.updateData(dataArray);
             }
-            rpc.updateData(dataArray);
         }
 
         pushRows = Range.withLength(0, 0);
@@ -309,6 +444,16 @@ public class DataCommunicator<T> extends AbstractExtension {
         return keyMapper;
     }
 
+    /**
+     * Gets the {@link ActiveDataHandler} used by this {@link DataCommunicator}
+     * to track the data objects currently available on the client-side.
+     *
+     * @return active data handler
+     */
+    protected ActiveDataHandler getActiveDataHandler() {
+        return handler;
+    }
+
     /**
      * Sends given collection of data objects to the client-side.
      *
@@ -322,13 +467,16 @@ public class DataCommunicator<T> extends AbstractExtension {
 
         int i = 0;
         List<T> collected = data.collect(Collectors.toList());
+        List<JsonObject> dataObjects = getDataObjects(collected);
         for (T item : collected) {
-            dataArray.set(i++, getDataObject(item));
+            JsonObject dataObject = dataObjects.get(i);
+            dataArray.set(i++, dataObject);
+            handler.setSentData(item, dataObject);
         }
 
         rpc.setData(firstIndex, dataArray);
-        handler.addActiveData(collected.stream());
-        handler.cleanUp(collected.stream());
+        handler.addActiveData(collected);
+        handler.cleanUp(collected);
     }
 
     /**
@@ -349,6 +497,386 @@ public class DataCommunicator<T> extends AbstractExtension {
         return dataObject;
     }
 
+    /**
+     * Creates the JsonObjects for given data objects. If an executor for data
+     * generation has been set, the thread safe data generators are run for
+     * multiple data objects concurrently, after which the other data generators
+     * are run in this thread.
+     *
+     * @param data
+     *            list of data objects to be made into json objects
+     * @return list of json objects in the same order as the data objects
+     *
+     * @see #setDataGenerationExecutor(Executor)
+     * @see DataGenerator#isThreadSafe()
+     */
+    protected List<JsonObject> getDataObjects(List<T> data) {
+        Executor executor = dataGenerationExecutor;
+        if (executor == null || data.size() < 2) {
+            List<JsonObject> dataObjects = data.stream()
+                    .map(this::getDataObject).collect(Collectors.toList());
+            assert dataObjects.stream().noneMatch(
+                    DataCommunicator::hasRemovedKey) : RESERVED_KEY_MESSAGE;
+            return dataObjects;
+        }
+
+        List<DataGenerator<T>> threadSafe = new ArrayList<>();
+        List<DataGenerator<T>> other = new ArrayList<>();
+        for (DataGenerator<T> generator : generators) {
+            if (generator.isThreadSafe()) {
+                threadSafe.add(generator);
+            } else {
+                other.add(generator);
+            }
+        }
+
+        List<JsonObject> dataObjects = new ArrayList<>(data.size());
+        for (int i = 0; i < data.size(); ++i) {
+            dataObjects.add(Json.createObject());
+        }
+
+        if (!threadSafe.isEmpty()) {
+            UI ui = getUI();
+            int chunks = Math.min(data.size(),
+                    Runtime.getRuntime().availableProcessors());
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks];
+            for (int c = 0; c < chunks; ++c) {
+                // Each task handles its own range of data objects
+                int start = c * data.size() / chunks;
+                int end = (c + 1) * data.size() / chunks;
+                futures[c] = CompletableFuture.runAsync(() -> {
+                    Map<Class<?>, CurrentInstance> old = ui != null
+                            ? CurrentInstance.setCurrent(ui) : null;
+                    try {
+                        for (int i = start; i < end; ++i) {
+                            for (DataGenerator<T> generator : threadSafe) {
+                                generator.generateData(data.get(i),
+                                        dataObjects.get(i));
+                            }
+                        }
+                    } finally {
+                        if (old != null) {
+                            CurrentInstance.restoreInstances(old);
+                        }
+                    }
+                }, executor);
+            }
+
+            try {
+                CompletableFuture.allOf(futures).join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+
+        for (int i = 0; i < data.size(); ++i) {
+            for (DataGenerator<T> generator : other) {
+                generator.generateData(data.get(i), dataObjects.get(i));
+            }
+        }
+        assert dataObjects.stream().noneMatch(
+                DataCommunicator::hasRemovedKey) : RESERVED_KEY_MESSAGE;
+        return dataObjects;
+    }
+
+    /**
+     * Checks whether the reserved key for removed keys has been used in the
+     * given data object or any object nested in it.
+     *
+     * @param dataObject
+     *            the data object to check
+     * @return <code>true</code> if the reserved key is used,
+     *         <code>false</code> if not
+     */
+    private static boolean hasRemovedKey(JsonObject dataObject) {
+        for (String key : dataObject.keys()) {
+            if (DataCommunicatorConstants.REMOVED.equals(key)) {
+                return true;
+            }
+            JsonValue value = dataObject.get(key);
+            if (value.getType() == JsonType.OBJECT
+                    && hasRemovedKey((JsonObject) value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a JSON object describing the changes from one data object to
+     * another. The result contains the values that are new or changed. Changed
+     * nested objects are described the same way recursively. Keys that no
+     * longer exist are listed in an array under
+     * {@link DataCommunicatorConstants#REMOVED}.
+     *
+     * @param previous
+     *            the previously sent data object
+     * @param current
+     *            the current data object
+     * @return json object describing the changes; empty if there are none
+     */
+    private static JsonObject createDiff(JsonObject previous,
+            JsonObject current) {
+        JsonObject diff = Json.createObject();
+        for (String key : current.keys()) {
+            JsonValue value = current.get(key);
+            if (!previous.hasKey(key)) {
+                diff.put(key, value);
+                continue;
+            }
+            JsonValue previousValue = previous.get(key);
+            if (JsonCodec.jsonEquals(previousValue, value)) {
+                continue;
+            }
+            if (value.getType() == JsonType.OBJECT
+                    && previousValue.getType() == JsonType.OBJECT) {
+                diff.put(key, createDiff((JsonObject) previousValue,
+                        (JsonObject) value));
+            } else {
+                diff.put(key, value);
+            }
+        }
+
+        JsonArray removed = Json.createArray();
+        for (String key : previous.keys()) {
+            if (!current.hasKey(key)) {
+                removed.set(removed.length(), key);
+            }
+        }
+        if (removed.length() > 0) {
+            diff.put(DataCommunicatorConstants.REMOVED, removed);
+        }
+        return diff;
+    }
+
+    /**
+     * Gets the data of an in-memory data source with the in-memory filter and
+     * sorting applied. The result is cached until the next {@link #reset()}, so
+     * consecutive row range requests do not need to filter and sort the whole
+     * data set again.
+     *
+     * @return filtered and sorted list of data objects
+     */
+    private List<T> getInMemoryData() {
+        if (inMemoryData == null) {
+            // We can safely request all the data when in memory
+            Stream<T> stream = getDataSource().apply(new Query());
+            if (inMemoryFilter != null) {
+                stream = stream.filter(inMemoryFilter);
+            }
+            if (inMemorySorting != null) {
+                stream = stream.sorted(inMemorySorting);
+            }
+            inMemoryData = stream.collect(Collectors.toList());
+        }
+        return inMemoryData;
+    }
+
+    /**
+     * Gets the size of the filtered in-memory data. If the first rows are
+     * going to be requested and a partial sort is sufficient for them, the
+     * size is counted while selecting the first rows.
+     *
+     * @param rowsNeeded
+     *            the number of first rows that will be requested
+     * @return the size of the filtered in-memory data
+     */
+    private int getInMemorySize(int rowsNeeded) {
+        if (inMemoryData == null && inMemorySize < 0
+                && isPartialSortSufficient(rowsNeeded)) {
+            selectInMemoryHead(rowsNeeded);
+        }
+        if (inMemorySize >= 0) {
+            return inMemorySize;
+        }
+        return getInMemoryData().size();
+    }
+
+    private Stream<T> getInMemoryRows(int offset, int limit) {
+        int end = offset + limit;
+        if (inMemoryData == null) {
+            if (!isInMemoryHeadCovering(end)
+                    && isPartialSortSufficient(end)) {
+                selectInMemoryHead(end);
+            }
+            if (isInMemoryHeadCovering(end)) {
+                int start = Math.min(offset, inMemoryHead.size());
+                return inMemoryHead
+                        .subList(start, Math.min(end, inMemoryHead.size()))
+                        .stream();
+            }
+        }
+
+        List<T> data = getInMemoryData();
+        int start = Math.min(offset, data.size());
+        return data.subList(start, Math.min(end, data.size())).stream();
+    }
+
+    private boolean isInMemoryHeadCovering(int end) {
+        return inMemoryHead != null && (end <= inMemoryHeadLimit
+                || inMemoryHead.size() == inMemorySize);
+    }
+
+    /**
+     * Checks whether the given number of first rows should be selected with a
+     * partial sort instead of sorting all the in-memory data. A partial sort
+     * takes O(n log k) time for k rows, which pays off only when k is small
+     * compared to the size of the data.
+     *
+     * @param count
+     *            the number of first rows needed
+     * @return {@code true} to use a partial sort, {@code false} to sort all
+     *         data
+     */
+    private boolean isPartialSortSufficient(int count) {
+        return inMemorySorting != null && count > 0
+                && count <= MAX_PARTIAL_SORT_ROWS
+                && (long) count * PARTIAL_SORT_RATIO <= getDataSource()
+                        .size(new Query());
+    }
+
+    /**
+     * Selects the given number of first rows of the filtered and sorted
+     * in-memory data in one pass using a bounded heap, and counts the size of
+     * the filtered data at the same time.
+     *
+     * @param count
+     *            the number of first rows to select
+     */
+    private void selectInMemoryHead(int count) {
+        Stream<T> stream = getDataSource().apply(new Query());
+        if (inMemoryFilter != null) {
+            stream = stream.filter(inMemoryFilter);
+        }
+
+        Comparator<T> comparator = inMemorySorting;
+        // Ties are broken by encounter order to match the full stable sort
+        Comparator<IndexedItem<T>> order = Comparator
+                .comparing((IndexedItem<T> indexed) -> indexed.item,
+                        comparator)
+                .thenComparingInt(indexed -> indexed.index);
+        // The last of the selected rows is at the head of the queue
+        PriorityQueue<IndexedItem<T>> heap = new PriorityQueue<>(count + 1,
+                order.reversed());
+        int index = 0;
+        Iterator<T> iterator = stream.iterator();
+        while (iterator.hasNext()) {
+            T item = iterator.next();
+            if (heap.size() < count) {
+                heap.add(new IndexedItem<>(item, index));
+            } else if (comparator.compare(item, heap.peek().item) < 0) {
+                heap.poll();
+                heap.add(new IndexedItem<>(item, index));
+            }
+            ++index;
+        }
+
+        List<IndexedItem<T>> head = new ArrayList<>(heap);
+        head.sort(order);
+        inMemoryHead = head.stream().map(indexed -> indexed.item)
+                .collect(Collectors.toList());
+        inMemoryHeadLimit = count;
+        inMemorySize = index;
+    }
+
+    /**
+     * Checks whether rows fetched asynchronously can be pushed to the client.
+     *
+     * @return {@code true} if server push is enabled for the UI
+     */
+    private boolean isPushEnabled() {
+        UI ui = getUI();
+        return ui != null
+                && ui.getPushConfiguration().getPushMode().isEnabled();
+    }
+
+    private List<T> fetchFromBackEnd(int offset, int limit) {
+        Query query = new Query(offset, limit, backEndSorting, backEndFilters);
+        return getDataSource().apply(query).collect(Collectors.toList());
+    }
+
+    /**
+     * Starts fetching rows from an {@link AsyncBackEndDataSource} without
+     * holding the session lock. The rows are sent to the client in
+     * {@link UI#access(Runnable)} once they are available, unless the data
+     * communicator has been reset or detached in the meantime. With
+     * {@link PushMode#MANUAL manual push}, the rows are pushed to the client
+     * right away.
+     *
+     * @param offset
+     *            the index of the first requested row
+     * @param limit
+     *            the number of requested rows
+     */
+    private void fetchAsync(int offset, int limit) {
+        UI ui = getUI();
+        int generation = fetchGeneration;
+        // Copy the query parameters since they may change during the request
+        Query query = new Query(offset, limit, new ArrayList<>(backEndSorting),
+                new HashSet<>(backEndFilters));
+        ((AsyncBackEndDataSource<T>) getDataSource()).applyAsync(query)
+                .whenComplete((rows, failure) -> {
+                    if (failure != null) {
+                        sendFetchedRows(ui, generation, offset, null, failure);
+                        return;
+                    }
+                    // Read the rows before locking the session
+                    List<T> fetched;
+                    try {
+                        fetched = rows.collect(Collectors.toList());
+                    } catch (RuntimeException e) {
+                        sendFetchedRows(ui, generation, offset, null, e);
+                        return;
+                    }
+                    sendFetchedRows(ui, generation, offset, fetched, null);
+                });
+    }
+
+    /**
+     * Sends rows fetched by {@link #fetchAsync(int, int)} to the client, or
+     * reports the failure to fetch them, in an access task for the given UI.
+     *
+     * @param ui
+     *            the UI the rows were fetched for
+     * @param generation
+     *            the fetch generation when the rows were requested
+     * @param offset
+     *            the index of the first fetched row
+     * @param fetched
+     *            the fetched rows, or <code>null</code> if fetching failed
+     * @param failure
+     *            the reason fetching failed, or <code>null</code>
+     */
+    private void sendFetchedRows(UI ui, int generation, int offset,
+            List<T> fetched, Throwable failure) {
+        try {
+            ui.access(() -> {
+                if (generation != fetchGeneration || getUI() != ui) {
+                    return;
+                }
+                if (failure != null) {
+                    throw new IllegalStateException(
+                            "Fetching rows from the back end failed",
+                            failure);
+                }
+                pushData(offset, fetched.stream());
+                if (ui.getPushConfiguration()
+                        .getPushMode() == PushMode.MANUAL) {
+                    // Nothing else would push the rows to the client
+                    ui.push();
+                }
+            });
+        } catch (UIDetachedException e) {
+            // Nothing to send to a detached UI
+        }
+    }
+
     /**
      * Drops data objects identified by given keys from memory. This will invoke
      * {@link DataGenerator#destroyData} for each of those objects.
@@ -373,6 +901,13 @@ public class DataCommunicator<T> extends AbstractExtension {
      * Informs the DataProvider that the collection has changed.
      */
     public void reset() {
+        inMemoryData = null;
+        inMemoryHead = null;
+        inMemorySize = -1;
+        ++fetchGeneration;
+        if (readAheadCache != null) {
+            readAheadCache.clear();
+        }
         if (reset) {
             return;
         }
@@ -388,7 +923,11 @@ public class DataCommunicator<T> extends AbstractExtension {
      *            updated data object
      */
     public void refresh(T data) {
-        if (!handler.getActiveData().contains(data)) {
+        if (readAheadCache != null) {
+            // The cache might hold an older instance of the item
+            readAheadCache.replace(data);
+        }
+        if (!handler.isActive(data)) {
             // Item is not currently available at the client-side
             return;
         }
@@ -422,6 +961,74 @@ public class DataCommunicator<T> extends AbstractExtension {
         reset();
     }
 
+    /**
+     * Sets the executor to use for generating data for multiple data objects
+     * concurrently. Data generators that are {@link DataGenerator#isThreadSafe()
+     * thread safe} are run in the executor for different data objects, while
+     * the request thread waits for them to finish. The other data generators
+     * are then run in the request thread. By default there is no executor and
+     * all data is generated in the request thread.
+     * <p>
+     * The executor should be bounded and shared between data communicators.
+     * The executor is not serialized with this data communicator, so it needs
+     * to be set again after deserialization.
+     *
+     * @param executor
+     *            the executor to use, or {@code null} to generate all data in
+     *            the request thread
+     */
+    public void setDataGenerationExecutor(Executor executor) {
+        dataGenerationExecutor = executor;
+    }
+
+    /**
+     * Gets the executor used for generating data for multiple data objects
+     * concurrently.
+     *
+     * @return the executor, or {@code null} if all data is generated in the
+     *         request thread
+     */
+    public Executor getDataGenerationExecutor() {
+        return dataGenerationExecutor;
+    }
+
+    /**
+     * Sets the maximum number of rows to fetch ahead from a back end data
+     * source. When the client-side requests rows that have not been fetched
+     * ahead, the rows expected to be requested next are fetched in the same
+     * query. The amount of rows to fetch ahead grows with the distance between
+     * consecutive requests, and rows are fetched before the requested rows
+     * when scrolling up. Rows fetched ahead are kept until the next
+     * {@link #reset()}.
+     * <p>
+     * By default nothing is fetched ahead. This has no effect on in-memory
+     * data sources or on an {@link AsyncBackEndDataSource} used with server
+     * push.
+     *
+     * @param maxRows
+     *            the maximum number of rows to fetch in addition to the
+     *            requested rows, or {@code 0} to only fetch the requested rows
+     */
+    public void setBackEndReadAhead(int maxRows) {
+        if (maxRows < 0) {
+            throw new IllegalArgumentException(
+                    "Read-ahead row count cannot be negative");
+        }
+        readAheadCache = maxRows > 0 ? new ReadAheadCache<>(maxRows) : null;
+        backEndReadAhead = maxRows;
+    }
+
+    /**
+     * Gets the maximum number of rows to fetch ahead from a back end data
+     * source.
+     *
+     * @return the maximum number of rows to fetch in addition to the
+     *         requested rows
+     */
+    public int getBackEndReadAhead() {
+        return backEndReadAhead;
+    }
+
     /**
      * Sets the {@link SortOrder}s to use with backend sorting.
      *
@@ -434,10 +1041,26 @@ public class DataCommunicator<T> extends AbstractExtension {
         reset();
     }
 
+    /**
+     * Sets the filters to use with backend filtering. The filters are passed to
+     * the data source in the {@link Query} of both data and size requests.
+     *
+     * @param filters
+     *            set of back end filters to pass to a query
+     */
+    public void setBackEndFilters(Set<Object> filters) {
+        backEndFilters.clear();
+        backEndFilters.addAll(filters);
+        reset();
+    }
+
     /**
      * Creates a {@link DataKeyMapper} to use with this DataCommunicator.
      * <p>
-     * This method is called from the constructor.
+     * This method is called from the constructor. The default implementation
+     * returns a {@link KeyMapper}. Listings with large amounts of active data
+     * can override this to return a {@link CompactKeyMapper}, which uses less
+     * memory per key.
      *
      * @return key mapper
      */
@@ -16,6 +16,9 @@
 package com.vaadin.server.data;
 
 import java.io.Serializable;
+import java.util.concurrent.Executor;
+
+import com.vaadin.shared.data.DataCommunicatorConstants;
 
 import elemental.json.JsonObject;
 
@@ -36,6 +39,9 @@ public interface DataGenerator<T> extends Serializable {
     /**
      * Adds custom data for the given item to its serialized {@code JsonObject}
      * representation. This JSON object will be sent to client-side DataSource.
+     * <p>
+     * The key {@link DataCommunicatorConstants#REMOVED} is reserved and must
+     * not be written to the JSON object or to any object nested in it.
      *
      * @param item
      *            the data item being serialized
@@ -54,4 +60,21 @@ public interface DataGenerator<T> extends Serializable {
      */
     public default void destroyData(T item) {
     }
+
+    /**
+     * Gets whether this data generator can generate data for different items
+     * concurrently in separate threads. Such generators must not modify any
+     * shared state, and they are run without holding the session lock.
+     * <p>
+     * Thread safe data generators are only run concurrently if the
+     * {@link DataCommunicator} has been given an executor for data generation.
+     *
+     * @see DataCommunicator#setDataGenerationExecutor(Executor)
+     *
+     * @return {@code true} if this data generator is thread safe;
+     *         {@code false} if not
+     */
+    public default boolean isThreadSafe() {
+        return false;
+    }
 }
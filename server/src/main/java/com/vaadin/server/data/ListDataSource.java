@@ -15,27 +15,62 @@
  */
 package com.vaadin.server.data;
 
+import java.io.Serializable;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import com.vaadin.shared.Registration;
+
 /**
- * {@link DataSource} wrapper for {@link Collection}s. This class does not
- * actually handle the {@link Query} parameters.
+ * {@link DataSource} wrapper for {@link Collection}s. This class only handles
+ * the offset and limit of a {@link Query}; filters and sort orders are ignored.
+ * <p>
+ * The collection is not copied. A list data source with a sort order keeps a
+ * sorted snapshot of the data, so that consecutive queries do not need to sort
+ * all the data again. After the backing collection has been modified,
+ * {@link #refreshAll()} must be called for the changes to be visible through
+ * sorted data sources and for listeners to be notified. Until then, sorted
+ * data sources may return the items as they were when last sorted.
+ * <p>
+ * Data sources created with {@link #sortingBy(Comparator)} share the data and
+ * listeners of the data source they were created from. Calling
+ * {@link #refreshAll()} on any of them refreshes all of them, and listeners
+ * added to any of them are notified.
  *
  * @param <T>
  *            data type
  */
 public class ListDataSource<T> extends AbstractDataSource<T> {
 
+    /**
+     * Sorted data together with the version it was created for.
+     */
+    private static class Snapshot<T> implements Serializable {
+        private final long version;
+        private final List<T> items;
+
+        private Snapshot(long version, List<T> items) {
+            this.version = version;
+            this.items = items;
+        }
+    }
+
     private Comparator<T> sortOrder;
     private final Collection<T> backend;
+    private ListDataSource<T> source;
+    private final AtomicLong version = new AtomicLong();
+    private transient Snapshot<T> snapshot;
 
     /**
-     * Constructs a new ListDataSource. This method makes a protective copy of
-     * the contents of the Collection.
+     * Constructs a new ListDataSource. The collection is not copied, so
+     * {@link #refreshAll()} must be called after modifying it.
      *
      * @param items
      *            the initial data, not null
@@ -64,11 +99,80 @@ public class ListDataSource<T> extends AbstractDataSource<T> {
 
     @Override
     public Stream<T> apply(Query query) {
-        Stream<T> stream = backend.stream();
-        if (sortOrder != null) {
-            stream = stream.sorted(sortOrder);
+        int offset = query.getOffset();
+        int limit = query.getLimit();
+        if (sortOrder == null) {
+            return backend.stream().skip(offset).limit(limit);
+        }
+
+        List<T> items = getSortedItems();
+        int start = Math.min(offset, items.size());
+        int end = (int) Math.min((long) offset + limit, items.size());
+        return items.subList(start, end).stream();
+    }
+
+    private List<T> getSortedItems() {
+        long currentVersion = getVersion();
+        // Read the field once since the data source can be shared by sessions
+        Snapshot<T> current = snapshot;
+        if (current == null || current.version != currentVersion) {
+            List<T> sorted = backend.stream().sorted(sortOrder)
+                    .collect(Collectors.toList());
+            current = new Snapshot<>(currentVersion,
+                    Collections.unmodifiableList(sorted));
+            snapshot = current;
+        }
+        return current.items;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This also updates the version of this data source and of all data
+     * sources created from the same collection with
+     * {@link #sortingBy(Comparator)}. For a data source created with
+     * {@link #sortingBy(Comparator)}, the call is forwarded to the data source
+     * it was created from.
+     */
+    @Override
+    public void refreshAll() {
+        if (source != null) {
+            source.refreshAll();
+        } else {
+            version.incrementAndGet();
+            super.refreshAll();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * For a data source created with {@link #sortingBy(Comparator)}, the
+     * listener is added to the data source it was created from, so that it is
+     * notified when any data source sharing the same collection is refreshed.
+     */
+    @Override
+    public Registration addDataSourceListener(DataSourceListener listener) {
+        if (source != null) {
+            return source.addDataSourceListener(listener);
+        }
+        return super.addDataSourceListener(listener);
+    }
+
+    /**
+     * Gets the version of the data in this data source. The version changes
+     * each time {@link #refreshAll()} is called for this data source or any
+     * data source sharing the same collection. Callers sharing this data
+     * source can compare versions to find out whether data they previously
+     * fetched from it is still current.
+     *
+     * @return the version of the data
+     */
+    public long getVersion() {
+        if (source != null) {
+            return source.getVersion();
         }
-        return stream;
+        return version.get();
     }
 
     /**
@@ -82,7 +186,9 @@ public class ListDataSource<T> extends AbstractDataSource<T> {
      * @return new data source with modified sorting
      */
     public ListDataSource<T> sortingBy(Comparator<T> sortOrder) {
-        return new ListDataSource<>(backend, sortOrder);
+        ListDataSource<T> sorted = new ListDataSource<>(backend, sortOrder);
+        sorted.source = this;
+        return sorted;
     }
 
     /**
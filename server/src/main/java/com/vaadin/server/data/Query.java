@@ -18,6 +18,8 @@ package com.vaadin.server.data;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -117,4 +119,22 @@ public class Query implements Serializable {
     public Set<Object> getFilters() {
         return filters;
     }
+
+    /**
+     * Gets the first filter of the given type for items to fetch. This can be
+     * used by back end callbacks to find the filter they understand without
+     * casting the contents of {@link #getFilters()}.
+     *
+     * @param filterType
+     *            the type of the filter, not null
+     * @param <F>
+     *            the filter type
+     * @return the first filter of the given type, or an empty optional if
+     *         there is no such filter
+     */
+    public <F> Optional<F> getFilter(Class<F> filterType) {
+        Objects.requireNonNull(filterType, "filter type cannot be null");
+        return filters.stream().filter(filterType::isInstance)
+                .map(filterType::cast).findFirst();
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/**
+ * Cache of rows fetched ahead of the requested range from a back end data
+ * source. The amount of rows fetched ahead is based on the direction and
+ * distance between consecutive requests, so that scrolling quickly through
+ * the data is served with fewer and larger back end queries.
+ *
+ * @param <T>
+ *            data type
+ *
+ * @see DataCommunicator#setBackEndReadAhead(int)
+ *
+ * @since 8.0
+ */
+class ReadAheadCache<T> implements Serializable {
+
+    private final int maxReadAhead;
+
+    private List<T> rows = Collections.emptyList();
+    private int start = 0;
+    private boolean endReached = false;
+    private int previousOffset = -1;
+
+    /**
+     * Creates a new read-ahead cache.
+     *
+     * @param maxReadAhead
+     *            the maximum number of rows to fetch in addition to the
+     *            requested rows
+     */
+    public ReadAheadCache(int maxReadAhead) {
+        this.maxReadAhead = maxReadAhead;
+    }
+
+    /**
+     * Gets the requested rows from the cache, or fetches them together with
+     * the rows expected to be requested next if they are not cached.
+     *
+     * @param offset
+     *            the index of the first requested row
+     * @param limit
+     *            the number of requested rows
+     * @param fetcher
+     *            function for fetching a list of rows with an offset and a
+     *            limit from the back end
+     * @return list of requested rows
+     */
+    public List<T> get(int offset, int limit,
+            BiFunction<Integer, Integer, List<T>> fetcher) {
+        int distance = previousOffset < 0 ? 0 : offset - previousOffset;
+        previousOffset = offset;
+
+        if (!isCached(offset, limit)) {
+            int readAhead = Math.min(maxReadAhead,
+                    Math.max(limit, 2 * Math.abs(distance)));
+            int fetchStart;
+            int fetchLimit;
+            if (distance < 0) {
+                // Scrolling up, read ahead before the requested rows
+                fetchStart = Math.max(0, offset - readAhead);
+                fetchLimit = offset + limit - fetchStart;
+            } else {
+                fetchStart = offset;
+                fetchLimit = limit + readAhead;
+            }
+            rows = fetcher.apply(fetchStart, fetchLimit);
+            start = fetchStart;
+            endReached = rows.size() < fetchLimit;
+        }
+
+        int from = Math.min(offset - start, rows.size());
+        int to = Math.min(offset - start + limit, rows.size());
+        return rows.subList(from, to);
+    }
+
+    /**
+     * Replaces cached rows equal to the given item with the item, so that an
+     * updated instance of the item is returned instead of the one fetched
+     * earlier.
+     *
+     * @param item
+     *            the updated item
+     */
+    public void replace(T item) {
+        List<T> updated = null;
+        for (int i = 0; i < rows.size(); i++) {
+            if (Objects.equals(rows.get(i), item)) {
+                if (updated == null) {
+                    updated = new ArrayList<>(rows);
+                }
+                updated.set(i, item);
+            }
+        }
+        if (updated != null) {
+            rows = updated;
+        }
+    }
+
+    /**
+     * Removes all cached rows.
+     */
+    public void clear() {
+        rows = Collections.emptyList();
+        start = 0;
+        endReached = false;
+        previousOffset = -1;
+    }
+
+    private boolean isCached(int offset, int limit) {
+        if (offset < start) {
+            return false;
+        }
+        // Rows after the end of the data do not need to be fetched again
+        return endReached || offset + limit <= start + rows.size();
+    }
+}
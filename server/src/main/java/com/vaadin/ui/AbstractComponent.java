@@ -297,7 +297,8 @@ public abstract class AbstractComponent extends AbstractClientConnector
      */
     @Override
     public void setCaption(String caption) {
-        getState().caption = caption;
+        getState(false).caption = caption;
+        markStatePropertyDirty("caption");
     }
 
     /**
@@ -314,7 +315,8 @@ public abstract class AbstractComponent extends AbstractClientConnector
      *            as plain text
      */
     public void setCaptionAsHtml(boolean captionAsHtml) {
-        getState().captionAsHtml = captionAsHtml;
+        getState(false).captionAsHtml = captionAsHtml;
+        markStatePropertyDirty("captionAsHtml");
     }
 
     /**
@@ -500,6 +502,10 @@ public abstract class AbstractComponent extends AbstractClientConnector
         }
 
         this.visible = visible;
+        UI ui = getUI();
+        if (ui != null) {
+            ui.getConnectorTracker().markVisibilityChanged(this);
+        }
         if (visible) {
             /*
              * If the visibility state is toggled from invisible to visible it
@@ -538,7 +544,8 @@ public abstract class AbstractComponent extends AbstractClientConnector
      *            the new description string for the component.
      */
     public void setDescription(String description) {
-        getState().description = description;
+        getState(false).description = description;
+        markStatePropertyDirty("description");
     }
 
     /*
@@ -18,6 +18,7 @@ package com.vaadin.ui;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Objects;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -36,6 +37,7 @@ import com.vaadin.server.ResourceReference;
 import com.vaadin.server.data.DataCommunicator;
 import com.vaadin.server.data.DataKeyMapper;
 import com.vaadin.server.data.DataSource;
+import com.vaadin.server.data.Query;
 import com.vaadin.shared.Registration;
 import com.vaadin.shared.data.DataCommunicatorConstants;
 import com.vaadin.shared.ui.combobox.ComboBoxConstants;
@@ -153,8 +155,13 @@ public class ComboBox<T> extends AbstractSingleSelect<T> implements HasValue<T>,
             if (filterText != null) {
                 getDataCommunicator().setInMemoryFilter(
                         item -> filter.apply(filterstring, item));
+                // Back end data sources get the filter text in the query
+                getDataCommunicator()
+                        .setBackEndFilters(Collections.singleton(filterText));
             } else {
                 getDataCommunicator().setInMemoryFilter(null);
+                getDataCommunicator()
+                        .setBackEndFilters(Collections.emptySet());
             }
         }
     };
@@ -563,6 +570,10 @@ public class ComboBox<T> extends AbstractSingleSelect<T> implements HasValue<T>,
      * Sets the filter used to customize the list based on user input. The
      * default filter checks case-insensitively that the input string is
      * contained in the item caption.
+     * <p>
+     * The filter is only used with in-memory data sources. Data sources that
+     * are not in memory receive the input string as a filter in their
+     * {@link Query}, available through {@code query.getFilter(String.class)}.
      *
      * @param filter
      *            the filter function to use, not null
@@ -19,10 +19,12 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Set;
@@ -34,12 +36,14 @@ import java.util.logging.Logger;
 import com.vaadin.server.AbstractClientConnector;
 import com.vaadin.server.ClientConnector;
 import com.vaadin.server.DragAndDropService;
+import com.vaadin.server.EncodedValueCache;
 import com.vaadin.server.GlobalResourceHandler;
 import com.vaadin.server.LegacyCommunicationManager;
 import com.vaadin.server.StreamVariable;
 import com.vaadin.server.VaadinRequest;
 import com.vaadin.server.VaadinService;
 import com.vaadin.server.communication.ConnectorHierarchyWriter;
+import com.vaadin.server.communication.StateKeyDictionary;
 
 import elemental.json.Json;
 import elemental.json.JsonException;
@@ -69,6 +73,13 @@ public class ConnectorTracker implements Serializable {
 
     private final HashMap<String, ClientConnector> connectorIdToConnector = new HashMap<>();
     private Set<ClientConnector> dirtyConnectors = new HashSet<>();
+
+    /**
+     * Connectors in the order they have been marked dirty since all
+     * connectors were last marked clean.
+     */
+    private final List<ClientConnector> dirtyConnectorQueue = new ArrayList<>();
+
     private Set<ClientConnector> uninitializedConnectors = new HashSet<>();
 
     /**
@@ -80,9 +91,45 @@ public class ConnectorTracker implements Serializable {
 
     private boolean writingResponse = false;
 
+    private boolean stateChangeTracking = false;
+
+    /**
+     * Connectors that have only been marked dirty by getting their state while
+     * state change tracking is enabled. These connectors are marked clean if
+     * their state turns out to be unchanged when the response is written.
+     */
+    private final Set<ClientConnector> stateOnlyDirtyConnectors = new HashSet<>();
+
+    /**
+     * The names of the state properties written to for connectors that have
+     * only been marked dirty through
+     * {@link #markStatePropertyDirty(ClientConnector, String)}. Only these
+     * properties are encoded when the response is written. A dirty connector
+     * without an entry has its whole state encoded.
+     */
+    private final Map<ClientConnector, Set<String>> writtenStateProperties = new HashMap<>();
+
     private UI uI;
     private transient Map<ClientConnector, JsonObject> diffStates = new HashMap<>();
 
+    /**
+     * Cached results of {@link #isConnectorVisibleToClient(ClientConnector)}.
+     * The parent of a cached connector is always cached as well, so that
+     * invalidating a connector and its descendants can stop at the first
+     * connector that is not cached.
+     */
+    private transient Map<ClientConnector, Boolean> visibleToClient = new HashMap<>();
+
+    /**
+     * The ids of the visible children of each connector, as last sent to the
+     * client.
+     */
+    private Map<ClientConnector, List<String>> sentHierarchies = new HashMap<>();
+
+    private StateKeyDictionary stateKeyDictionary;
+
+    private transient EncodedValueCache encodedValueCache;
+
     /** Maps connectorIds to a map of named StreamVariables */
     private Map<String, Map<String, StreamVariable>> pidToNameToStreamVariable;
 
@@ -153,7 +200,10 @@ public class ConnectorTracker implements Serializable {
                     new Object[] { connector.getClass().getSimpleName(),
                             connectorId });
         }
-        dirtyConnectors.add(connector);
+        markVisibilityChanged(connector);
+        if (dirtyConnectors.add(connector)) {
+            dirtyConnectorQueue.add(connector);
+        }
     }
 
     /**
@@ -192,6 +242,9 @@ public class ConnectorTracker implements Serializable {
         unregisteredConnectorIds.add(connectorId);
 
         dirtyConnectors.remove(connector);
+        stateOnlyDirtyConnectors.remove(connector);
+        writtenStateProperties.remove(connector);
+        visibleToClient.remove(connector);
         if (unregisteredConnectors.add(connector)) {
             if (getLogger().isLoggable(Level.FINE)) {
                 getLogger().log(Level.FINE, "Unregistered {0} ({1})",
@@ -246,6 +299,7 @@ public class ConnectorTracker implements Serializable {
     public void markAllClientSidesUninitialized() {
         uninitializedConnectors.addAll(connectorIdToConnector.values());
         diffStates.clear();
+        sentHierarchies.clear();
     }
 
     /**
@@ -297,6 +351,10 @@ public class ConnectorTracker implements Serializable {
         while (iterator.hasNext()) {
             ClientConnector connector = iterator.next();
             assert connector != null;
+            if (isConnectorVisibleToClient(connector)) {
+                // Only connectors attached to this UI can be visible
+                continue;
+            }
             if (connector.getUI() != uI) {
                 // If connector is no longer part of this uI,
                 // remove it from the map. If it is re-attached to the
@@ -315,12 +373,13 @@ public class ConnectorTracker implements Serializable {
                 }
                 uninitializedConnectors.remove(connector);
                 diffStates.remove(connector);
+                sentHierarchies.remove(connector);
+                visibleToClient.remove(connector);
                 iterator.remove();
-            } else if (!uninitializedConnectors.contains(connector)
-                    && !LegacyCommunicationManager
-                            .isConnectorVisibleToClient(connector)) {
+            } else if (!uninitializedConnectors.contains(connector)) {
                 uninitializedConnectors.add(connector);
                 diffStates.remove(connector);
+                sentHierarchies.remove(connector);
 
                 assert isRemovalSentToClient(connector) : "Connector "
                         + connector + " (id = " + connector.getConnectorId()
@@ -394,12 +453,12 @@ public class ConnectorTracker implements Serializable {
         return true;
     }
 
-    private static boolean hasVisibleChild(ClientConnector parent) {
+    private boolean hasVisibleChild(ClientConnector parent) {
         Iterator<? extends ClientConnector> iterator = AbstractClientConnector
                 .getAllChildrenIterable(parent).iterator();
         while (iterator.hasNext()) {
             ClientConnector child = iterator.next();
-            if (LegacyCommunicationManager.isConnectorVisibleToClient(child)) {
+            if (isConnectorVisibleToClient(child)) {
                 return true;
             }
         }
@@ -409,8 +468,7 @@ public class ConnectorTracker implements Serializable {
     private ClientConnector findFirstVisibleParent(ClientConnector connector) {
         while (connector != null) {
             connector = connector.getParent();
-            if (LegacyCommunicationManager
-                    .isConnectorVisibleToClient(connector)) {
+            if (connector != null && isConnectorVisibleToClient(connector)) {
                 return connector;
             }
         }
@@ -431,6 +489,8 @@ public class ConnectorTracker implements Serializable {
             }
             uninitializedConnectors.remove(connector);
             diffStates.remove(connector);
+            sentHierarchies.remove(connector);
+            visibleToClient.remove(connector);
         }
         unregisteredConnectors.clear();
     }
@@ -497,7 +557,178 @@ public class ConnectorTracker implements Serializable {
             }
         }
 
-        dirtyConnectors.add(connector);
+        // Hierarchy and visibility changes always mark the changed connector
+        // or its parent dirty
+        markVisibilityChanged(connector);
+        if (dirtyConnectors.add(connector)) {
+            dirtyConnectorQueue.add(connector);
+        }
+        stateOnlyDirtyConnectors.remove(connector);
+        writtenStateProperties.remove(connector);
+    }
+
+    /**
+     * Marks the connector as dirty because its shared state has been requested
+     * for modification. Does nothing if the connector is already dirty or if
+     * the response is being written.
+     * <p>
+     * If state change tracking is enabled, the connector is marked clean again
+     * when the response is written if its state has not changed and it has not
+     * been marked dirty for any other reason.
+     *
+     * @see #setStateChangeTracking(boolean)
+     * @see #markStateUnchanged(ClientConnector)
+     *
+     * @param connector
+     *            the connector whose state has been requested
+     * @since 8.0
+     */
+    public void markStateDirty(ClientConnector connector) {
+        if (isWritingResponse()) {
+            return;
+        }
+        if (isDirty(connector)) {
+            // The state change might still affect the visibility of the
+            // connector or its children
+            markVisibilityChanged(connector);
+            // Any property might be written through the returned state
+            writtenStateProperties.remove(connector);
+            return;
+        }
+        markDirty(connector);
+        if (stateChangeTracking) {
+            stateOnlyDirtyConnectors.add(connector);
+        }
+    }
+
+    /**
+     * Marks the connector as dirty because the given property of its shared
+     * state has been written to. If state change tracking is enabled and the
+     * connector has not been marked dirty for any other reason, only the
+     * written properties are encoded when the response is written. Otherwise
+     * this is the same as {@link #markStateDirty(ClientConnector)}.
+     *
+     * @see #setStateChangeTracking(boolean)
+     * @see #getWrittenStateProperties(ClientConnector)
+     *
+     * @param connector
+     *            the connector whose state has been written to
+     * @param propertyName
+     *            the name of the written state property
+     * @since 8.0
+     */
+    public void markStatePropertyDirty(ClientConnector connector,
+            String propertyName) {
+        if (!stateChangeTracking) {
+            markStateDirty(connector);
+            return;
+        }
+        if (isWritingResponse()) {
+            return;
+        }
+        if (isDirty(connector)) {
+            markVisibilityChanged(connector);
+        } else {
+            markDirty(connector);
+            stateOnlyDirtyConnectors.add(connector);
+            writtenStateProperties.put(connector, new HashSet<>());
+        }
+        Set<String> properties = writtenStateProperties.get(connector);
+        if (properties != null) {
+            properties.add(propertyName);
+        }
+    }
+
+    /**
+     * Gets the names of the state properties that have been written to since
+     * the connector was last clean, if those are the only changes to the
+     * connector. Returns <code>null</code> if the whole state should be
+     * encoded, e.g. because the connector has been marked dirty by
+     * {@link #markDirty(ClientConnector)} or by getting its state through
+     * {@link com.vaadin.server.AbstractClientConnector#getState()}.
+     *
+     * @see #markStatePropertyDirty(ClientConnector, String)
+     *
+     * @param connector
+     *            the connector to check
+     * @return an unmodifiable set of the written property names, or
+     *         <code>null</code> to encode all properties
+     * @since 8.0
+     */
+    public Set<String> getWrittenStateProperties(ClientConnector connector) {
+        Set<String> properties = writtenStateProperties.get(connector);
+        if (properties == null) {
+            return null;
+        }
+        return Collections.unmodifiableSet(properties);
+    }
+
+    /**
+     * Marks the connector as clean if its state was found to be unchanged when
+     * writing the response and the connector has only been marked dirty
+     * through {@link #markStateDirty(ClientConnector)} or
+     * {@link #markStatePropertyDirty(ClientConnector, String)}. A connector
+     * that is not
+     * yet initialized on the client side is never marked clean.
+     *
+     * @param connector
+     *            the connector whose state is unchanged
+     * @return <code>true</code> if the connector was marked clean,
+     *         <code>false</code> if it remains dirty
+     * @since 8.0
+     */
+    public boolean markStateUnchanged(ClientConnector connector) {
+        if (!stateOnlyDirtyConnectors.remove(connector)
+                || !isClientSideInitialized(connector)) {
+            return false;
+        }
+        markClean(connector);
+        return true;
+    }
+
+    /**
+     * Sets whether connectors marked dirty only by getting their shared state
+     * should be left out of the response if their state has not changed.
+     * <p>
+     * By default, {@link com.vaadin.server.AbstractClientConnector#getState()}
+     * marks the connector dirty, and a dirty connector is included in the
+     * response with its type and hierarchy even if the state is unchanged.
+     * With state change tracking enabled, such connectors are marked clean
+     * again once their state has been compared with the state last sent to
+     * the client. Connectors marked dirty only through
+     * {@link #markStatePropertyDirty(ClientConnector, String)} have only the
+     * written properties encoded and compared. This is disabled by default
+     * since connectors that override
+     * {@link com.vaadin.server.ClientConnector#beforeClientResponse(boolean)}
+     * or write to their state through other means than the shared state
+     * object might rely on always being included in the response.
+     *
+     * @param stateChangeTracking
+     *            <code>true</code> to leave connectors with unchanged state
+     *            out of the response, <code>false</code> to always include
+     *            connectors marked dirty
+     * @since 8.0
+     */
+    public void setStateChangeTracking(boolean stateChangeTracking) {
+        this.stateChangeTracking = stateChangeTracking;
+        if (!stateChangeTracking) {
+            stateOnlyDirtyConnectors.clear();
+            writtenStateProperties.clear();
+        }
+    }
+
+    /**
+     * Checks whether connectors marked dirty only by getting their shared
+     * state are left out of the response if their state has not changed.
+     *
+     * @see #setStateChangeTracking(boolean)
+     *
+     * @return <code>true</code> if state change tracking is enabled,
+     *         <code>false</code> otherwise
+     * @since 8.0
+     */
+    public boolean isStateChangeTracking() {
+        return stateChangeTracking;
     }
 
     /**
@@ -515,6 +746,8 @@ public class ConnectorTracker implements Serializable {
         }
 
         dirtyConnectors.remove(connector);
+        stateOnlyDirtyConnectors.remove(connector);
+        writtenStateProperties.remove(connector);
     }
 
     /**
@@ -571,6 +804,9 @@ public class ConnectorTracker implements Serializable {
      */
     public void markAllConnectorsClean() {
         dirtyConnectors.clear();
+        dirtyConnectorQueue.clear();
+        stateOnlyDirtyConnectors.clear();
+        writtenStateProperties.clear();
         getLogger().fine("All connectors are now clean");
     }
 
@@ -626,13 +862,98 @@ public class ConnectorTracker implements Serializable {
         ArrayList<ClientConnector> dirtyVisibleConnectors = new ArrayList<>(
                 dirtyConnectors.size());
         for (ClientConnector c : dirtyConnectors) {
-            if (LegacyCommunicationManager.isConnectorVisibleToClient(c)) {
+            if (isConnectorVisibleToClient(c)) {
                 dirtyVisibleConnectors.add(c);
             }
         }
         return dirtyVisibleConnectors;
     }
 
+    /**
+     * Returns the connectors in the order they have been marked dirty since
+     * all connectors were last marked clean. Connectors marked dirty while the
+     * list is being iterated are added to the end of the list, which makes it
+     * possible to process the dirty connectors as a work queue without
+     * copying the set of dirty connectors.
+     * <p>
+     * The list may contain connectors that have been marked clean after they
+     * were marked dirty, and a connector that has been marked clean and then
+     * dirty again is included twice. Use {@link #isDirty(ClientConnector)} to
+     * check whether a connector in the list is still dirty.
+     *
+     * @return an unmodifiable list of connectors in the order they have been
+     *         marked dirty
+     * @since 8.0
+     */
+    public List<ClientConnector> getDirtyConnectorQueue() {
+        return Collections.unmodifiableList(dirtyConnectorQueue);
+    }
+
+    /**
+     * Checks if the given connector is visible to the client, i.e. if its
+     * state and hierarchy should be sent to the client. This gives the same
+     * result as
+     * {@link LegacyCommunicationManager#isConnectorVisibleToClient(ClientConnector)}
+     * but caches the result for connectors attached to this UI.
+     * <p>
+     * The cached result for a connector and its descendants is discarded when
+     * the connector is marked dirty, registered or made visible or invisible,
+     * and a {@link SelectiveRenderer} must mark itself dirty when the set of
+     * rendered children changes.
+     *
+     * @see #markVisibilityChanged(ClientConnector)
+     *
+     * @param connector
+     *            the connector to check, not null
+     * @return <code>true</code> if the connector is visible to the client,
+     *         <code>false</code> otherwise
+     * @since 8.0
+     */
+    public boolean isConnectorVisibleToClient(ClientConnector connector) {
+        ClientConnector parent = connector.getParent();
+        if (parent == null && connector != uI) {
+            // Not attached to this UI, don't cache
+            return false;
+        }
+        Boolean visible = visibleToClient.get(connector);
+        if (visible == null) {
+            // Check the parent first so that it is cached before the connector
+            visible = parent == null || isConnectorVisibleToClient(parent);
+            if (visible && connector instanceof Component) {
+                Component component = (Component) connector;
+                visible = component.isVisible()
+                        && !(parent instanceof SelectiveRenderer
+                                && !((SelectiveRenderer) parent)
+                                        .isRendered(component));
+            }
+            visibleToClient.put(connector, visible);
+        }
+        return visible;
+    }
+
+    /**
+     * Notifies the tracker that the visibility to the client of the given
+     * connector and its descendants might have changed, discarding their
+     * cached visibility. This is done automatically when a connector is marked
+     * dirty, attached or detached, and when the visibility of a component
+     * changes.
+     *
+     * @see #isConnectorVisibleToClient(ClientConnector)
+     *
+     * @param connector
+     *            the connector whose visibility might have changed, not null
+     * @since 8.0
+     */
+    public void markVisibilityChanged(ClientConnector connector) {
+        if (visibleToClient.remove(connector) != null) {
+            // Descendants can only be cached if the connector is cached
+            for (ClientConnector child : AbstractClientConnector
+                    .getAllChildrenIterable(connector)) {
+                markVisibilityChanged(child);
+            }
+        }
+    }
+
     public JsonObject getDiffState(ClientConnector connector) {
         assert getConnector(connector.getConnectorId()) == connector;
         return diffStates.get(connector);
@@ -643,6 +964,80 @@ public class ConnectorTracker implements Serializable {
         diffStates.put(connector, diffState);
     }
 
+    /**
+     * Gets the ids of the visible children of the given connector as they
+     * were last sent to the client.
+     *
+     * @param connector
+     *            the connector to get the hierarchy for
+     * @return a list of child connector ids, or <code>null</code> if the
+     *         hierarchy of the connector has not been sent to the client
+     * @since 8.0
+     */
+    public List<String> getSentHierarchy(ClientConnector connector) {
+        assert getConnector(connector.getConnectorId()) == connector;
+        return sentHierarchies.get(connector);
+    }
+
+    /**
+     * Stores the ids of the visible children of the given connector as they
+     * have been sent to the client.
+     *
+     * @param connector
+     *            the connector to set the hierarchy for
+     * @param childIds
+     *            a list of child connector ids, not <code>null</code>
+     * @since 8.0
+     */
+    public void setSentHierarchy(ClientConnector connector,
+            List<String> childIds) {
+        assert getConnector(connector.getConnectorId()) == connector;
+        sentHierarchies.put(connector, childIds);
+    }
+
+    /**
+     * Gets the dictionary of shared state property names sent to the client
+     * when compact state encoding is enabled.
+     *
+     * @see com.vaadin.server.DeploymentConfiguration#isCompactStateEncoding()
+     *
+     * @return the state key dictionary of this UI, not null
+     * @since 8.0
+     */
+    public StateKeyDictionary getStateKeyDictionary() {
+        if (stateKeyDictionary == null) {
+            stateKeyDictionary = new StateKeyDictionary();
+        }
+        return stateKeyDictionary;
+    }
+
+    /**
+     * Gets the cache of encoded state values shared with other UIs while the
+     * same update is pushed to many UIs.
+     *
+     * @see com.vaadin.server.UIBroadcaster
+     *
+     * @return the encoded value cache, or <code>null</code> if values are not
+     *         shared
+     * @since 8.0
+     */
+    public EncodedValueCache getEncodedValueCache() {
+        return encodedValueCache;
+    }
+
+    /**
+     * Sets the cache of encoded state values shared with other UIs. This
+     * method should only be called by the framework.
+     *
+     * @param encodedValueCache
+     *            the encoded value cache, or <code>null</code> to not share
+     *            values
+     * @since 8.0
+     */
+    public void setEncodedValueCache(EncodedValueCache encodedValueCache) {
+        this.encodedValueCache = encodedValueCache;
+    }
+
     public boolean isDirty(ClientConnector connector) {
         return dirtyConnectors.contains(connector);
     }
@@ -719,6 +1114,8 @@ public class ConnectorTracker implements Serializable {
             throws IOException, ClassNotFoundException {
         in.defaultReadObject();
 
+        visibleToClient = new HashMap<>();
+
         // Read String versions of JsonObjects and parse into JsonObjects as
         // JsonObject is not serializable
         diffStates = new HashMap<>();
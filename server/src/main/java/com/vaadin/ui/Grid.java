@@ -515,11 +515,14 @@ public class Grid<T> extends AbstractSingleSelect<T> implements HasComponents {
     public static class Column<T, V> extends AbstractGridExtension<T> {
 
         private final Function<T, ? extends V> valueProvider;
+        private final Renderer<V> renderer;
+        private String communicationId;
 
         private Function<SortDirection, Stream<SortOrder<String>>> sortOrderProvider;
         private Comparator<T> comparator;
         private StyleGenerator<T> styleGenerator;
         private DescriptionGenerator<T> descriptionGenerator;
+        private boolean threadSafe = false;
 
         /**
          * Constructs a new Column configuration with given header caption,
@@ -542,6 +545,7 @@ public class Grid<T> extends AbstractSingleSelect<T> implements HasComponents {
             ColumnState state = getState();
 
             this.valueProvider = valueProvider;
+            this.renderer = renderer;
             state.renderer = renderer;
 
             state.caption = caption;
@@ -600,15 +604,10 @@ public class Grid<T> extends AbstractSingleSelect<T> implements HasComponents {
 
         @Override
         public void generateData(T data, JsonObject jsonObject) {
-            ColumnState state = getState(false);
-
-            String communicationId = state.id;
-
+            // The communication id and renderer are read from fields instead
+            // of the state, since this may be run without the session lock
             assert communicationId != null : "No communication ID set for column "
-                    + state.caption;
-
-            @SuppressWarnings("unchecked")
-            Renderer<V> renderer = (Renderer<V>) state.renderer;
+                    + getState(false).caption;
 
             JsonObject obj = getDataObject(jsonObject,
                     DataCommunicatorConstants.DATA);
@@ -637,6 +636,37 @@ public class Grid<T> extends AbstractSingleSelect<T> implements HasComponents {
             }
         }
 
+        /**
+         * {@inheritDoc}
+         * <p>
+         * Columns are not thread safe by default.
+         *
+         * @see #setThreadSafe(boolean)
+         */
+        @Override
+        public boolean isThreadSafe() {
+            return threadSafe;
+        }
+
+        /**
+         * Sets whether the data of this column can be generated for different
+         * items concurrently without holding the session lock. This should
+         * only be enabled if the value provider, the renderer and any style or
+         * description generator of this column are thread safe and do not
+         * access the session or any other shared state.
+         *
+         * @see com.vaadin.server.data.DataCommunicator#setDataGenerationExecutor(java.util.concurrent.Executor)
+         *
+         * @param threadSafe
+         *            <code>true</code> if the data of this column can be
+         *            generated concurrently, <code>false</code> otherwise
+         * @return this column
+         */
+        public Column<T, V> setThreadSafe(boolean threadSafe) {
+            this.threadSafe = threadSafe;
+            return this;
+        }
+
         /**
          * Gets a data object with the given key from the given JsonObject. If
          * there is no object with the key, this method creates a new
@@ -683,6 +713,7 @@ public class Grid<T> extends AbstractSingleSelect<T> implements HasComponents {
          */
         private void setId(String id) {
             Objects.requireNonNull(id, "Communication ID can't be null");
+            communicationId = id;
             getState().id = id;
         }
 
@@ -101,7 +101,8 @@ public class Label extends AbstractComponent {
             throw new IllegalArgumentException("Content mode can not be null");
         }
 
-        getState().contentMode = contentMode;
+        getState(false).contentMode = contentMode;
+        markStatePropertyDirty("contentMode");
     }
 
     /**
@@ -113,10 +114,11 @@ public class Label extends AbstractComponent {
      */
     public void setValue(String value) {
         if (value == null) {
-            getState().text = "";
+            getState(false).text = "";
         } else {
-            getState().text = value;
+            getState(false).text = value;
         }
+        markStatePropertyDirty("text");
     }
 
     /**
@@ -162,10 +162,45 @@ public interface PushConfiguration extends Serializable {
      */
     public String getPushUrl();
 
+    /**
+     * Sets the minimum time between two automatic pushes to the client. When
+     * the interval is larger than 0 and the push mode is
+     * {@link PushMode#AUTOMATIC automatic}, changes made shortly after a push
+     * are not pushed right away when the session is unlocked. Instead, all
+     * changes made during the interval are collected and pushed together when
+     * the interval has elapsed. This reduces the number of push messages when
+     * the UI is frequently updated e.g. from a background thread, at the cost
+     * of a delay of at most the given interval.
+     * <p>
+     * Explicit calls to {@link UI#push()} and responses to client requests are
+     * not affected by the interval.
+     *
+     * @since 8.0
+     * @param pushInterval
+     *            the minimum interval between automatic pushes in
+     *            milliseconds, or 0 (the default) to push every time the
+     *            session is unlocked
+     * @throws IllegalArgumentException
+     *             if the interval is negative
+     */
+    public void setPushInterval(int pushInterval);
+
+    /**
+     * Returns the minimum time between two automatic pushes to the client.
+     *
+     * @see #setPushInterval(int)
+     *
+     * @since 8.0
+     * @return the minimum interval between automatic pushes in milliseconds,
+     *         or 0 if changes are pushed every time the session is unlocked
+     */
+    public int getPushInterval();
+
 }
 
 class PushConfigurationImpl implements PushConfiguration {
     private UI ui;
+    private int pushInterval = 0;
 
     public PushConfigurationImpl(UI ui) {
         this.ui = ui;
@@ -342,4 +377,18 @@ class PushConfigurationImpl implements PushConfiguration {
                 .unmodifiableCollection(getState(false).parameters.keySet());
     }
 
+    @Override
+    public void setPushInterval(int pushInterval) {
+        if (pushInterval < 0) {
+            throw new IllegalArgumentException(
+                    "Push interval cannot be negative");
+        }
+        this.pushInterval = pushInterval;
+    }
+
+    @Override
+    public int getPushInterval() {
+        return pushInterval;
+    }
+
 }
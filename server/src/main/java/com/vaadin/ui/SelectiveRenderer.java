@@ -39,6 +39,12 @@ public interface SelectiveRenderer extends HasComponents {
      * returning false will prevent the child from being sent to the client. If
      * a child is set to invisible, this method has no effect.
      * </p>
+     * <p>
+     * The result of this method is cached by the {@link ConnectorTracker} of
+     * the UI. When the set of rendered children changes, the implementation
+     * must mark itself as dirty or notify the tracker through
+     * {@link ConnectorTracker#markVisibilityChanged(com.vaadin.server.ClientConnector)}.
+     * </p>
      *
      * @param childComponent
      *            The child component to check
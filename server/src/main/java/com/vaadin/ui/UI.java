@@ -247,11 +247,15 @@ public abstract class UI extends AbstractSingleComponentContainer
     /**
      * Timestamp keeping track of the last heartbeat of this UI. Updated to the
      * current time whenever the application receives a heartbeat or UIDL
-     * request from the client for this UI.
+     * request from the client for this UI. Volatile since heartbeats are
+     * handled without locking the session.
      */
-    private long lastHeartbeatTimestamp = System.currentTimeMillis();
+    private volatile long lastHeartbeatTimestamp = System.currentTimeMillis();
 
-    private boolean closing = false;
+    /*
+     * Volatile since heartbeats read this without locking the session
+     */
+    private volatile boolean closing = false;
 
     private TooltipConfiguration tooltipConfiguration = new TooltipConfigurationImpl(
             this);
@@ -766,10 +770,8 @@ public abstract class UI extends AbstractSingleComponentContainer
      * <p>
      * The application developer can also use this method to define the current
      * UI outside the normal request handling, e.g. when initiating custom
-     * background threads.
-     * <p>
-     * The UI is stored using a weak reference to avoid leaking memory in case
-     * it is not explicitly cleared.
+     * background threads. The current UI should be cleared when it is no
+     * longer needed to avoid leaking memory.
      *
      * @param ui
      *            the UI to register as the current UI
@@ -785,9 +787,6 @@ public abstract class UI extends AbstractSingleComponentContainer
      * Gets the currently used UI. The current UI is automatically defined when
      * processing requests to the server. In other cases, (e.g. from background
      * threads), the current UI is not automatically defined.
-     * <p>
-     * The UI is stored using a weak reference to avoid leaking memory in case
-     * it is not explicitly cleared.
      *
      * @return the current UI instance if available, otherwise <code>null</code>
      *
@@ -1174,7 +1173,8 @@ public abstract class UI extends AbstractSingleComponentContainer
      * <p>
      * This method is not intended to be overridden. If it is overridden, care
      * should be taken since this method might be called in situations where
-     * {@link UI#getCurrent()} does not return this UI.
+     * {@link UI#getCurrent()} does not return this UI, and without the session
+     * being locked.
      *
      * @param lastHeartbeat
      *            The time the last heartbeat request occurred, in milliseconds
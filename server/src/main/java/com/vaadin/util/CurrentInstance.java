@@ -17,14 +17,10 @@
 package com.vaadin.util;
 
 import java.io.Serializable;
-import java.lang.ref.WeakReference;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 import com.vaadin.server.VaadinRequest;
 import com.vaadin.server.VaadinResponse;
@@ -36,13 +32,14 @@ import com.vaadin.ui.UI;
  * Keeps track of various current instances for the current thread. All the
  * instances are automatically cleared after handling a request from the client
  * to avoid leaking memory. The inheritable values are also maintained when
- * execution is moved to another thread, both when a new thread is created and
- * when {@link VaadinSession#access(Runnable)} or {@link UI#access(Runnable)} is
- * used.
+ * execution is moved to another thread using
+ * {@link VaadinSession#access(Runnable)} or {@link UI#access(Runnable)}.
  * <p>
- * Please note that the instances are stored using {@link WeakReference}. This
- * means that the a current instance value may suddenly disappear if there a no
- * other references to the object.
+ * The instances are not inherited by threads created by a thread that has
+ * current instances, since such threads are often pooled and would keep the
+ * instances long after they are no longer current. Code run in a new thread
+ * should use {@link UI#access(Runnable)} or set the instances it needs
+ * explicitly.
  * <p>
  * Currently the framework uses the following instances:
  * </p>
@@ -61,32 +58,110 @@ public class CurrentInstance implements Serializable {
     private static final CurrentInstance CURRENT_INSTANCE_NULL = new CurrentInstance(
             NULL_OBJECT, true);
 
-    private final WeakReference<Object> instance;
+    private final Object instance;
     private final boolean inheritable;
 
-    private static InheritableThreadLocal<Map<Class<?>, CurrentInstance>> instances = new InheritableThreadLocal<Map<Class<?>, CurrentInstance>>() {
-        @Override
-        protected Map<Class<?>, CurrentInstance> childValue(
-                Map<Class<?>, CurrentInstance> parentValue) {
-            if (parentValue == null) {
-                return null;
+    /**
+     * The current instances of a thread. The instances used by the framework
+     * are stored in fields of their own, so that getting them does not need a
+     * map lookup. Instances of other types are stored in a map.
+     */
+    private static final class Instances {
+        private CurrentInstance ui;
+        private CurrentInstance session;
+        private CurrentInstance service;
+        private CurrentInstance request;
+        private CurrentInstance response;
+        private Map<Class<?>, CurrentInstance> others;
+
+        private CurrentInstance get(Class<?> type) {
+            if (type == UI.class) {
+                return ui;
+            } else if (type == VaadinSession.class) {
+                return session;
+            } else if (type == VaadinService.class) {
+                return service;
+            } else if (type == VaadinRequest.class) {
+                return request;
+            } else if (type == VaadinResponse.class) {
+                return response;
+            } else {
+                return others == null ? null : others.get(type);
+            }
+        }
+
+        /*
+         * Sets or with a null value removes the instance of a type and
+         * returns the previous instance.
+         */
+        private CurrentInstance put(Class<?> type, CurrentInstance value) {
+            CurrentInstance previous;
+            if (type == UI.class) {
+                previous = ui;
+                ui = value;
+            } else if (type == VaadinSession.class) {
+                previous = session;
+                session = value;
+            } else if (type == VaadinService.class) {
+                previous = service;
+                service = value;
+            } else if (type == VaadinRequest.class) {
+                previous = request;
+                request = value;
+            } else if (type == VaadinResponse.class) {
+                previous = response;
+                response = value;
+            } else if (value != null) {
+                if (others == null) {
+                    others = new HashMap<>();
+                }
+                previous = others.put(type, value);
+            } else if (others != null) {
+                previous = others.remove(type);
+                if (others.isEmpty()) {
+                    others = null;
+                }
+            } else {
+                previous = null;
             }
+            return previous;
+        }
 
-            Map<Class<?>, CurrentInstance> value = new HashMap<>();
+        private boolean isEmpty() {
+            return ui == null && session == null && service == null
+                    && request == null && response == null && others == null;
+        }
 
-            // Copy all inheritable values to child map
-            for (Entry<Class<?>, CurrentInstance> e : parentValue.entrySet()) {
-                if (e.getValue().inheritable) {
-                    value.put(e.getKey(), e.getValue());
+        private Map<Class<?>, CurrentInstance> copy(boolean onlyInheritable) {
+            Map<Class<?>, CurrentInstance> copy = new HashMap<>();
+            copy(copy, UI.class, ui, onlyInheritable);
+            copy(copy, VaadinSession.class, session, onlyInheritable);
+            copy(copy, VaadinService.class, service, onlyInheritable);
+            copy(copy, VaadinRequest.class, request, onlyInheritable);
+            copy(copy, VaadinResponse.class, response, onlyInheritable);
+            if (others != null) {
+                for (Entry<Class<?>, CurrentInstance> entry : others
+                        .entrySet()) {
+                    copy(copy, entry.getKey(), entry.getValue(),
+                            onlyInheritable);
                 }
             }
+            return copy;
+        }
 
-            return value;
+        private static void copy(Map<Class<?>, CurrentInstance> copy,
+                Class<?> type, CurrentInstance value,
+                boolean onlyInheritable) {
+            if (value != null && (value.inheritable || !onlyInheritable)) {
+                copy.put(type, value);
+            }
         }
-    };
+    }
+
+    private static final ThreadLocal<Instances> instances = new ThreadLocal<>();
 
     private CurrentInstance(Object instance, boolean inheritable) {
-        this.instance = new WeakReference<>(instance);
+        this.instance = instance;
         this.inheritable = inheritable;
     }
 
@@ -99,54 +174,15 @@ public class CurrentInstance implements Serializable {
      *         if there is no current instance.
      */
     public static <T> T get(Class<T> type) {
-        Map<Class<?>, CurrentInstance> map = instances.get();
-        if (map == null) {
+        Instances current = instances.get();
+        if (current == null) {
             return null;
         }
-        CurrentInstance currentInstance = map.get(type);
-        if (currentInstance != null) {
-            Object value = currentInstance.instance.get();
-            if (value == null) {
-                /*
-                 * This is believed to never actually happen since the
-                 * ThreadLocal should only outlive the referenced object on
-                 * threads that are not doing anything related to Vaadin, which
-                 * should thus never invoke CurrentInstance.get().
-                 *
-                 * At this point, there might also be other values that have
-                 * been collected, so we'll scan the entire map and remove stale
-                 * CurrentInstance objects. Using a ReferenceQueue could make
-                 * this assumingly rare case slightly more efficient, but would
-                 * significantly increase the complexity of the code for
-                 * maintaining a separate ReferenceQueue for each Thread.
-                 */
-                removeStaleInstances(map);
-
-                if (map.isEmpty()) {
-                    instances.remove();
-                }
-
-                return null;
-            }
-            return type.cast(value);
-        } else {
+        CurrentInstance currentInstance = current.get(type);
+        if (currentInstance == null) {
             return null;
         }
-    }
-
-    private static void removeStaleInstances(
-            Map<Class<?>, CurrentInstance> map) {
-        for (Iterator<Entry<Class<?>, CurrentInstance>> iterator = map
-                .entrySet().iterator(); iterator.hasNext();) {
-            Entry<Class<?>, CurrentInstance> entry = iterator.next();
-            Object instance = entry.getValue().instance.get();
-            if (instance == null) {
-                iterator.remove();
-                getLogger().log(Level.FINE,
-                        "CurrentInstance for {0} has been garbage collected.",
-                        entry.getKey());
-            }
-        }
+        return type.cast(currentInstance.instance);
     }
 
     /**
@@ -167,12 +203,10 @@ public class CurrentInstance implements Serializable {
 
     /**
      * Sets the current inheritable instance of the given type. A current
-     * instance that is inheritable will be available for child threads and in
-     * code run by {@link VaadinSession#access(Runnable)} and
-     * {@link UI#access(Runnable)}.
+     * instance that is inheritable will be available in code run by
+     * {@link VaadinSession#access(Runnable)} and {@link UI#access(Runnable)}.
      *
      * @see #set(Class, Object)
-     * @see InheritableThreadLocal
      *
      * @param type
      *            the class that should be used when getting the current
@@ -186,25 +220,24 @@ public class CurrentInstance implements Serializable {
 
     private static <T> CurrentInstance set(Class<T> type, T instance,
             boolean inheritable) {
-        Map<Class<?>, CurrentInstance> map = instances.get();
+        Instances current = instances.get();
         CurrentInstance previousInstance = null;
         if (instance == null) {
             // remove the instance
-            if (map != null) {
-                previousInstance = map.remove(type);
-                if (map.isEmpty()) {
+            if (current != null) {
+                previousInstance = current.put(type, null);
+                if (current.isEmpty()) {
                     instances.remove();
-                    map = null;
                 }
             }
         } else {
             assert type.isInstance(instance) : "Invald instance type";
-            if (map == null) {
-                map = new HashMap<>();
-                instances.set(map);
+            if (current == null) {
+                current = new Instances();
+                instances.set(current);
             }
 
-            previousInstance = map.put(type,
+            previousInstance = current.put(type,
                     new CurrentInstance(instance, inheritable));
             if (previousInstance != null) {
                 assert previousInstance.inheritable == inheritable : "Inheritable status mismatch for "
@@ -236,19 +269,15 @@ public class CurrentInstance implements Serializable {
      *            A Class -> CurrentInstance map to set as current instances
      */
     public static void restoreInstances(Map<Class<?>, CurrentInstance> old) {
-        boolean removeStale = false;
-        for (Class c : old.keySet()) {
-            CurrentInstance ci = old.get(c);
-            Object v = ci.instance.get();
-            if (v == null) {
-                removeStale = true;
-            } else if (v == NULL_OBJECT) {
+        for (Entry<Class<?>, CurrentInstance> entry : old.entrySet()) {
+            CurrentInstance ci = entry.getValue();
+            Object v = ci.instance;
+            if (v == NULL_OBJECT) {
                 /*
                  * NULL_OBJECT is used to identify objects that are null when
                  * #setCurrent(UI) or #setCurrent(VaadinSession) are called on a
-                 * CurrentInstance. Without this a reference to an already
-                 * collected instance may be left in the CurrentInstance when it
-                 * really should be restored to null.
+                 * CurrentInstance. Without this the instance would not be
+                 * restored to null.
                  *
                  * One example case that this fixes:
                  * VaadinService.runPendingAccessTasks() clears all current
@@ -261,11 +290,7 @@ public class CurrentInstance implements Serializable {
                  */
                 v = null;
             }
-            set(c, v, ci.inheritable);
-        }
-
-        if (removeStale) {
-            removeStaleInstances(old);
+            set((Class<Object>) entry.getKey(), v, ci.inheritable);
         }
     }
 
@@ -282,27 +307,11 @@ public class CurrentInstance implements Serializable {
      */
     public static Map<Class<?>, CurrentInstance> getInstances(
             boolean onlyInheritable) {
-        Map<Class<?>, CurrentInstance> map = instances.get();
-        if (map == null) {
+        Instances current = instances.get();
+        if (current == null) {
             return Collections.emptyMap();
         } else {
-            Map<Class<?>, CurrentInstance> copy = new HashMap<>();
-            boolean removeStale = false;
-            for (Class<?> c : map.keySet()) {
-                CurrentInstance ci = map.get(c);
-                if (ci.instance.get() == null) {
-                    removeStale = true;
-                } else if (ci.inheritable || !onlyInheritable) {
-                    copy.put(c, ci);
-                }
-            }
-            if (removeStale) {
-                removeStaleInstances(map);
-                if (map.isEmpty()) {
-                    instances.remove();
-                }
-            }
-            return copy;
+            return current.copy(onlyInheritable);
         }
     }
 
@@ -347,8 +356,4 @@ public class CurrentInstance implements Serializable {
         old.put(VaadinService.class, set(VaadinService.class, service, true));
         return old;
     }
-
-    private static Logger getLogger() {
-        return Logger.getLogger(CurrentInstance.class.getName());
-    }
 }
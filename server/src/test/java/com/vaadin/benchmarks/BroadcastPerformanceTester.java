@@ -0,0 +1,197 @@
+package com.vaadin.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import org.mockito.Mockito;
+
+import com.vaadin.server.LegacyCommunicationManager;
+import com.vaadin.server.MockVaadinSession;
+import com.vaadin.server.ServiceException;
+import com.vaadin.server.UIBroadcaster;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinServletService;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.server.communication.PushConnection;
+import com.vaadin.server.communication.UidlWriter;
+import com.vaadin.shared.communication.PushMode;
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.VerticalLayout;
+
+/*
+ * Load test for pushing the same update to many UIs, each in its own session.
+ * Measures the number of UIs updated and pushed per second when calling
+ * UI.access for each UI and when using UIBroadcaster, with 1k and 10k UIs.
+ * The update sets a shared 2 kB text and a per-UI counter. Each push writes
+ * the full UIDL message and encodes it as UTF-8, as a connected push
+ * connection would, but the bytes are only counted.
+ *
+ * Run with -server.
+ */
+public class BroadcastPerformanceTester {
+
+    private static final int ROUNDS = 8;
+
+    private static class CountingPushConnection implements PushConnection {
+        private final UI ui;
+        private long bytes = 0;
+
+        private CountingPushConnection(UI ui) {
+            this.ui = ui;
+        }
+
+        @Override
+        public void push() {
+            OutputStream out = new OutputStream() {
+                @Override
+                public void write(int b) {
+                    bytes++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    bytes += len;
+                }
+            };
+            try (Writer writer = new OutputStreamWriter(out,
+                    StandardCharsets.UTF_8)) {
+                new UidlWriter().write(ui, writer, true);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        VaadinService service = new VaadinServletService(null,
+                new MockDeploymentConfiguration());
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        UIBroadcaster broadcaster = new UIBroadcaster(service, parallelism);
+        try {
+            for (int uiCount : new int[] { 1000, 10000 }) {
+                List<UI> uis = createUIs(service, uiCount);
+                double accessRate = run(uis,
+                        BroadcastPerformanceTester::accessEach);
+                double broadcastRate = run(uis, broadcaster::broadcast);
+                long bytes = 0;
+                for (UI ui : uis) {
+                    bytes += ((CountingPushConnection) ui
+                            .getPushConnection()).bytes;
+                }
+                System.out.println(String.format(
+                        "%d UIs: UI.access %.0f updates/s, broadcast (%d threads) %.0f updates/s, %.1f kB per push",
+                        uiCount, accessRate, parallelism, broadcastRate,
+                        bytes / 1024.0 / (2 * ROUNDS * uiCount)));
+            }
+        } finally {
+            broadcaster.shutdown();
+            service.destroy();
+        }
+    }
+
+    private interface Broadcast {
+        Future<Void> broadcast(List<UI> uis, Consumer<UI> update);
+    }
+
+    /*
+     * The usual way of updating many UIs
+     */
+    private static Future<Void> accessEach(List<UI> uis,
+            Consumer<UI> update) {
+        List<Future<Void>> futures = new ArrayList<>(uis.size());
+        for (UI ui : uis) {
+            futures.add(ui.access(() -> {
+                update.accept(ui);
+                ui.push();
+            }));
+        }
+        return CompletableFuture.runAsync(() -> {
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException | ExecutionException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+    }
+
+    private static double run(List<UI> uis, Broadcast broadcast)
+            throws Exception {
+        double bestRate = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            String text = createText(round);
+            long start = System.nanoTime();
+            broadcast.broadcast(uis, ui -> {
+                VerticalLayout layout = (VerticalLayout) ui.getContent();
+                ((Label) layout.getComponent(0)).setValue(text);
+                ((Label) layout.getComponent(1))
+                        .setValue("Updated at " + System.nanoTime());
+            }).get();
+            double rate = uis.size() / ((System.nanoTime() - start) / 1e9);
+            bestRate = Math.max(bestRate, rate);
+        }
+        return bestRate;
+    }
+
+    private static String createText(int round) {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 2048) {
+            text.append("Round ").append(round)
+                    .append(": price 12.34 €, volume 5678 <b>up</b>. ");
+        }
+        return text.toString();
+    }
+
+    private static List<UI> createUIs(VaadinService service, int count)
+            throws ServiceException {
+        List<UI> uis = new ArrayList<>(count);
+        VaadinRequest request = Mockito.mock(VaadinRequest.class);
+        for (int i = 0; i < count; i++) {
+            VaadinSession session = new MockVaadinSession(service);
+            UI ui = new UI() {
+                @Override
+                protected void init(VaadinRequest request) {
+                }
+            };
+            ui.doInit(request, 0, "");
+            session.lock();
+            try {
+                session.setCommunicationManager(
+                        new LegacyCommunicationManager(session));
+                ui.setSession(session);
+                session.addUI(ui);
+                ui.setContent(new VerticalLayout(new Label(), new Label()));
+                ui.getPushConfiguration().setPushMode(PushMode.MANUAL);
+                ui.setPushConnection(new CountingPushConnection(ui));
+                // Initial response
+                ui.push();
+            } finally {
+                session.unlock();
+            }
+            uis.add(ui);
+        }
+        return uis;
+    }
+}
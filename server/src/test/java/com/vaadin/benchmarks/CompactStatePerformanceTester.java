@@ -0,0 +1,120 @@
+package com.vaadin.benchmarks;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import com.vaadin.server.communication.SharedStateWriter;
+import com.vaadin.server.communication.StateKeyDictionary;
+import com.vaadin.tests.util.MockUI;
+import com.vaadin.ui.Button;
+import com.vaadin.ui.CheckBox;
+import com.vaadin.ui.ConnectorTracker;
+import com.vaadin.ui.FormLayout;
+import com.vaadin.ui.Grid;
+import com.vaadin.ui.HorizontalLayout;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.TextArea;
+import com.vaadin.ui.TextField;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.VerticalLayout;
+
+/*
+ * Compares the size and encoding time of the shared state of a form UI and a
+ * Grid UI when written with plain property names and with compact state
+ * encoding. The whole state of each UI is written, as in the initial response
+ * or after a resynchronization. The size of the compact state includes the
+ * property names sent in the first message.
+ *
+ * Run with -server.
+ */
+public class CompactStatePerformanceTester {
+
+    private static final int LOOPS = 2000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        run("Form", createFormUI());
+        run("Grid", createGridUI());
+    }
+
+    private static UI createFormUI() {
+        UI ui = new MockUI();
+        VerticalLayout layout = new VerticalLayout();
+        FormLayout form = new FormLayout();
+        for (int i = 0; i < 20; i++) {
+            TextField field = new TextField("Field " + i);
+            field.setValue("Value " + i);
+            field.setPlaceholder("Enter value " + i);
+            field.setWidth("100%");
+            form.addComponent(field);
+        }
+        TextArea notes = new TextArea("Notes");
+        notes.setValue("Some notes");
+        form.addComponent(notes);
+        form.addComponent(new CheckBox("Subscribe", true));
+        HorizontalLayout buttons = new HorizontalLayout(new Button("Save"),
+                new Button("Cancel"));
+        layout.addComponents(new Label("Edit customer"), form, buttons);
+        ui.setContent(layout);
+        return ui;
+    }
+
+    private static UI createGridUI() {
+        UI ui = new MockUI();
+        Grid<String[]> grid = new Grid<>();
+        for (int i = 0; i < 10; i++) {
+            int column = i;
+            grid.addColumn("Column " + i, row -> row[column]);
+        }
+        grid.setSizeFull();
+        VerticalLayout layout = new VerticalLayout(new Label("Orders"), grid,
+                new Button("Refresh"));
+        ui.setContent(layout);
+        return ui;
+    }
+
+    private static void run(String name, UI ui) throws IOException {
+        ConnectorTracker tracker = ui.getConnectorTracker();
+        StateKeyDictionary dictionary = new StateKeyDictionary();
+
+        int plainBytes = write(ui, null).length();
+        int compactBytes = write(ui, dictionary).length();
+        int dictionaryBytes = 2;
+        for (String key : dictionary.takeNewKeys()) {
+            dictionaryBytes += key.length() + 3;
+        }
+
+        long plainTime = Long.MAX_VALUE;
+        long compactTime = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            plainTime = Math.min(plainTime, time(ui, null));
+            compactTime = Math.min(compactTime, time(ui, dictionary));
+        }
+
+        System.out.println(String.format(
+                "%s UI, %d connectors: plain %d bytes %.1f us, compact %d bytes (+%d bytes of keys in the first message) %.1f us",
+                name, tracker.getDirtyConnectors().size(), plainBytes,
+                plainTime / 1e3 / LOOPS, compactBytes, dictionaryBytes,
+                compactTime / 1e3 / LOOPS));
+    }
+
+    private static long time(UI ui, StateKeyDictionary dictionary)
+            throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOPS; i++) {
+            write(ui, dictionary);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static String write(UI ui, StateKeyDictionary dictionary)
+            throws IOException {
+        ConnectorTracker tracker = ui.getConnectorTracker();
+        // Write the full state every time
+        tracker.markAllClientSidesUninitialized();
+        tracker.markAllConnectorsDirty();
+        StringWriter writer = new StringWriter();
+        new SharedStateWriter().write(ui, writer, dictionary);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,82 @@
+package com.vaadin.benchmarks;
+
+import java.util.Map;
+
+import com.vaadin.server.VaadinSession;
+import com.vaadin.tests.util.MockUI;
+import com.vaadin.ui.UI;
+import com.vaadin.util.CurrentInstance;
+
+/*
+ * Measures the cost of the CurrentInstance operations done by the framework:
+ * the static getters used by application and component code, setting up the
+ * instances for a UI and restoring the previous ones, and saving and
+ * restoring all instances around an access task.
+ *
+ * Run with -server.
+ */
+public class CurrentInstancePerformanceTester {
+
+    private static final int LOOPS = 10000000;
+    private static final int ROUNDS = 5;
+
+    private static Object sink;
+
+    public static void main(String[] args) {
+        UI ui = new MockUI();
+        CurrentInstance.setCurrent(ui);
+        VaadinSession.setCurrent(ui.getSession());
+
+        for (int round = 0; round < ROUNDS; round++) {
+            System.out.println(String.format(
+                    "UI.getCurrent() %.1f ns, VaadinSession.getCurrent() %.1f ns, setCurrent(UI) and restore %.1f ns, access task save and restore %.1f ns",
+                    getUI(), getSession(), setCurrent(ui), saveAndRestore()));
+        }
+    }
+
+    private static double getUI() {
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOPS; i++) {
+            sink = UI.getCurrent();
+        }
+        return (System.nanoTime() - start) / (double) LOOPS;
+    }
+
+    private static double getSession() {
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOPS; i++) {
+            sink = VaadinSession.getCurrent();
+        }
+        return (System.nanoTime() - start) / (double) LOOPS;
+    }
+
+    private static double setCurrent(UI ui) {
+        int loops = LOOPS / 10;
+        long start = System.nanoTime();
+        for (int i = 0; i < loops; i++) {
+            Map<Class<?>, CurrentInstance> old = CurrentInstance
+                    .setCurrent(ui);
+            CurrentInstance.restoreInstances(old);
+        }
+        return (System.nanoTime() - start) / (double) loops;
+    }
+
+    /*
+     * The pattern used by VaadinService.runPendingAccessTasks for each task
+     */
+    private static double saveAndRestore() {
+        int loops = LOOPS / 10;
+        long start = System.nanoTime();
+        for (int i = 0; i < loops; i++) {
+            Map<Class<?>, CurrentInstance> old = CurrentInstance
+                    .getInstances(false);
+            Map<Class<?>, CurrentInstance> inheritable = CurrentInstance
+                    .getInstances(true);
+            CurrentInstance.clearAll();
+            CurrentInstance.restoreInstances(inheritable);
+            CurrentInstance.clearAll();
+            CurrentInstance.restoreInstances(old);
+        }
+        return (System.nanoTime() - start) / (double) loops;
+    }
+}
@@ -0,0 +1,96 @@
+package com.vaadin.benchmarks;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.vaadin.server.data.DataCommunicator;
+import com.vaadin.server.data.DataGenerator;
+
+import elemental.json.JsonObject;
+
+/*
+ * Compares generating row data in the request thread to generating it with
+ * DataCommunicator.setDataGenerationExecutor for typical page sizes. Each row
+ * has ten columns that format a decimal value, which is roughly what a Grid
+ * with formatted number columns does for every row.
+ *
+ * Run with -server. Your results will vary with the number of cores.
+ */
+public class DataGenerationPerformanceTester {
+
+    private static final int[] PAGE_SIZES = { 40, 100, 500 };
+    private static final int COLUMNS = 10;
+
+    private static class BenchmarkDataCommunicator
+            extends DataCommunicator<BigDecimal> {
+
+        public BenchmarkDataCommunicator() {
+            for (int c = 0; c < COLUMNS; ++c) {
+                String column = String.valueOf(c);
+                addDataGenerator(new DataGenerator<BigDecimal>() {
+                    @Override
+                    public void generateData(BigDecimal item,
+                            JsonObject jsonObject) {
+                        jsonObject.put(column,
+                                new DecimalFormat("#,##0.0000")
+                                        .format(item.multiply(item)));
+                    }
+
+                    @Override
+                    public boolean isThreadSafe() {
+                        return true;
+                    }
+                });
+            }
+        }
+
+        public List<JsonObject> generate(List<BigDecimal> data) {
+            return getDataObjects(data);
+        }
+    }
+
+    public static void main(String[] args) {
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors());
+        try {
+            BenchmarkDataCommunicator serial = new BenchmarkDataCommunicator();
+            BenchmarkDataCommunicator parallel = new BenchmarkDataCommunicator();
+            parallel.setDataGenerationExecutor(executor);
+
+            for (int rows : PAGE_SIZES) {
+                List<BigDecimal> page = IntStream.range(0, rows)
+                        .mapToObj(i -> new BigDecimal(i).movePointLeft(2))
+                        .collect(Collectors.toList());
+                int loops = 200000 / rows;
+
+                // Warm up both paths
+                runBenchmark(serial, page, loops);
+                runBenchmark(parallel, page, loops);
+
+                long serialTime = runBenchmark(serial, page, loops);
+                long parallelTime = runBenchmark(parallel, page, loops);
+                System.out.println(String.format(
+                        "%d rows: serial %.3f ms/page, parallel %.3f ms/page",
+                        rows, serialTime / 1e6 / loops,
+                        parallelTime / 1e6 / loops));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static long runBenchmark(BenchmarkDataCommunicator communicator,
+            List<BigDecimal> page, int loops) {
+        long start = System.nanoTime();
+        for (int i = 0; i < loops; i++) {
+            communicator.generate(page);
+        }
+        return System.nanoTime() - start;
+    }
+
+}
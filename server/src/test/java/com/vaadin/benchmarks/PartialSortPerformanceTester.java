@@ -0,0 +1,91 @@
+package com.vaadin.benchmarks;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.vaadin.server.data.DataCommunicator;
+import com.vaadin.server.data.DataSource;
+
+/*
+ * Compares fetching the first page of freshly sorted in-memory data with a
+ * sorted().skip().limit() pipeline to fetching it with DataCommunicator, which
+ * selects the first rows with a partial sort. Deep offsets are included for
+ * reference; DataCommunicator sorts all data for those.
+ *
+ * Run with -server.
+ */
+public class PartialSortPerformanceTester {
+
+    private static final int[] SIZES = { 10000, 100000, 500000 };
+    private static final int[] OFFSETS = { 0, 200, 20000 };
+    private static final int PAGE_SIZE = 40;
+
+    private static class BenchmarkDataCommunicator
+            extends DataCommunicator<Integer> {
+
+        public void fetchFirstPage(Comparator<Integer> sortOrder, int offset) {
+            // Changing the sorting drops all sorted data
+            setInMemorySorting(sortOrder);
+            createRpc().requestRows(offset, PAGE_SIZE, 0, 0);
+            beforeClientResponse(false);
+            retrievePendingRpcCalls();
+        }
+    }
+
+    public static void main(String[] args) {
+        Comparator<Integer> sortOrder = Comparator.reverseOrder();
+        for (int size : SIZES) {
+            List<Integer> items = IntStream.range(0, size).boxed()
+                    .collect(Collectors.toList());
+            Collections.shuffle(items, new Random(size));
+
+            BenchmarkDataCommunicator communicator = new BenchmarkDataCommunicator();
+            communicator.setDataSource(DataSource.create(items));
+
+            for (int offset : OFFSETS) {
+                if (offset + PAGE_SIZE > size) {
+                    continue;
+                }
+                int loops = Math.max(10, 5000000 / size);
+
+                // Warm up both paths
+                runPipeline(items, sortOrder, offset, loops);
+                runDataCommunicator(communicator, sortOrder, offset, loops);
+
+                long pipelineTime = runPipeline(items, sortOrder, offset,
+                        loops);
+                long communicatorTime = runDataCommunicator(communicator,
+                        sortOrder, offset, loops);
+                System.out.println(String.format(
+                        "%d items, offset %d: sorted().skip().limit() %.3f ms, DataCommunicator %.3f ms",
+                        size, offset, pipelineTime / 1e6 / loops,
+                        communicatorTime / 1e6 / loops));
+            }
+        }
+    }
+
+    private static long runPipeline(List<Integer> items,
+            Comparator<Integer> sortOrder, int offset, int loops) {
+        long start = System.nanoTime();
+        for (int i = 0; i < loops; i++) {
+            items.stream().sorted(sortOrder).skip(offset).limit(PAGE_SIZE)
+                    .collect(Collectors.toList());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long runDataCommunicator(
+            BenchmarkDataCommunicator communicator,
+            Comparator<Integer> sortOrder, int offset, int loops) {
+        long start = System.nanoTime();
+        for (int i = 0; i < loops; i++) {
+            communicator.fetchFirstPage(sortOrder, offset);
+        }
+        return System.nanoTime() - start;
+    }
+
+}
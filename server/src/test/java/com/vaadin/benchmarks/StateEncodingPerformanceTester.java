@@ -0,0 +1,124 @@
+package com.vaadin.benchmarks;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+
+import com.vaadin.server.EncodeResult;
+import com.vaadin.server.JsonCodec;
+import com.vaadin.server.JsonCodec.BeanProperty;
+import com.vaadin.shared.AbstractComponentState;
+import com.vaadin.shared.ui.button.ButtonState;
+import com.vaadin.shared.ui.grid.GridState;
+import com.vaadin.shared.ui.slider.SliderState;
+
+import elemental.json.Json;
+import elemental.json.JsonNull;
+import elemental.json.JsonObject;
+import elemental.json.JsonValue;
+
+/*
+ * Compares encoding shared states with JsonCodec, which reads the properties
+ * through cached method handles, to encoding them by reading each property
+ * reflectively with BeanProperty.getValue, which is how JsonCodec encoded
+ * objects before. Each state is encoded against a reference with one changed
+ * property, like a state of a dirty connector.
+ *
+ * Run with -server.
+ */
+public class StateEncodingPerformanceTester {
+
+    private static final int LOOPS = 100000;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws Exception {
+        AbstractComponentState componentState = new AbstractComponentState();
+        componentState.caption = "Caption";
+        ButtonState buttonState = new ButtonState();
+        buttonState.caption = "Click me";
+        SliderState sliderState = new SliderState();
+        sliderState.maxValue = 1000;
+        GridState gridState = new GridState();
+        gridState.caption = "Grid";
+
+        List<Object> states = Arrays.asList(componentState, buttonState,
+                sliderState, gridState);
+        for (Object state : states) {
+            Class<?> type = state.getClass();
+            JsonObject reference = (JsonObject) JsonCodec
+                    .encode(state, null, type, null).getEncodedValue();
+            reference.put("description", "Changed");
+
+            // Alternate between the paths and keep the best round of each
+            long reflectiveTime = Long.MAX_VALUE;
+            long codecTime = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                reflectiveTime = Math.min(reflectiveTime,
+                        runReflective(state, reference));
+                codecTime = Math.min(codecTime, runCodec(state, reference));
+            }
+            System.out.println(String.format(
+                    "%s: reflective %.3f us, JsonCodec %.3f us",
+                    type.getSimpleName(), reflectiveTime / 1e3 / LOOPS,
+                    codecTime / 1e3 / LOOPS));
+        }
+    }
+
+    private static long runCodec(Object state, JsonObject reference) {
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOPS; i++) {
+            JsonCodec.encode(state, reference, state.getClass(), null);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long runReflective(Object state, JsonObject reference)
+            throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOPS; i++) {
+            encodeReflectively(state, reference);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /*
+     * Same as JsonCodec.encodeObject before the properties were read through
+     * method handles.
+     */
+    private static EncodeResult encodeReflectively(Object state,
+            JsonObject reference) throws Exception {
+        JsonObject encoded = Json.createObject();
+        JsonObject diff = Json.createObject();
+        for (BeanProperty property : JsonCodec
+                .getProperties(state.getClass())) {
+            String fieldName = property.getName();
+            Type fieldType = property.getType();
+            Object fieldValue = property.getValue(state);
+
+            if (encoded.hasKey(fieldName)) {
+                throw new RuntimeException("Duplicate property " + fieldName);
+            }
+
+            JsonValue fieldReference = reference.get(fieldName);
+            if (fieldReference instanceof JsonNull) {
+                fieldReference = null;
+            }
+
+            EncodeResult encodeResult = JsonCodec.encode(fieldValue,
+                    fieldReference, fieldType, null);
+            encoded.put(fieldName, encodeResult.getEncodedValue());
+
+            JsonValue encodedValue = encodeResult.getEncodedValue();
+            if (encodedValue instanceof JsonNull) {
+                encodedValue = null;
+            }
+            if (encodedValue != fieldReference && (encodedValue == null
+                    || fieldReference == null
+                    || !JsonCodec.jsonEquals(encodedValue, fieldReference))) {
+                diff.put(fieldName, encodeResult.getDiffOrValue());
+            }
+        }
+        return new EncodeResult(encoded, diff);
+    }
+
+}
@@ -152,5 +152,15 @@ public class AbstractDeploymentConfigurationTest {
             return DefaultDeploymentConfiguration.DEFAULT_SEND_URLS_AS_PARAMETERS;
         }
 
+        @Override
+        public boolean isCompactStateEncoding() {
+            return DefaultDeploymentConfiguration.DEFAULT_COMPACT_STATE_ENCODING;
+        }
+
+        @Override
+        public int getResponseCompressionLevel() {
+            return DefaultDeploymentConfiguration.DEFAULT_RESPONSE_COMPRESSION_LEVEL;
+        }
+
     }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+import com.vaadin.util.CurrentInstance;
+
+public class AccessExecutorTest {
+
+    private VaadinService service;
+    private VaadinSession session;
+    private ExecutorService executor;
+    private AtomicInteger executedJobs = new AtomicInteger();
+
+    @Before
+    public void setUp() throws ServiceException {
+        service = new VaadinServletService(null,
+                new MockDeploymentConfiguration());
+        session = new MockVaadinSession(service);
+        executor = Executors.newCachedThreadPool();
+        service.setAccessExecutor(runnable -> {
+            executedJobs.incrementAndGet();
+            executor.execute(runnable);
+        });
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        CurrentInstance.clearAll();
+    }
+
+    @Test
+    public void access_sessionNotLocked_runByExecutor() throws Exception {
+        AtomicReference<Thread> thread = new AtomicReference<>();
+
+        session.access(() -> thread.set(Thread.currentThread()))
+                .get(5, TimeUnit.SECONDS);
+
+        Assert.assertNotNull(thread.get());
+        Assert.assertNotSame(Thread.currentThread(), thread.get());
+    }
+
+    @Test
+    public void access_sessionLocked_notRunByUnlockingThread()
+            throws Exception {
+        AtomicReference<Thread> thread = new AtomicReference<>();
+
+        session.lock();
+        Future<Void> future;
+        try {
+            future = session
+                    .access(() -> thread.set(Thread.currentThread()));
+            session.access(() -> {
+            });
+        } finally {
+            session.unlock();
+        }
+        future.get(5, TimeUnit.SECONDS);
+
+        Assert.assertNotSame(Thread.currentThread(), thread.get());
+        Assert.assertEquals(1, executedJobs.get());
+    }
+
+    @Test
+    public void access_inheritedCurrentInstanceNotUsed() throws Exception {
+        // The executor thread created here inherits the instances
+        VaadinSession otherSession = new MockVaadinSession(service);
+        CurrentInstance.setInheritable(VaadinSession.class, otherSession);
+        CurrentInstance.setInheritable(String.class, "stale");
+        executor.submit(() -> {
+        }).get(5, TimeUnit.SECONDS);
+        CurrentInstance.clearAll();
+        AtomicReference<VaadinSession> currentSession = new AtomicReference<>();
+        AtomicReference<String> currentString = new AtomicReference<>();
+
+        session.access(() -> {
+            currentSession.set(VaadinSession.getCurrent());
+            currentString.set(CurrentInstance.get(String.class));
+        }).get(5, TimeUnit.SECONDS);
+
+        Assert.assertSame(session, currentSession.get());
+        Assert.assertNull(currentString.get());
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.server.communication.PushConnection;
+import com.vaadin.shared.communication.PushMode;
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.UI;
+
+public class AutomaticPushIntervalTest {
+
+    /*
+     * Collects the delayed tasks instead of running them, so that the tests
+     * can run them without waiting
+     */
+    private static class ManualSchedulingService extends VaadinServletService {
+        private final List<Runnable> scheduledTasks = new ArrayList<>();
+        private final List<Long> scheduledDelays = new ArrayList<>();
+
+        public ManualSchedulingService() throws ServiceException {
+            super(null, new MockDeploymentConfiguration());
+        }
+
+        @Override
+        public void accessSessionLater(VaadinSession session,
+                Runnable runnable, long delayMillis) {
+            scheduledTasks.add(() -> accessSession(session, runnable));
+            scheduledDelays.add(delayMillis);
+        }
+
+        private void runScheduledTasks() {
+            List<Runnable> tasks = new ArrayList<>(scheduledTasks);
+            scheduledTasks.clear();
+            tasks.forEach(Runnable::run);
+        }
+    }
+
+    /*
+     * Long enough for consecutive changes in a test to always fall within the
+     * same interval
+     */
+    private static final int PUSH_INTERVAL = 60000;
+
+    private ManualSchedulingService service;
+    private VaadinSession session;
+    private UI ui;
+    private Label label;
+    private PushConnection pushConnection;
+
+    @Before
+    public void setUp() throws ServiceException {
+        service = new ManualSchedulingService();
+        session = new MockVaadinSession(service);
+        ui = new UI() {
+            @Override
+            protected void init(VaadinRequest request) {
+            }
+        };
+        ui.doInit(Mockito.mock(VaadinRequest.class), 0, "");
+        label = new Label();
+        pushConnection = Mockito.mock(PushConnection.class);
+
+        session.lock();
+        try {
+            ui.setSession(session);
+            session.addUI(ui);
+            ui.setContent(label);
+            ui.getPushConfiguration().setPushMode(PushMode.AUTOMATIC);
+            ui.setPushConnection(pushConnection);
+        } finally {
+            session.unlock();
+        }
+        ui.getConnectorTracker().markAllConnectorsClean();
+        Mockito.reset(pushConnection);
+        // Writing the response marks everything clean
+        Mockito.doAnswer(invocation -> {
+            ui.getConnectorTracker().markAllConnectorsClean();
+            return null;
+        }).when(pushConnection).push();
+    }
+
+    @After
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    public void noInterval_pushedOnEveryUnlock() {
+        setValue("foo");
+        setValue("bar");
+
+        Mockito.verify(pushConnection, Mockito.times(2)).push();
+    }
+
+    @Test
+    public void interval_changesCoalescedAndPushedLater() {
+        ui.getPushConfiguration().setPushInterval(PUSH_INTERVAL);
+
+        setValue("foo");
+        Mockito.verify(pushConnection, Mockito.times(1)).push();
+        Assert.assertTrue(service.scheduledTasks.isEmpty());
+
+        setValue("bar");
+        setValue("baz");
+        Mockito.verify(pushConnection, Mockito.times(1)).push();
+        Assert.assertEquals(1, service.scheduledTasks.size());
+        long delay = service.scheduledDelays.get(0);
+        Assert.assertTrue(delay > 0 && delay <= PUSH_INTERVAL);
+
+        service.runScheduledTasks();
+        Mockito.verify(pushConnection, Mockito.times(2)).push();
+
+        // The interval starts again from the delayed push
+        setValue("qux");
+        Mockito.verify(pushConnection, Mockito.times(2)).push();
+        Assert.assertEquals(1, service.scheduledTasks.size());
+    }
+
+    @Test
+    public void interval_noChanges_notPushed() {
+        ui.getPushConfiguration().setPushInterval(PUSH_INTERVAL);
+        setValue("foo");
+        Mockito.verify(pushConnection, Mockito.times(1)).push();
+
+        session.lock();
+        session.unlock();
+
+        Assert.assertTrue(service.scheduledTasks.isEmpty());
+        Mockito.verify(pushConnection, Mockito.times(1)).push();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeInterval_throws() {
+        ui.getPushConfiguration().setPushInterval(-1);
+    }
+
+    private void setValue(String value) {
+        session.lock();
+        try {
+            label.setValue(value);
+        } finally {
+            session.unlock();
+        }
+    }
+}
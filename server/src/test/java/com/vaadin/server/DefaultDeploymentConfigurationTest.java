@@ -52,4 +52,27 @@ public class DefaultDeploymentConfigurationTest {
                 DefaultDeploymentConfigurationTest.class, new Properties());
         Assert.assertEquals(value, config.getSystemProperty(prop));
     }
+
+    @Test
+    public void responseCompressionLevel_validValue_used() {
+        Properties initParameters = new Properties();
+        initParameters.setProperty(
+                Constants.SERVLET_PARAMETER_RESPONSE_COMPRESSION_LEVEL, "6");
+        DefaultDeploymentConfiguration config = new DefaultDeploymentConfiguration(
+                DefaultDeploymentConfigurationTest.class, initParameters);
+        Assert.assertEquals(6, config.getResponseCompressionLevel());
+    }
+
+    @Test
+    public void responseCompressionLevel_invalidValue_compressionDisabled() {
+        for (String value : new String[] { "10", "-1", "fast" }) {
+            Properties initParameters = new Properties();
+            initParameters.setProperty(
+                    Constants.SERVLET_PARAMETER_RESPONSE_COMPRESSION_LEVEL,
+                    value);
+            DefaultDeploymentConfiguration config = new DefaultDeploymentConfiguration(
+                    DefaultDeploymentConfigurationTest.class, initParameters);
+            Assert.assertEquals(0, config.getResponseCompressionLevel());
+        }
+    }
 }
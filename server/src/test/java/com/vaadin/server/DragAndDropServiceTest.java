@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.Logger;
@@ -42,13 +43,16 @@ public class DragAndDropServiceTest {
     @Test
     public void changeVariables_isSourceConnectorEnabledCalled() {
         final List<Level> levels = new ArrayList<>();
-        Logger.getLogger(DragAndDropService.class.getName())
-                .addHandler(new StreamHandler() {
-                    @Override
-                    public synchronized void publish(LogRecord record) {
-                        levels.add(record.getLevel());
-                    }
-                });
+        // Keep a reference to the logger until the end of the test so that
+        // it is not garbage collected along with the handler
+        Logger logger = Logger.getLogger(DragAndDropService.class.getName());
+        Handler handler = new StreamHandler() {
+            @Override
+            public synchronized void publish(LogRecord record) {
+                levels.add(record.getLevel());
+            }
+        };
+        logger.addHandler(handler);
         Map<String, Object> variables = new HashMap<>();
         final boolean[] isConnectorEnabledCalled = new boolean[1];
         AbstractComponent component = new AbstractComponent() {
@@ -69,18 +73,23 @@ public class DragAndDropServiceTest {
         Assert.assertTrue("No warning on drop from disabled source",
                 levels.contains(Level.WARNING));
 
+        logger.removeHandler(handler);
+
     }
 
     @Test
     public void changeVariables_isTargetConnectorEnabledCalled() {
         final List<Level> levels = new ArrayList<>();
-        Logger.getLogger(DragAndDropService.class.getName())
-                .addHandler(new StreamHandler() {
-                    @Override
-                    public void publish(LogRecord record) {
-                        levels.add(record.getLevel());
-                    }
-                });
+        // Keep a reference to the logger until the end of the test so that
+        // it is not garbage collected along with the handler
+        Logger logger = Logger.getLogger(DragAndDropService.class.getName());
+        Handler handler = new StreamHandler() {
+            @Override
+            public void publish(LogRecord record) {
+                levels.add(record.getLevel());
+            }
+        };
+        logger.addHandler(handler);
         Map<String, Object> variables = new HashMap<>();
         TestDropTarget target = new TestDropTarget();
         variables.put("dhowner", target);
@@ -94,6 +103,8 @@ public class DragAndDropServiceTest {
         Assert.assertTrue("No warning on drop to disabled target",
                 levels.contains(Level.WARNING));
 
+        logger.removeHandler(handler);
+
     }
 
     private static class TestDropTarget extends AbstractComponent
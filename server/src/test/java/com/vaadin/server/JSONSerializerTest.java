@@ -17,6 +17,7 @@ package com.vaadin.server;
  */
 
 import java.lang.reflect.Type;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -31,7 +32,10 @@ import com.vaadin.shared.ui.splitpanel.AbstractSplitPanelState;
 import elemental.json.Json;
 import elemental.json.JsonArray;
 import elemental.json.JsonException;
+import elemental.json.JsonObject;
+import elemental.json.JsonType;
 import elemental.json.JsonValue;
+import elemental.json.impl.JsonUtil;
 
 /**
  * Tests for {@link JsonCodec}
@@ -44,6 +48,65 @@ public class JSONSerializerTest {
     HashMap<String, AbstractSplitPanelState> stringToStateMap;
     HashMap<AbstractSplitPanelState, String> stateToStringMap;
 
+    public static class PrimitiveBean {
+        public boolean booleanField = true;
+        public int intField = 1;
+        public long longField = 2;
+        public float floatField = 0.5f;
+        public double doubleField = 1.5;
+        public char charField = 'c';
+        public String stringField;
+        public Integer boxedField = 3;
+        private int property = 4;
+
+        public int getProperty() {
+            return property;
+        }
+
+        public void setProperty(int property) {
+            this.property = property;
+        }
+    }
+
+    @Test
+    public void testPrimitiveBeanEncodingAndDiff() throws Exception {
+        PrimitiveBean bean = new PrimitiveBean();
+        EncodeResult result = JsonCodec.encode(bean, null, PrimitiveBean.class,
+                null);
+        JsonObject encoded = (JsonObject) result.getEncodedValue();
+
+        Assert.assertTrue(encoded.getBoolean("booleanField"));
+        Assert.assertEquals(1, encoded.getNumber("intField"), 0);
+        Assert.assertEquals(2, encoded.getNumber("longField"), 0);
+        Assert.assertEquals(0.5, encoded.getNumber("floatField"), 0);
+        Assert.assertEquals(1.5, encoded.getNumber("doubleField"), 0);
+        Assert.assertEquals("c", encoded.getString("charField"));
+        Assert.assertEquals(JsonType.NULL,
+                encoded.get("stringField").getType());
+        Assert.assertEquals(3, encoded.getNumber("boxedField"), 0);
+        Assert.assertEquals(4, encoded.getNumber("property"), 0);
+
+        bean.intField = 10;
+        bean.stringField = "foo";
+        bean.setProperty(40);
+        JsonObject diff = (JsonObject) JsonCodec
+                .encode(bean, encoded, PrimitiveBean.class, null)
+                .getDiff();
+        Assert.assertEquals(
+                "{\"intField\":10,\"property\":40,\"stringField\":\"foo\"}",
+                JsonUtil.stringify(sortKeys(diff)));
+    }
+
+    private static JsonObject sortKeys(JsonObject object) {
+        JsonObject sorted = Json.createObject();
+        String[] keys = object.keys();
+        Arrays.sort(keys);
+        for (String key : keys) {
+            sorted.put(key, (JsonValue) object.get(key));
+        }
+        return sorted;
+    }
+
     @Test
     public void testStringToBeanMapSerialization() throws Exception {
         Type mapType = getClass().getDeclaredField("stringToStateMap")
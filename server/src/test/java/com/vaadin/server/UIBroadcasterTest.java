@@ -0,0 +1,245 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.server.communication.PushConnection;
+import com.vaadin.server.communication.SharedStateWriter;
+import com.vaadin.shared.AbstractComponentState;
+import com.vaadin.shared.Connector;
+import com.vaadin.shared.communication.PushMode;
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+import com.vaadin.ui.AbstractComponent;
+import com.vaadin.ui.ConnectorTracker;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.VerticalLayout;
+
+import elemental.json.Json;
+import elemental.json.JsonObject;
+
+public class UIBroadcasterTest {
+
+    public static class ItemsState extends AbstractComponentState {
+        public List<String> items;
+        public List<Connector> connectors;
+    }
+
+    public static class ItemsComponent extends AbstractComponent {
+        @Override
+        protected ItemsState getState() {
+            return (ItemsState) super.getState();
+        }
+    }
+
+    private static final String LONG_TEXT = String.join("",
+            Collections.nCopies(20, "Shared value "));
+
+    private VaadinService service;
+    private UIBroadcaster broadcaster;
+    private List<UI> uis = new ArrayList<>();
+    private List<String> pushed = Collections
+            .synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() throws ServiceException, IOException {
+        service = new VaadinServletService(null,
+                new MockDeploymentConfiguration());
+        broadcaster = new UIBroadcaster(service, 2);
+
+        VaadinSession session1 = new MockVaadinSession(service);
+        VaadinSession session2 = new MockVaadinSession(service);
+        uis.add(createUI(session1, 0, true));
+        uis.add(createUI(session1, 1, true));
+        uis.add(createUI(session2, 0, true));
+        uis.add(createUI(session2, 1, false));
+    }
+
+    @After
+    public void tearDown() {
+        broadcaster.shutdown();
+        service.destroy();
+    }
+
+    @Test
+    public void broadcast_allUIsUpdatedAndPushed() throws Exception {
+        broadcast(ui -> getLabel(ui).setValue(LONG_TEXT));
+
+        for (UI ui : uis) {
+            Assert.assertEquals(LONG_TEXT, getValue(ui));
+        }
+        Assert.assertEquals(3, pushed.size());
+        for (String state : pushed) {
+            Assert.assertTrue(state.contains(LONG_TEXT));
+        }
+        Assert.assertTrue(uis.get(3).getConnectorTracker()
+                .isDirty(getLabel(uis.get(3))));
+    }
+
+    @Test
+    public void broadcast_sameString_encodedValueShared() throws Exception {
+        broadcast(ui -> getLabel(ui).setValue(LONG_TEXT));
+
+        Assert.assertSame(getDiffState(uis.get(0), getLabel(uis.get(0)))
+                .get("text"),
+                getDiffState(uis.get(2), getLabel(uis.get(2))).get("text"));
+    }
+
+    @Test
+    public void broadcast_sameList_encodedValueShared() throws Exception {
+        List<String> items = Arrays.asList("a", "b", "c");
+        broadcast(ui -> getItems(ui).getState().items = items);
+
+        JsonObject state0 = getDiffState(uis.get(0), getItems(uis.get(0)));
+        JsonObject state2 = getDiffState(uis.get(2), getItems(uis.get(2)));
+        Assert.assertSame(state0.get("items"), state2.get("items"));
+        Assert.assertEquals("[\"a\",\"b\",\"c\"]",
+                state0.get("items").toJson());
+    }
+
+    @Test
+    public void broadcast_sameConnectorList_notShared() throws Exception {
+        broadcast(ui -> getItems(ui).getState().connectors = Arrays
+                .asList(getLabel(ui)));
+
+        for (int i = 0; i < 3; i++) {
+            UI ui = uis.get(i);
+            Assert.assertEquals(getLabel(ui).getConnectorId(),
+                    getDiffState(ui, getItems(ui)).getArray("connectors")
+                            .getString(0));
+        }
+    }
+
+    @Test
+    public void broadcast_failingUpdate_otherUIsUpdated() throws Exception {
+        broadcast(ui -> {
+            if (ui == uis.get(0)) {
+                throw new IllegalStateException("Expected");
+            }
+            getLabel(ui).setValue("foo");
+        });
+
+        Assert.assertEquals("", getValue(uis.get(0)));
+        Assert.assertEquals("foo", getValue(uis.get(1)));
+        Assert.assertEquals("foo", getValue(uis.get(2)));
+    }
+
+    @Test
+    public void isConnectorFree() throws Exception {
+        Assert.assertTrue(JsonCodec.isConnectorFree(
+                ItemsState.class.getField("items").getGenericType()));
+        Assert.assertFalse(JsonCodec.isConnectorFree(
+                ItemsState.class.getField("connectors").getGenericType()));
+        Assert.assertFalse(JsonCodec.isConnectorFree(List.class));
+        Assert.assertFalse(JsonCodec.isConnectorFree(Label.class));
+    }
+
+    private void broadcast(java.util.function.Consumer<UI> update)
+            throws InterruptedException, ExecutionException,
+            TimeoutException {
+        broadcaster.broadcast(uis, update).get(10, TimeUnit.SECONDS);
+    }
+
+    private UI createUI(VaadinSession session, int id, boolean push)
+            throws IOException {
+        UI ui = new UI() {
+            @Override
+            protected void init(VaadinRequest request) {
+            }
+        };
+        ui.doInit(Mockito.mock(VaadinRequest.class), id, "ui-" + id);
+        // Only the test error handler is used, don't log the exceptions
+        ui.setErrorHandler(event -> {
+        });
+
+        session.lock();
+        try {
+            ui.setSession(session);
+            session.addUI(ui);
+            ui.setContent(
+                    new VerticalLayout(new Label(), new ItemsComponent()));
+            if (push) {
+                ui.getPushConfiguration().setPushMode(PushMode.MANUAL);
+                PushConnection pushConnection = Mockito
+                        .mock(PushConnection.class);
+                Mockito.doAnswer(invocation -> {
+                    pushed.add(writeState(ui));
+                    return null;
+                }).when(pushConnection).push();
+                ui.setPushConnection(pushConnection);
+            }
+            writeState(ui);
+        } finally {
+            session.unlock();
+        }
+        return ui;
+    }
+
+    private static String writeState(UI ui) throws IOException {
+        ConnectorTracker tracker = ui.getConnectorTracker();
+        StringWriter writer = new StringWriter();
+        tracker.setWritingResponse(true);
+        try {
+            new SharedStateWriter().write(ui, writer);
+        } finally {
+            tracker.setWritingResponse(false);
+        }
+        tracker.markAllConnectorsClean();
+        return writer.toString();
+    }
+
+    private static JsonObject getDiffState(UI ui, ClientConnector connector) {
+        JsonObject diffState = ui.getConnectorTracker()
+                .getDiffState(connector);
+        return diffState == null ? Json.createObject() : diffState;
+    }
+
+    private static String getValue(UI ui) {
+        ui.getSession().lock();
+        try {
+            return getLabel(ui).getValue();
+        } finally {
+            ui.getSession().unlock();
+        }
+    }
+
+    private static VerticalLayout getLayout(UI ui) {
+        return (VerticalLayout) ui.getContent();
+    }
+
+    private static Label getLabel(UI ui) {
+        return (Label) getLayout(ui).getComponent(0);
+    }
+
+    private static ItemsComponent getItems(UI ui) {
+        return (ItemsComponent) getLayout(ui).getComponent(1);
+    }
+}
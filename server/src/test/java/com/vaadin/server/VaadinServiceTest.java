@@ -140,4 +140,27 @@ public class VaadinServiceTest {
 
         assertThat(notification, containsString("\"url\":null"));
     }
+
+    @Test
+    public void loadSessionWithoutLock_onlyLoadedSessionsReturned()
+            throws ServletException {
+        ServletConfig servletConfig = new MockServletConfig();
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(servletConfig);
+        VaadinService service = servlet.getService();
+
+        VaadinSession loaded = new MockVaadinSession(service);
+        VaadinSession notLoaded = new MockVaadinSession(null);
+
+        WrappedSession wrappedSession = EasyMock
+                .createMock(WrappedSession.class);
+        EasyMock.expect(
+                wrappedSession.getAttribute(EasyMock.<String> anyObject()))
+                .andReturn(loaded).andReturn(notLoaded);
+        EasyMock.replay(wrappedSession);
+
+        Assert.assertSame(loaded,
+                service.loadSessionWithoutLock(wrappedSession));
+        Assert.assertNull(service.loadSessionWithoutLock(wrappedSession));
+    }
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.server.ClientConnector;
+import com.vaadin.server.PaintTarget;
+import com.vaadin.tests.util.MockUI;
+import com.vaadin.ui.ConnectorTracker;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.VerticalLayout;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+public class ConnectorHierarchyWriterTest {
+
+    private UI ui;
+    private ConnectorTracker tracker;
+    private VerticalLayout layout;
+    private Label label;
+
+    @Before
+    public void setUp() throws IOException {
+        ui = new MockUI();
+        tracker = ui.getConnectorTracker();
+        layout = new VerticalLayout();
+        label = new Label("foo");
+        layout.addComponent(label);
+        ui.setContent(layout);
+
+        // Simulate the initial response
+        writeTypes();
+        writeHierarchy();
+        markAllInitialized();
+    }
+
+    @Test
+    public void initialResponse_typesAndHierarchySent() throws IOException {
+        tracker.markAllClientSidesUninitialized();
+        tracker.markAllConnectorsDirty();
+
+        JsonObject types = writeTypes();
+        JsonObject hierarchy = writeHierarchy();
+
+        Assert.assertTrue(types.hasKey(ui.getConnectorId()));
+        Assert.assertTrue(types.hasKey(layout.getConnectorId()));
+        Assert.assertTrue(types.hasKey(label.getConnectorId()));
+        Assert.assertEquals(1,
+                hierarchy.getArray(layout.getConnectorId()).length());
+    }
+
+    @Test
+    public void initializedConnectors_typesNotSent() throws IOException {
+        layout.markAsDirty();
+        label.markAsDirty();
+
+        Assert.assertEquals(0, writeTypes().keys().length);
+    }
+
+    @Test
+    public void newConnector_onlyNewTypeSent() throws IOException {
+        Label newLabel = new Label("bar");
+        layout.addComponent(newLabel);
+
+        JsonObject types = writeTypes();
+
+        Assert.assertEquals(1, types.keys().length);
+        Assert.assertTrue(types.hasKey(newLabel.getConnectorId()));
+    }
+
+    @Test
+    public void unchangedHierarchy_notSent() throws IOException {
+        layout.markAsDirty();
+        label.markAsDirty();
+
+        Assert.assertEquals(0, writeHierarchy().keys().length);
+    }
+
+    @Test
+    public void changedHierarchy_sent() throws IOException {
+        Label newLabel = new Label("bar");
+        layout.addComponent(newLabel);
+
+        JsonArray children = writeHierarchy()
+                .getArray(layout.getConnectorId());
+
+        Assert.assertEquals(2, children.length());
+        Assert.assertEquals(newLabel.getConnectorId(), children.getString(1));
+    }
+
+    @Test
+    public void removedChild_emptyHierarchySent() throws IOException {
+        layout.removeComponent(label);
+
+        JsonArray children = writeHierarchy()
+                .getArray(layout.getConnectorId());
+
+        Assert.assertEquals(0, children.length());
+    }
+
+    @Test
+    public void unchangedHierarchy_stateChanged_sent() throws IOException {
+        layout.markAsDirty();
+
+        JsonObject hierarchy = writeHierarchy(layout.getConnectorId());
+
+        Assert.assertEquals(1,
+                hierarchy.getArray(layout.getConnectorId()).length());
+    }
+
+    @Test
+    public void clientSidesUninitialized_hierarchySentAgain()
+            throws IOException {
+        tracker.markAllClientSidesUninitialized();
+        layout.markAsDirty();
+
+        JsonObject hierarchy = writeHierarchy();
+
+        Assert.assertEquals(1,
+                hierarchy.getArray(layout.getConnectorId()).length());
+    }
+
+    private JsonObject writeTypes() throws IOException {
+        StringWriter writer = new StringWriter();
+        PaintTarget target = Mockito.mock(PaintTarget.class);
+        Mockito.when(target.getTag(Mockito.any(ClientConnector.class)))
+                .thenReturn("0");
+        new ConnectorTypeWriter().write(ui, writer, target);
+        return Json.parse(writer.toString());
+    }
+
+    private JsonObject writeHierarchy(String... stateUpdateConnectors)
+            throws IOException {
+        StringWriter writer = new StringWriter();
+        Set<String> stateUpdates = new HashSet<>();
+        Collections.addAll(stateUpdates, stateUpdateConnectors);
+        new ConnectorHierarchyWriter().write(ui, writer, stateUpdates);
+        return Json.parse(writer.toString());
+    }
+
+    private void markAllInitialized() {
+        for (ClientConnector connector : tracker.getDirtyConnectors()) {
+            tracker.markClientSideInitialized(connector);
+        }
+        tracker.markAllConnectorsClean();
+    }
+}
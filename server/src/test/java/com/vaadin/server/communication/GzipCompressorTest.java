@@ -0,0 +1,188 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.server.ServiceException;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinResponse;
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinServletService;
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+
+public class GzipCompressorTest {
+
+    private static final String CONTENT;
+
+    static {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.append("{\"caption\":\"Caption ä ").append(i)
+                    .append("\"},");
+        }
+        CONTENT = builder.toString();
+    }
+
+    @Test
+    public void compress_decompressesToOriginal() throws IOException {
+        byte[] data = CONTENT.getBytes(StandardCharsets.UTF_8);
+
+        GzipCompressor compressor = new GzipCompressor(6);
+        try {
+            compressor.compress(data, data.length);
+            Assert.assertTrue(compressor.size() < data.length / 4);
+            Assert.assertEquals(CONTENT, decompress(compressor));
+        } finally {
+            compressor.end();
+        }
+    }
+
+    @Test
+    public void compress_pooledCompressorReused() throws IOException {
+        ResponseBufferPool pool = new ResponseBufferPool(1);
+        GzipCompressor first = pool.obtainCompressor(1);
+        first.compress(new byte[] { 'a' }, 1);
+        pool.releaseCompressor(first);
+
+        byte[] data = CONTENT.getBytes(StandardCharsets.UTF_8);
+        GzipCompressor second = pool.obtainCompressor(9);
+        try {
+            Assert.assertSame(first, second);
+            second.compress(data, data.length);
+            Assert.assertEquals(CONTENT, decompress(second));
+        } finally {
+            pool.releaseCompressor(second);
+        }
+        pool.clear();
+    }
+
+    @Test
+    public void pool_boundedAndNotReusedAfterClear() {
+        ResponseBufferPool pool = new ResponseBufferPool(1);
+        GzipCompressor first = pool.obtainCompressor(1);
+        GzipCompressor second = pool.obtainCompressor(1);
+        pool.releaseCompressor(first);
+        pool.releaseCompressor(second);
+
+        // Only one compressor fits in the pool
+        Assert.assertSame(first, pool.obtainCompressor(1));
+        Assert.assertNotSame(second, pool.obtainCompressor(1));
+
+        pool.releaseCompressor(first);
+        pool.clear();
+        Assert.assertNotSame(first, pool.obtainCompressor(1));
+    }
+
+    @Test
+    public void commitJsonResponse_gzipAccepted_compressedAndRecorded()
+            throws Exception {
+        VaadinService service = createService(6);
+        VaadinRequest request = Mockito.mock(VaadinRequest.class);
+        Mockito.when(request.getService()).thenReturn(service);
+        Mockito.when(request.getHeader("Accept-Encoding"))
+                .thenReturn("deflate, gzip");
+        VaadinResponse response = Mockito.mock(VaadinResponse.class);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Mockito.when(response.getOutputStream()).thenReturn(out);
+
+        UIInitHandler.commitJsonResponse(request, response, CONTENT);
+
+        Mockito.verify(response).setHeader("Content-Encoding", "gzip");
+        Mockito.verify(response).setHeader("Vary", "Accept-Encoding");
+        Mockito.verify(response).setContentLength(out.size());
+        Assert.assertEquals(CONTENT, decompress(out.toByteArray()));
+
+        CompressionStatistics statistics = service.getCompressionStatistics();
+        Assert.assertEquals(1, statistics.getResponseCount());
+        Assert.assertEquals(out.size(), statistics.getCompressedBytes());
+        Assert.assertEquals(CONTENT.getBytes(StandardCharsets.UTF_8).length,
+                statistics.getUncompressedBytes());
+    }
+
+    @Test
+    public void commitJsonResponse_gzipRefused_notCompressed()
+            throws Exception {
+        VaadinService service = createService(6);
+        VaadinRequest request = Mockito.mock(VaadinRequest.class);
+        Mockito.when(request.getService()).thenReturn(service);
+        Mockito.when(request.getHeader("Accept-Encoding"))
+                .thenReturn("gzip;q=0, deflate");
+        VaadinResponse response = Mockito.mock(VaadinResponse.class);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Mockito.when(response.getOutputStream()).thenReturn(out);
+
+        UIInitHandler.commitJsonResponse(request, response, CONTENT);
+
+        Mockito.verify(response, Mockito.never())
+                .setHeader("Content-Encoding", "gzip");
+        Assert.assertEquals(CONTENT,
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+        Assert.assertEquals(0,
+                service.getCompressionStatistics().getResponseCount());
+    }
+
+    @Test
+    public void commitJsonResponse_compressionDisabled_notCompressed()
+            throws Exception {
+        VaadinService service = createService(0);
+        VaadinRequest request = Mockito.mock(VaadinRequest.class);
+        Mockito.when(request.getService()).thenReturn(service);
+        Mockito.when(request.getHeader("Accept-Encoding")).thenReturn("gzip");
+        VaadinResponse response = Mockito.mock(VaadinResponse.class);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Mockito.when(response.getOutputStream()).thenReturn(out);
+
+        UIInitHandler.commitJsonResponse(request, response, CONTENT);
+
+        Assert.assertEquals(CONTENT,
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static VaadinService createService(int compressionLevel)
+            throws ServiceException {
+        MockDeploymentConfiguration configuration = new MockDeploymentConfiguration();
+        configuration.setResponseCompressionLevel(compressionLevel);
+        return new VaadinServletService(null, configuration);
+    }
+
+    private static String decompress(GzipCompressor compressor)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        compressor.writeTo(out);
+        return decompress(out.toByteArray());
+    }
+
+    private static String decompress(byte[] data) throws IOException {
+        GZIPInputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(data));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.server.MockVaadinSession;
+import com.vaadin.server.ServiceException;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinResponse;
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinServletService;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.shared.ApplicationConstants;
+import com.vaadin.shared.ui.ui.UIConstants;
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+import com.vaadin.ui.UI;
+
+public class HeartbeatHandlerTest {
+
+    private VaadinSession session;
+    private UI ui;
+    private VaadinRequest request;
+    private VaadinResponse response;
+    private HeartbeatHandler handler = new HeartbeatHandler();
+
+    private final CountDownLatch locked = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws ServiceException {
+        VaadinService service = new VaadinServletService(null,
+                new MockDeploymentConfiguration());
+        session = new MockVaadinSession(service);
+        ui = new UI() {
+            @Override
+            protected void init(VaadinRequest request) {
+            }
+        };
+        ui.doInit(Mockito.mock(VaadinRequest.class), 1, "");
+        session.lock();
+        try {
+            ui.setSession(session);
+            session.addUI(ui);
+        } finally {
+            session.unlock();
+        }
+        ui.setLastHeartbeatTimestamp(0);
+
+        request = Mockito.mock(VaadinRequest.class);
+        Mockito.when(request.getPathInfo())
+                .thenReturn("/" + ApplicationConstants.HEARTBEAT_PATH + "/");
+        response = Mockito.mock(VaadinResponse.class);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    public void sessionLockedByOtherThread_heartbeatHandled()
+            throws Exception {
+        Mockito.when(request.getParameter(UIConstants.UI_ID_PARAMETER))
+                .thenReturn("1");
+        lockInOtherThread();
+
+        Assert.assertTrue(
+                handler.handleRequestWithoutLock(session, request, response));
+
+        Assert.assertNotEquals(0, ui.getLastHeartbeatTimestamp());
+        Mockito.verify(response).setHeader("Cache-Control", "no-cache");
+    }
+
+    @Test
+    public void unknownUI_leftForLockedHandling() throws Exception {
+        Mockito.when(request.getParameter(UIConstants.UI_ID_PARAMETER))
+                .thenReturn("2");
+
+        Assert.assertFalse(
+                handler.handleRequestWithoutLock(session, request, response));
+        Mockito.verifyZeroInteractions(response);
+    }
+
+    @Test
+    public void closingUI_leftForLockedHandling() throws Exception {
+        Mockito.when(request.getParameter(UIConstants.UI_ID_PARAMETER))
+                .thenReturn("1");
+        session.lock();
+        try {
+            ui.close();
+        } finally {
+            session.unlock();
+        }
+
+        Assert.assertFalse(
+                handler.handleRequestWithoutLock(session, request, response));
+        Assert.assertEquals(0, ui.getLastHeartbeatTimestamp());
+    }
+
+    @Test
+    public void otherRequest_notHandled() throws Exception {
+        Mockito.when(request.getPathInfo()).thenReturn("/UIDL/");
+        Mockito.when(request.getParameter(UIConstants.UI_ID_PARAMETER))
+                .thenReturn("1");
+
+        Assert.assertFalse(
+                handler.handleRequestWithoutLock(session, request, response));
+        Assert.assertEquals(0, ui.getLastHeartbeatTimestamp());
+    }
+
+    private void lockInOtherThread() throws InterruptedException {
+        new Thread(() -> {
+            session.getLockInstance().lock();
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                session.getLockInstance().unlock();
+            }
+        }).start();
+        Assert.assertTrue(locked.await(5, TimeUnit.SECONDS));
+    }
+}
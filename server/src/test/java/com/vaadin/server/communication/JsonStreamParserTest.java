@@ -0,0 +1,133 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import elemental.json.JsonArray;
+import elemental.json.JsonException;
+import elemental.json.JsonObject;
+import elemental.json.JsonType;
+import elemental.json.impl.JsonUtil;
+
+public class JsonStreamParserTest {
+
+    private static final String RPC_MESSAGE = "{\"csrfToken\":\"abc-123\","
+            + "\"rpc\":[[\"0\",\"com.vaadin.shared.ui.ui.UIServerRpc\",\"resize\",[449,1155,1155,449]],"
+            + "[\"4\",\"com.vaadin.shared.ui.button.ButtonServerRpc\",\"click\",[{\"clientY\":53,\"shiftKey\":false,\"button\":\"LEFT\",\"type\":\"1\"}]],"
+            + "[\"5\",\"v\",\"v\",[\"text\",[\"s\",\"Quote \\\" slash \\\\ tab \\t \\u00e4\"]]]],"
+            + "\"syncId\":1, \"clientId\":0, \"resynchronize\":true}";
+
+    @Test
+    public void parseRpcMessage_sameAsStringParser() throws IOException {
+        JsonObject expected = JsonUtil.parse(RPC_MESSAGE);
+
+        Assert.assertEquals(expected.toJson(), parse(RPC_MESSAGE).toJson());
+    }
+
+    @Test
+    public void parseWithSmallBuffer_valuesSpanningBuffers()
+            throws IOException {
+        JsonObject expected = JsonUtil.parse(RPC_MESSAGE);
+
+        for (int bufferSize = 1; bufferSize < 20; bufferSize++) {
+            JsonObject json = JsonStreamParser
+                    .parseObject(new StringReader(RPC_MESSAGE), bufferSize);
+            Assert.assertEquals(expected.toJson(), json.toJson());
+        }
+    }
+
+    @Test
+    public void parseValues() throws IOException {
+        JsonObject json = parse(
+                " {\"a\": -1.5e2, \"b\": null, \"c\": [], \"d\": {}, \"e\": \"\\/\", \"f\": [true, [0]]}\n");
+
+        Assert.assertEquals(-150, json.getNumber("a"), 0);
+        Assert.assertEquals(JsonType.NULL, json.get("b").getType());
+        Assert.assertEquals(0, json.getArray("c").length());
+        Assert.assertEquals(0, json.getObject("d").keys().length);
+        Assert.assertEquals("/", json.getString("e"));
+        JsonArray f = json.getArray("f");
+        Assert.assertTrue(f.getBoolean(0));
+        Assert.assertEquals(0, f.getArray(1).getNumber(0), 0);
+    }
+
+    @Test
+    public void parseEmptyMessage_returnsNull() throws IOException {
+        Assert.assertNull(parse(""));
+        Assert.assertNull(parse(" \r\n"));
+    }
+
+    @Test(expected = JsonException.class)
+    public void parseTruncatedMessage_throws() throws IOException {
+        parse("{\"rpc\":[[\"0\"");
+    }
+
+    @Test(expected = JsonException.class)
+    public void parseTrailingContent_throws() throws IOException {
+        parse("{}{}");
+    }
+
+    @Test(expected = JsonException.class)
+    public void parseArrayMessage_throws() throws IOException {
+        parse("[]");
+    }
+
+    @Test(expected = JsonException.class)
+    public void parseMissingComma_throws() throws IOException {
+        parse("{\"a\":1 \"b\":2}");
+    }
+
+    @Test(expected = JsonException.class)
+    public void parseInvalidLiteral_throws() throws IOException {
+        parse("{\"a\":tru}");
+    }
+
+    @Test
+    public void parseNumbers() throws IOException {
+        JsonObject json = parse(
+                "{\"n\":[0, -0, 10, -12.5, 0.25, 1e3, 1E+2, 2.5e-1, 120]}");
+        JsonArray numbers = json.getArray("n");
+        double[] expected = { 0, -0.0, 10, -12.5, 0.25, 1000, 100, 0.25,
+                120 };
+        Assert.assertEquals(expected.length, numbers.length());
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(expected[i], numbers.getNumber(i), 0);
+        }
+    }
+
+    @Test
+    public void parseInvalidNumbers_throws() throws IOException {
+        String[] invalid = { "01", "-01", "1.", "1.e5", ".5", "+1", "-",
+                "1e", "1e+", "-.5", "00", "1.5e" };
+        for (String number : invalid) {
+            try {
+                parse("{\"a\":" + number + "}");
+                Assert.fail("Number should be rejected: " + number);
+            } catch (JsonException expected) {
+                // expected
+            }
+        }
+    }
+
+    private static JsonObject parse(String json) throws IOException {
+        return JsonStreamParser.parseObject(new StringReader(json));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.server.ServiceException;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinServletService;
+import com.vaadin.server.communication.ServerRpcHandler.RpcRequest;
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+
+public class ServerRpcHandlerTest {
+
+    private static final String MESSAGE = "{\"csrfToken\":\"abc\",\"rpc\":[],\"syncId\":1,\"clientId\":0}";
+
+    private VaadinRequest request;
+
+    @Before
+    public void setUp() throws ServiceException {
+        VaadinService service = new VaadinServletService(null,
+                new MockDeploymentConfiguration());
+        request = Mockito.mock(VaadinRequest.class);
+        Mockito.when(request.getService()).thenReturn(service);
+    }
+
+    @Test
+    public void readRpcRequest_parsedFromReader() throws IOException {
+        RpcRequest rpcRequest = new ServerRpcHandler()
+                .readRpcRequest(new StringReader(MESSAGE), request);
+
+        Assert.assertEquals("abc", rpcRequest.getCsrfToken());
+        Assert.assertEquals(1, rpcRequest.getSyncId());
+    }
+
+    @Test
+    public void readRpcRequest_overriddenGetMessageUsed() throws IOException {
+        ServerRpcHandler handler = new ServerRpcHandler() {
+            @Override
+            protected String getMessage(Reader reader) throws IOException {
+                return super.getMessage(reader).replace("abc", "def");
+            }
+        };
+
+        RpcRequest rpcRequest = handler
+                .readRpcRequest(new StringReader(MESSAGE), request);
+
+        Assert.assertEquals("def", rpcRequest.getCsrfToken());
+    }
+
+    @Test
+    public void readRpcRequest_overriddenGetMessageEmpty_returnsNull()
+            throws IOException {
+        ServerRpcHandler handler = new ServerRpcHandler() {
+            @Override
+            protected String getMessage(Reader reader) {
+                return "";
+            }
+        };
+
+        Assert.assertNull(
+                handler.readRpcRequest(new StringReader(MESSAGE), request));
+    }
+}
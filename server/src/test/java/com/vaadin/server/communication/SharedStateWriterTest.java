@@ -0,0 +1,226 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.shared.ui.label.LabelState;
+import com.vaadin.tests.util.MockUI;
+import com.vaadin.ui.ConnectorTracker;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.UI;
+
+import elemental.json.Json;
+import elemental.json.JsonObject;
+
+public class SharedStateWriterTest {
+
+    private static class TestLabel extends Label {
+        @Override
+        public LabelState getState() {
+            return super.getState();
+        }
+
+        @Override
+        public LabelState getState(boolean markAsDirty) {
+            return super.getState(markAsDirty);
+        }
+    }
+
+    private UI ui;
+    private ConnectorTracker tracker;
+    private TestLabel label;
+
+    @Before
+    public void setUp() throws IOException {
+        ui = new MockUI();
+        tracker = ui.getConnectorTracker();
+        label = new TestLabel();
+        label.setValue("foo");
+        ui.setContent(label);
+
+        // Simulate the initial response
+        write();
+        tracker.markClientSideInitialized(ui);
+        tracker.markClientSideInitialized(label);
+        tracker.markAllConnectorsClean();
+    }
+
+    @Test
+    public void unchangedState_trackingDisabled_connectorRemainsDirty()
+            throws IOException {
+        label.getState();
+
+        Set<String> written = write();
+
+        Assert.assertTrue(written.isEmpty());
+        Assert.assertTrue(tracker.isDirty(label));
+    }
+
+    @Test
+    public void unchangedState_trackingEnabled_connectorMarkedClean()
+            throws IOException {
+        tracker.setStateChangeTracking(true);
+        label.getState().text = "foo";
+
+        Set<String> written = write();
+
+        Assert.assertTrue(written.isEmpty());
+        Assert.assertFalse(tracker.isDirty(label));
+        Assert.assertFalse(tracker.getDirtyVisibleConnectors().contains(label));
+    }
+
+    @Test
+    public void changedState_trackingEnabled_connectorRemainsDirty()
+            throws IOException {
+        tracker.setStateChangeTracking(true);
+        label.getState().text = "bar";
+
+        Set<String> written = write();
+
+        Assert.assertTrue(written.contains(label.getConnectorId()));
+        Assert.assertTrue(tracker.isDirty(label));
+    }
+
+    @Test
+    public void unchangedState_explicitlyMarkedDirty_connectorRemainsDirty()
+            throws IOException {
+        tracker.setStateChangeTracking(true);
+        label.getState();
+        label.markAsDirty();
+
+        write();
+
+        Assert.assertTrue(tracker.isDirty(label));
+    }
+
+    @Test
+    public void writtenProperty_trackingDisabled_wholeStateEncoded()
+            throws IOException {
+        label.setValue("bar");
+        label.getState(false).description = "baz";
+
+        Assert.assertNull(tracker.getWrittenStateProperties(label));
+        JsonObject state = writeState();
+        Assert.assertEquals("bar", state.getString("text"));
+        Assert.assertEquals("baz", state.getString("description"));
+    }
+
+    @Test
+    public void writtenProperty_trackingEnabled_onlyWrittenPropertyEncoded()
+            throws IOException {
+        tracker.setStateChangeTracking(true);
+        label.setValue("bar");
+        // Not marked as written, so not encoded
+        label.getState(false).description = "baz";
+
+        Assert.assertEquals(Collections.singleton("text"),
+                tracker.getWrittenStateProperties(label));
+        JsonObject state = writeState();
+        Assert.assertEquals("bar", state.getString("text"));
+        Assert.assertFalse(state.hasKey("description"));
+        Assert.assertEquals("bar", tracker.getDiffState(label)
+                .getString("text"));
+    }
+
+    @Test
+    public void writtenProperty_thenStateRequested_wholeStateEncoded()
+            throws IOException {
+        tracker.setStateChangeTracking(true);
+        label.setValue("bar");
+        label.getState().description = "baz";
+
+        Assert.assertNull(tracker.getWrittenStateProperties(label));
+        JsonObject state = writeState();
+        Assert.assertEquals("bar", state.getString("text"));
+        Assert.assertEquals("baz", state.getString("description"));
+    }
+
+    @Test
+    public void writtenProperty_unchanged_connectorMarkedClean()
+            throws IOException {
+        tracker.setStateChangeTracking(true);
+        label.setValue("foo");
+
+        Set<String> written = write();
+
+        Assert.assertTrue(written.isEmpty());
+        Assert.assertFalse(tracker.isDirty(label));
+        Assert.assertNull(tracker.getWrittenStateProperties(label));
+    }
+
+    @Test
+    public void writtenProperty_explicitlyMarkedDirty_wholeStateEncoded()
+            throws IOException {
+        tracker.setStateChangeTracking(true);
+        label.setValue("bar");
+        label.getState(false).description = "baz";
+        label.markAsDirty();
+
+        JsonObject state = writeState();
+        Assert.assertEquals("bar", state.getString("text"));
+        Assert.assertEquals("baz", state.getString("description"));
+    }
+
+    @Test
+    public void compactStateEncoding_propertyNamesReplacedWithIds()
+            throws IOException {
+        StateKeyDictionary dictionary = new StateKeyDictionary();
+        label.getState().text = "bar";
+        label.getState().description = "baz";
+
+        StringWriter writer = new StringWriter();
+        new SharedStateWriter().write(ui, writer, dictionary);
+        JsonObject state = Json.parse(writer.toString())
+                .getObject(label.getConnectorId());
+
+        List<String> keys = dictionary.takeNewKeys();
+        Assert.assertEquals(2, keys.size());
+        Assert.assertEquals("bar", state.getString(dictionary.getId("text")));
+        Assert.assertEquals("baz",
+                state.getString(dictionary.getId("description")));
+        Assert.assertFalse(state.hasKey("text"));
+        Assert.assertEquals(0, dictionary.takeNewKeys().size());
+    }
+
+    private Set<String> write() throws IOException {
+        return write(new StringWriter());
+    }
+
+    private Set<String> write(StringWriter writer) throws IOException {
+        tracker.setWritingResponse(true);
+        try {
+            return new SharedStateWriter().write(ui, writer);
+        } finally {
+            tracker.setWritingResponse(false);
+        }
+    }
+
+    private JsonObject writeState() throws IOException {
+        StringWriter writer = new StringWriter();
+        write(writer);
+        return Json.parse(writer.toString())
+                .getObject(label.getConnectorId());
+    }
+}
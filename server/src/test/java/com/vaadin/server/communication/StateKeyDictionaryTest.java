@@ -0,0 +1,76 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StateKeyDictionaryTest {
+
+    @Test
+    public void getId_sameKey_sameId() {
+        StateKeyDictionary dictionary = new StateKeyDictionary();
+
+        String id = dictionary.getId("caption");
+
+        Assert.assertEquals(id, dictionary.getId("caption"));
+        Assert.assertNotEquals(id, dictionary.getId("description"));
+        Assert.assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    public void getId_idsAreBase36Indexes() {
+        StateKeyDictionary dictionary = new StateKeyDictionary();
+        for (int i = 0; i < 40; i++) {
+            Assert.assertEquals(i,
+                    Integer.parseInt(dictionary.getId("key" + i), 36));
+        }
+    }
+
+    @Test
+    public void takeNewKeys_returnsKeysOnceInIdOrder() {
+        StateKeyDictionary dictionary = new StateKeyDictionary();
+        dictionary.getId("caption");
+        dictionary.getId("width");
+        dictionary.getId("caption");
+
+        Assert.assertEquals(Arrays.asList("caption", "width"),
+                dictionary.takeNewKeys());
+        Assert.assertEquals(Collections.emptyList(),
+                dictionary.takeNewKeys());
+
+        dictionary.getId("height");
+        Assert.assertEquals(Arrays.asList("height"),
+                dictionary.takeNewKeys());
+    }
+
+    @Test
+    public void clear_idsAssignedAgainFromStart() {
+        StateKeyDictionary dictionary = new StateKeyDictionary();
+        dictionary.getId("caption");
+        dictionary.getId("width");
+        dictionary.takeNewKeys();
+
+        dictionary.clear();
+
+        Assert.assertEquals("0", dictionary.getId("width"));
+        Assert.assertEquals(Arrays.asList("width"),
+                dictionary.takeNewKeys());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.server.ServiceException;
+import com.vaadin.server.UidlMetricsEvent;
+import com.vaadin.server.UidlMetricsEvent.Phase;
+import com.vaadin.server.UidlMetricsListener;
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinServletService;
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+import com.vaadin.tests.util.MockUI;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.UI;
+import com.vaadin.util.CurrentInstance;
+
+public class UidlMetricsCollectorTest {
+
+    private VaadinService service;
+    private List<UidlMetricsEvent> events = new ArrayList<>();
+    private UidlMetricsListener listener = events::add;
+
+    @Before
+    public void setUp() throws ServiceException {
+        service = new VaadinServletService(null,
+                new MockDeploymentConfiguration());
+    }
+
+    @After
+    public void tearDown() {
+        CurrentInstance.clearAll();
+    }
+
+    @Test
+    public void noListeners_notCollected() {
+        Assert.assertNull(UidlMetricsCollector.begin(service));
+        Assert.assertNull(UidlMetricsCollector.getCurrent());
+    }
+
+    @Test
+    public void removedListener_notCollected() {
+        service.addUidlMetricsListener(listener);
+        service.removeUidlMetricsListener(listener);
+
+        Assert.assertNull(UidlMetricsCollector.begin(service));
+    }
+
+    @Test
+    public void end_eventFiredAndCurrentRestored() {
+        service.addUidlMetricsListener(listener);
+        UI ui = new MockUI();
+
+        UidlMetricsCollector metrics = UidlMetricsCollector.begin(service);
+        Assert.assertSame(metrics, UidlMetricsCollector.getCurrent());
+        metrics.startPhase();
+        metrics.endPhase(Phase.RPC_INVOKE);
+        metrics.startPhase();
+        metrics.endPhase(Phase.RPC_INVOKE);
+        metrics.end(ui, true, 123);
+
+        Assert.assertNull(UidlMetricsCollector.getCurrent());
+        Assert.assertEquals(1, events.size());
+        UidlMetricsEvent event = events.get(0);
+        Assert.assertSame(service, event.getService());
+        Assert.assertSame(ui, event.getUI());
+        Assert.assertTrue(event.isAsync());
+        Assert.assertEquals(123, event.getResponseSize());
+        Assert.assertTrue(event.getNanos(Phase.RPC_INVOKE) > 0);
+        Assert.assertEquals(0, event.getNanos(Phase.STATE_ENCODE));
+        Assert.assertEquals(event.getNanos(Phase.RPC_INVOKE),
+                event.getTotalNanos());
+    }
+
+    @Test
+    public void cancel_noEventFired() {
+        service.addUidlMetricsListener(listener);
+
+        UidlMetricsCollector.begin(service).cancel();
+
+        Assert.assertNull(UidlMetricsCollector.getCurrent());
+        Assert.assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void failingListener_exceptionNotPropagated() {
+        service.addUidlMetricsListener(event -> {
+            throw new IllegalStateException();
+        });
+
+        UidlMetricsCollector.begin(service).end(new MockUI(), false, 0);
+
+        Assert.assertNull(UidlMetricsCollector.getCurrent());
+    }
+
+    @Test
+    public void writeState_sizePerConnectorClass() throws IOException {
+        service.addUidlMetricsListener(listener);
+        UI ui = new MockUI();
+        Label label = new Label("ä€");
+        ui.setContent(label);
+
+        UidlMetricsCollector metrics = UidlMetricsCollector.begin(service);
+        StringWriter writer = new StringWriter();
+        new SharedStateWriter().write(ui, writer, null, metrics);
+        metrics.end(ui, false, 0);
+
+        Integer labelSize = events.get(0).getStateSizes().get(Label.class);
+        Assert.assertNotNull(labelSize);
+        Assert.assertTrue(events.get(0).getStateSizes()
+                .containsKey(MockUI.class));
+        int total = 0;
+        for (int size : events.get(0).getStateSizes().values()) {
+            total += size;
+        }
+        // The states object adds braces, quoted connector ids and separators
+        Assert.assertTrue(total < writer.toString()
+                .getBytes(StandardCharsets.UTF_8).length);
+        Assert.assertTrue(total > labelSize);
+    }
+
+    @Test
+    public void utf8Length() {
+        String string = "aä€😀";
+
+        Assert.assertEquals(string.getBytes(StandardCharsets.UTF_8).length,
+                UidlMetricsCollector.utf8Length(string));
+    }
+}
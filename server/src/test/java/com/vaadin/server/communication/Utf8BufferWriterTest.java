@@ -0,0 +1,92 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class Utf8BufferWriterTest {
+
+    private static final String TEXT = "for(;;);[{\"a\":\"ä€😀\"}]";
+
+    @Test
+    public void write_encodedAsUtf8() throws IOException {
+        Utf8BufferWriter writer = new Utf8BufferWriter();
+        writer.write(TEXT);
+
+        byte[] expected = TEXT.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out);
+
+        Assert.assertArrayEquals(expected, out.toByteArray());
+        Assert.assertEquals(expected.length, writer.size());
+        Assert.assertEquals(TEXT, writer.toString());
+    }
+
+    @Test
+    public void write_surrogatePairSplitBetweenWrites() throws IOException {
+        Utf8BufferWriter writer = new Utf8BufferWriter();
+        writer.write('\uD83D');
+        writer.write("\uDE00");
+
+        Assert.assertEquals("😀", writer.toString());
+    }
+
+    @Test
+    public void write_unpairedSurrogatesReplaced() throws IOException {
+        String text = "a\uD83Db\uDE00";
+        Utf8BufferWriter writer = new Utf8BufferWriter();
+        writer.write(text);
+
+        Assert.assertEquals(new String(text.getBytes(StandardCharsets.UTF_8),
+                StandardCharsets.UTF_8), writer.toString());
+    }
+
+    @Test
+    public void write_bufferGrows() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            text.append("äbc");
+        }
+        Utf8BufferWriter writer = new Utf8BufferWriter();
+        writer.write(text.toString());
+
+        Assert.assertEquals(text.toString(), writer.toString());
+    }
+
+    @Test
+    public void obtain_releasedWriterReusedEmpty() throws IOException {
+        ResponseBufferPool pool = new ResponseBufferPool(1);
+        Utf8BufferWriter writer = pool.obtainWriter();
+        writer.write("foo");
+        pool.releaseWriter(writer);
+
+        Utf8BufferWriter reused = pool.obtainWriter();
+        Assert.assertSame(writer, reused);
+        Assert.assertEquals(0, reused.size());
+
+        // Writers in use are not shared
+        Assert.assertNotSame(reused, pool.obtainWriter());
+
+        pool.releaseWriter(reused);
+        pool.clear();
+        Assert.assertNotSame(reused, pool.obtainWriter());
+    }
+}
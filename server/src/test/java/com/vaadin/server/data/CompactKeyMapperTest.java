@@ -0,0 +1,121 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.server.KeyMapper;
+
+public class CompactKeyMapperTest {
+
+    @Test
+    public void key_sameKeysAsKeyMapper() {
+        CompactKeyMapper<String> compact = new CompactKeyMapper<>();
+        KeyMapper<String> keyMapper = new KeyMapper<>();
+
+        for (String item : new String[] { "a", "b", "a", null, "c" }) {
+            Assert.assertEquals(keyMapper.key(item), compact.key(item));
+        }
+        keyMapper.remove("a");
+        compact.remove("a");
+        Assert.assertEquals(keyMapper.key("a"), compact.key("a"));
+        Assert.assertEquals("4", compact.key("a"));
+    }
+
+    @Test
+    public void get_invalidKeys_returnNull() {
+        CompactKeyMapper<String> mapper = new CompactKeyMapper<>();
+        mapper.key("a");
+
+        Assert.assertEquals("a", mapper.get("1"));
+        for (String key : new String[] { null, "", "null", "0", "01", "-1",
+                "2", "a", "99999999999" }) {
+            Assert.assertNull(key, mapper.get(key));
+        }
+    }
+
+    @Test
+    public void randomOperations_matchHashMap() {
+        CompactKeyMapper<Integer> mapper = new CompactKeyMapper<>();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100000; ++i) {
+            Integer item = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                mapper.remove(item);
+                expected.remove(item);
+            } else {
+                String key = mapper.key(item);
+                String old = expected.putIfAbsent(item, key);
+                if (old != null) {
+                    Assert.assertEquals(old, key);
+                }
+            }
+        }
+
+        Assert.assertEquals(expected.size(), mapper.size());
+        expected.forEach((item, key) -> {
+            Assert.assertEquals(key, mapper.key(item));
+            Assert.assertEquals(item, mapper.get(key));
+        });
+    }
+
+    @Test
+    public void removeAll_keysNotReused() {
+        CompactKeyMapper<String> mapper = new CompactKeyMapper<>();
+        mapper.key("a");
+        mapper.key("b");
+
+        mapper.removeAll();
+
+        Assert.assertEquals(0, mapper.size());
+        Assert.assertNull(mapper.get("1"));
+        Assert.assertEquals("3", mapper.key("a"));
+    }
+
+    @Test
+    public void serialization_mappingsRestored() throws Exception {
+        CompactKeyMapper<String> mapper = new CompactKeyMapper<>();
+        for (int i = 0; i < 100; ++i) {
+            mapper.key("item" + i);
+        }
+        mapper.remove("item50");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(mapper);
+        }
+        @SuppressWarnings("unchecked")
+        CompactKeyMapper<String> copy = (CompactKeyMapper<String>) new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+        Assert.assertEquals(99, copy.size());
+        Assert.assertEquals("item0", copy.get("1"));
+        Assert.assertEquals("100", copy.key("item99"));
+        Assert.assertNull(copy.get("51"));
+        Assert.assertEquals("101", copy.key("item50"));
+    }
+}
@@ -15,19 +15,46 @@
  */
 package com.vaadin.server.data;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import com.vaadin.server.ClientMethodInvocation;
 import com.vaadin.server.MockVaadinSession;
 import com.vaadin.server.VaadinRequest;
 import com.vaadin.server.VaadinService;
 import com.vaadin.server.VaadinSession;
+import com.vaadin.server.VaadinSession.FutureAccess;
+import com.vaadin.server.communication.PushConnection;
 import com.vaadin.shared.Registration;
+import com.vaadin.shared.communication.PushMode;
+import com.vaadin.shared.data.DataCommunicatorConstants;
+import com.vaadin.shared.data.DataRequestRpc;
 import com.vaadin.ui.UI;
 
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
 /**
  * @author Vaadin Ltd
  *
@@ -52,6 +79,26 @@ public class DataCommunicatorTest {
         }
     }
 
+    private static class Item {
+        private final int id;
+        private final String name;
+
+        private Item(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Item && ((Item) obj).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+    }
+
     private static class TestDataSource extends ListDataSource<Object>
             implements Registration {
 
@@ -79,7 +126,22 @@ public class DataCommunicatorTest {
 
     }
 
-    private static class TestDataCommunicator extends DataCommunicator<Object> {
+    private static class CountingDataSource extends ListDataSource<Integer> {
+
+        private int applyCount = 0;
+
+        public CountingDataSource(List<Integer> items) {
+            super(items);
+        }
+
+        @Override
+        public Stream<Integer> apply(Query query) {
+            ++applyCount;
+            return super.apply(query);
+        }
+    }
+
+    private static class TestDataCommunicator<T> extends DataCommunicator<T> {
         protected void extend(UI ui) {
             super.extend(ui);
         }
@@ -94,7 +156,7 @@ public class DataCommunicatorTest {
 
         UI ui = new TestUI(session);
 
-        TestDataCommunicator communicator = new TestDataCommunicator();
+        TestDataCommunicator<Object> communicator = new TestDataCommunicator<>();
 
         TestDataSource dataSource = new TestDataSource();
         communicator.setDataSource(dataSource);
@@ -112,7 +174,7 @@ public class DataCommunicatorTest {
 
         UI ui = new TestUI(session);
 
-        TestDataCommunicator communicator = new TestDataCommunicator();
+        TestDataCommunicator<Object> communicator = new TestDataCommunicator<>();
 
         TestDataSource dataSource = new TestDataSource();
         communicator.setDataSource(dataSource);
@@ -126,4 +188,602 @@ public class DataCommunicatorTest {
         Assert.assertFalse(dataSource.isListenerAdded());
     }
 
+    @Test
+    public void inMemoryData_sortedOnceForConsecutiveRequests() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        TestDataCommunicator<Integer> communicator = new TestDataCommunicator<>();
+        // Too few items for selecting the first rows with a partial sort
+        List<Integer> items = IntStream.range(0, 500).boxed()
+                .collect(Collectors.toList());
+        CountingDataSource dataSource = new CountingDataSource(items);
+        communicator.setDataSource(dataSource);
+        communicator.setInMemorySorting(Comparator.reverseOrder());
+        communicator.setInMemoryFilter(i -> i % 2 == 0);
+        communicator.extend(ui);
+
+        communicator.beforeClientResponse(true);
+        Assert.assertEquals(1, dataSource.applyCount);
+
+        communicator.new SimpleDataRequestRpc().requestRows(100, 40, 0, 0);
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals(1, dataSource.applyCount);
+        // Keys 1-40 were used for the initial rows 498, 496, ..., 420
+        Assert.assertEquals(Integer.valueOf(298),
+                communicator.getKeyMapper().get("41"));
+
+        dataSource.refreshAll();
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals(2, dataSource.applyCount);
+
+        communicator.setInMemorySorting(null);
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals(3, dataSource.applyCount);
+    }
+
+    @Test
+    public void inMemoryData_firstRowsSelectedWithPartialSort() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        TestDataCommunicator<Integer> communicator = new TestDataCommunicator<>();
+        // Many equal sort keys to verify the order of equal items is kept
+        List<Integer> items = IntStream.range(0, 10000).boxed()
+                .collect(Collectors.toList());
+        Collections.shuffle(items, new Random(42));
+        CountingDataSource dataSource = new CountingDataSource(items);
+        AtomicInteger comparisons = new AtomicInteger();
+        Comparator<Integer> comparator = (a, b) -> {
+            comparisons.incrementAndGet();
+            return Integer.compare(b / 100, a / 100);
+        };
+        communicator.setDataSource(dataSource);
+        communicator.setInMemorySorting(comparator);
+        communicator.setInMemoryFilter(i -> i % 2 == 0);
+        communicator.extend(ui);
+
+        communicator.beforeClientResponse(true);
+        Assert.assertEquals(1, dataSource.applyCount);
+        // A full sort of 5000 items would need tens of thousands
+        Assert.assertTrue(comparisons.get() < 5000 * 2);
+
+        List<Integer> expected = items.stream().filter(i -> i % 2 == 0)
+                .sorted(comparator).collect(Collectors.toList());
+        List<ClientMethodInvocation> calls = communicator
+                .retrievePendingRpcCalls();
+        Assert.assertEquals(5000, calls.get(0).getParameters()[0]);
+        JsonArray rows = (JsonArray) calls.get(1).getParameters()[1];
+        Assert.assertEquals(40, rows.length());
+        for (int i = 0; i < rows.length(); ++i) {
+            String key = rows.getObject(i)
+                    .getString(DataCommunicatorConstants.KEY);
+            Assert.assertEquals(expected.get(i),
+                    communicator.getKeyMapper().get(key));
+        }
+
+        // Deep offsets sort all data once
+        communicator.new SimpleDataRequestRpc().requestRows(2000, 40, 0, 0);
+        communicator.beforeClientResponse(false);
+        communicator.new SimpleDataRequestRpc().requestRows(0, 40, 0, 0);
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals(2, dataSource.applyCount);
+    }
+
+    @Test
+    public void inMemoryData_resorted_firstRowsSelectedWithPartialSort() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        TestDataCommunicator<Integer> communicator = new TestDataCommunicator<>();
+        List<Integer> items = IntStream.range(0, 100000).boxed()
+                .collect(Collectors.toList());
+        Collections.shuffle(items, new Random(42));
+        CountingDataSource dataSource = new CountingDataSource(items);
+        AtomicInteger comparisons = new AtomicInteger();
+        communicator.setDataSource(dataSource);
+        communicator.setInMemorySorting((a, b) -> {
+            comparisons.incrementAndGet();
+            return Integer.compare(a, b);
+        });
+        communicator.extend(ui);
+        communicator.beforeClientResponse(true);
+        communicator.retrievePendingRpcCalls();
+
+        // Sorting by another column resets with no rows requested
+        comparisons.set(0);
+        communicator.setInMemorySorting((a, b) -> {
+            comparisons.incrementAndGet();
+            return Integer.compare(b, a);
+        });
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals(100000, communicator.retrievePendingRpcCalls()
+                .get(0).getParameters()[0]);
+
+        // The rows requested by the client after the reset use the same pass
+        communicator.new SimpleDataRequestRpc().requestRows(0, 40, 0, 0);
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals(2, dataSource.applyCount);
+        // A full sort of 100000 items would need over a million
+        Assert.assertTrue(comparisons.get() < 100000 * 2);
+
+        JsonArray rows = (JsonArray) communicator.retrievePendingRpcCalls()
+                .get(0).getParameters()[1];
+        Assert.assertEquals(40, rows.length());
+        for (int i = 0; i < rows.length(); ++i) {
+            String key = rows.getObject(i)
+                    .getString(DataCommunicatorConstants.KEY);
+            Assert.assertEquals(Integer.valueOf(99999 - i),
+                    communicator.getKeyMapper().get(key));
+        }
+    }
+
+    @Test
+    public void backEndFilters_passedToSizeAndFetchQueries() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        List<Query> queries = new ArrayList<>();
+        BackEndDataSource<String> dataSource = new BackEndDataSource<>(
+                query -> {
+                    queries.add(query);
+                    return Stream.of("foo", "bar").filter(
+                            s -> s.startsWith(query.getFilter(String.class)
+                                    .orElse("")))
+                            .skip(query.getOffset()).limit(query.getLimit());
+                }, query -> {
+                    queries.add(query);
+                    return 1;
+                });
+
+        TestDataCommunicator<String> communicator = new TestDataCommunicator<>();
+        communicator.setDataSource(dataSource);
+        communicator.setBackEndFilters(Collections.singleton("f"));
+        communicator.extend(ui);
+
+        communicator.beforeClientResponse(true);
+
+        Assert.assertEquals(2, queries.size());
+        for (Query query : queries) {
+            Assert.assertEquals("f", query.getFilter(String.class).get());
+            Assert.assertFalse(query.getFilter(Integer.class).isPresent());
+        }
+        Assert.assertEquals("foo", communicator.getKeyMapper().get("1"));
+        Assert.assertNull(communicator.getKeyMapper().get("2"));
+    }
+
+    @Test
+    public void activeData_droppedItemNoLongerActive() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        TestDataCommunicator<Integer> communicator = new TestDataCommunicator<>();
+        communicator.setDataSource(DataSource.create(IntStream.range(0, 100)
+                .boxed().collect(Collectors.toList())));
+        communicator.extend(ui);
+
+        communicator.beforeClientResponse(true);
+        Assert.assertTrue(communicator.getActiveDataHandler().isActive(0));
+        Assert.assertTrue(communicator.getActiveDataHandler().isActive(39));
+        Assert.assertFalse(communicator.getActiveDataHandler().isActive(40));
+
+        JsonArray dropped = Json.createArray();
+        dropped.set(0, communicator.getKeyMapper().key(0));
+        communicator.new SimpleDataRequestRpc().dropRows(dropped);
+        communicator.new SimpleDataRequestRpc().requestRows(1, 40, 0, 0);
+        communicator.beforeClientResponse(false);
+
+        Assert.assertFalse(communicator.getActiveDataHandler().isActive(0));
+        Assert.assertTrue(communicator.getActiveDataHandler().isActive(40));
+    }
+
+    @Test
+    public void refresh_onlyChangedValuesSent() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        Map<String, String> prices = new HashMap<>();
+        prices.put("foo", "1.00");
+        prices.put("bar", "2.00");
+
+        TestDataCommunicator<String> communicator = new TestDataCommunicator<>();
+        communicator.setDataSource(DataSource.create("foo", "bar"));
+        communicator.addDataGenerator((item, json) -> {
+            json.put("name", item);
+            JsonObject data = Json.createObject();
+            data.put("price", prices.get(item));
+            data.put("volume", 100);
+            json.put(DataCommunicatorConstants.DATA, data);
+            if (item.equals("bar") && prices.get(item).equals("2.00")) {
+                json.put("style", "old");
+            }
+        });
+        communicator.extend(ui);
+
+        communicator.beforeClientResponse(true);
+        communicator.retrievePendingRpcCalls();
+
+        prices.put("bar", "2.50");
+        communicator.refresh("bar");
+        communicator.beforeClientResponse(false);
+
+        List<ClientMethodInvocation> calls = communicator
+                .retrievePendingRpcCalls();
+        Assert.assertEquals(1, calls.size());
+        Assert.assertEquals("updateData", calls.get(0).getMethodName());
+        JsonArray updates = (JsonArray) calls.get(0).getParameters()[0];
+        Assert.assertEquals(1, updates.length());
+        Assert.assertEquals("{\"d\":{\"price\":\"2.50\"},\""
+                + DataCommunicatorConstants.REMOVED
+                + "\":[\"style\"],\"k\":\"2\"}",
+                updates.getObject(0).toJson());
+
+        // Nothing has changed since the last update
+        communicator.refresh("bar");
+        communicator.beforeClientResponse(false);
+        Assert.assertTrue(communicator.retrievePendingRpcCalls().isEmpty());
+    }
+
+    @Test(expected = AssertionError.class)
+    public void generatorUsingRemovedKey_throws() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        TestDataCommunicator<String> communicator = new TestDataCommunicator<>();
+        communicator.setDataSource(DataSource.create("foo"));
+        communicator.addDataGenerator((item, json) -> {
+            JsonObject data = Json.createObject();
+            data.put(DataCommunicatorConstants.REMOVED, item);
+            json.put(DataCommunicatorConstants.DATA, data);
+        });
+        communicator.extend(ui);
+
+        communicator.beforeClientResponse(true);
+    }
+
+    @Test
+    public void dataGenerationExecutor_threadSafeGeneratorsRunConcurrently() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        TestDataCommunicator<Integer> communicator = new TestDataCommunicator<>();
+        communicator.setDataSource(DataSource.create(IntStream.range(0, 100)
+                .boxed().collect(Collectors.toList())));
+        communicator.addDataGenerator(new DataGenerator<Integer>() {
+            @Override
+            public void generateData(Integer item, JsonObject jsonObject) {
+                Assert.assertSame(ui, UI.getCurrent());
+                threads.add(Thread.currentThread());
+                jsonObject.put("square", item * item);
+            }
+
+            @Override
+            public boolean isThreadSafe() {
+                return true;
+            }
+        });
+        communicator.extend(ui);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            communicator.setDataGenerationExecutor(executor);
+            communicator.beforeClientResponse(true);
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertFalse(threads.contains(Thread.currentThread()));
+
+        List<ClientMethodInvocation> calls = communicator
+                .retrievePendingRpcCalls();
+        JsonArray rows = (JsonArray) calls.get(1).getParameters()[1];
+        Assert.assertEquals(40, rows.length());
+        for (int i = 0; i < rows.length(); ++i) {
+            JsonObject row = rows.getObject(i);
+            Assert.assertEquals(i * i, (int) row.getNumber("square"));
+            Assert.assertEquals(Integer.valueOf(i), communicator.getKeyMapper()
+                    .get(row.getString(DataCommunicatorConstants.KEY)));
+        }
+    }
+
+    @Test
+    public void dataGenerationExecutor_errorInGeneratorRethrown() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        Error error = new OutOfMemoryError();
+        TestDataCommunicator<Integer> communicator = new TestDataCommunicator<>();
+        communicator.setDataSource(DataSource.create(IntStream.range(0, 100)
+                .boxed().collect(Collectors.toList())));
+        communicator.addDataGenerator(new DataGenerator<Integer>() {
+            @Override
+            public void generateData(Integer item, JsonObject jsonObject) {
+                throw error;
+            }
+
+            @Override
+            public boolean isThreadSafe() {
+                return true;
+            }
+        });
+        communicator.extend(ui);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            communicator.setDataGenerationExecutor(executor);
+            communicator.beforeClientResponse(true);
+            Assert.fail("Error should have been rethrown");
+        } catch (OutOfMemoryError e) {
+            Assert.assertSame(error, e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void backEndReadAhead_rowsFetchedAheadInOneQuery() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        List<Query> queries = new ArrayList<>();
+        BackEndDataSource<Integer> dataSource = new BackEndDataSource<>(
+                query -> {
+                    queries.add(query);
+                    return IntStream.range(0, 1000).boxed()
+                            .skip(query.getOffset()).limit(query.getLimit());
+                }, query -> 1000);
+
+        TestDataCommunicator<Integer> communicator = new TestDataCommunicator<>();
+        communicator.setDataSource(dataSource);
+        communicator.setBackEndReadAhead(200);
+        communicator.extend(ui);
+        DataRequestRpc rpc = communicator.new SimpleDataRequestRpc();
+
+        communicator.beforeClientResponse(true);
+        Assert.assertEquals(1, queries.size());
+        Assert.assertEquals(0, queries.get(0).getOffset());
+        Assert.assertEquals(80, queries.get(0).getLimit());
+
+        // Already fetched ahead
+        rpc.requestRows(40, 40, 0, 0);
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals(1, queries.size());
+
+        // Moving faster fetches more ahead
+        rpc.requestRows(140, 40, 0, 0);
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals(2, queries.size());
+        Assert.assertEquals(140, queries.get(1).getOffset());
+        Assert.assertEquals(240, queries.get(1).getLimit());
+
+        // Scrolling up fetches the rows before
+        rpc.requestRows(100, 40, 0, 0);
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals(3, queries.size());
+        Assert.assertEquals(20, queries.get(2).getOffset());
+        Assert.assertEquals(120, queries.get(2).getLimit());
+
+        // Reset drops the rows fetched ahead
+        communicator.reset();
+        communicator.beforeClientResponse(false);
+        rpc.requestRows(100, 40, 0, 0);
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals(4, queries.size());
+        Assert.assertEquals(100, queries.get(3).getOffset());
+    }
+
+    @Test
+    public void backEndReadAhead_refreshedItemSentAfterScrollingBack() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        // A new instance is created for each query, like in JPA back ends
+        Map<Integer, String> names = new HashMap<>();
+        BackEndDataSource<Item> dataSource = new BackEndDataSource<>(
+                query -> IntStream.range(0, 1000).skip(query.getOffset())
+                        .limit(query.getLimit()).mapToObj(id -> new Item(id,
+                                names.getOrDefault(id, "old"))),
+                query -> 1000);
+
+        TestDataCommunicator<Item> communicator = new TestDataCommunicator<>();
+        communicator.setDataSource(dataSource);
+        communicator.setBackEndReadAhead(200);
+        communicator.addDataGenerator(
+                (item, json) -> json.put("name", item.name));
+        communicator.extend(ui);
+        DataRequestRpc rpc = communicator.new SimpleDataRequestRpc();
+
+        communicator.beforeClientResponse(true);
+        communicator.retrievePendingRpcCalls();
+
+        names.put(10, "new");
+        communicator.refresh(new Item(10, "new"));
+        communicator.beforeClientResponse(false);
+
+        // Scroll out so that the item is dropped, then back
+        rpc.requestRows(40, 40, 40, 40);
+        communicator.beforeClientResponse(false);
+        rpc.requestRows(0, 40, 0, 40);
+        communicator.beforeClientResponse(false);
+
+        List<ClientMethodInvocation> setDataCalls = getSetDataCalls(
+                communicator).collect(Collectors.toList());
+        JsonArray rows = (JsonArray) setDataCalls
+                .get(setDataCalls.size() - 1).getParameters()[1];
+        Assert.assertEquals("new", rows.getObject(10).getString("name"));
+    }
+
+    @Test
+    public void asyncBackEnd_rowsSentWhenRequestCompletes() {
+        VaadinService service = Mockito.mock(VaadinService.class);
+        Mockito.when(service.accessSession(Mockito.any(), Mockito.any()))
+                .thenCallRealMethod();
+        Mockito.when(service.ensurePushAvailable()).thenReturn(true);
+        MockVaadinSession session = new MockVaadinSession(service);
+        session.lock();
+
+        UI ui = new TestUI(session);
+        ui.getPushConfiguration().setPushMode(PushMode.AUTOMATIC);
+
+        List<CompletableFuture<Stream<Integer>>> requests = new ArrayList<>();
+        AsyncBackEndDataSource<Integer> dataSource = new AsyncBackEndDataSource<>(
+                query -> {
+                    CompletableFuture<Stream<Integer>> request = new CompletableFuture<>();
+                    requests.add(request);
+                    return request.thenApply(stream -> stream
+                            .skip(query.getOffset()).limit(query.getLimit()));
+                }, query -> 100);
+
+        TestDataCommunicator<Integer> communicator = new TestDataCommunicator<>();
+        communicator.setDataSource(dataSource);
+        communicator.extend(ui);
+
+        communicator.beforeClientResponse(true);
+        Assert.assertEquals(1, requests.size());
+        Assert.assertFalse("Rows should not be sent before the request completes",
+                getSetDataCalls(communicator).findAny().isPresent());
+
+        requests.get(0).complete(IntStream.range(0, 100).boxed());
+        Assert.assertFalse(
+                "Rows should be sent in an access task",
+                getSetDataCalls(communicator).findAny().isPresent());
+
+        session.getPendingAccessQueue().poll().run();
+        Assert.assertEquals(1, getSetDataCalls(communicator).count());
+        Assert.assertTrue(communicator.getActiveDataHandler().isActive(0));
+
+        // Rows fetched before a reset are not sent
+        communicator.new SimpleDataRequestRpc().requestRows(40, 10, 0, 0);
+        communicator.beforeClientResponse(false);
+        communicator.reset();
+        requests.get(1).complete(IntStream.range(0, 100).boxed());
+        session.getPendingAccessQueue().poll().run();
+        Assert.assertEquals(0, getSetDataCalls(communicator).count());
+        Assert.assertFalse(communicator.getActiveDataHandler().isActive(40));
+    }
+
+    @Test
+    public void asyncBackEndManualPush_rowsPushedWhenRequestCompletes() {
+        VaadinService service = Mockito.mock(VaadinService.class);
+        Mockito.when(service.accessSession(Mockito.any(), Mockito.any()))
+                .thenCallRealMethod();
+        Mockito.when(service.ensurePushAvailable()).thenReturn(true);
+        MockVaadinSession session = new MockVaadinSession(service);
+        session.lock();
+
+        UI ui = new TestUI(session);
+        ui.getPushConfiguration().setPushMode(PushMode.MANUAL);
+        PushConnection pushConnection = Mockito.mock(PushConnection.class);
+        ui.setPushConnection(pushConnection);
+
+        CompletableFuture<Stream<Integer>> request = new CompletableFuture<>();
+        AsyncBackEndDataSource<Integer> dataSource = new AsyncBackEndDataSource<>(
+                query -> request.thenApply(stream -> stream
+                        .skip(query.getOffset()).limit(query.getLimit())),
+                query -> 100);
+
+        TestDataCommunicator<Integer> communicator = new TestDataCommunicator<>();
+        communicator.setDataSource(dataSource);
+        communicator.extend(ui);
+        ui.getConnectorTracker().markAllConnectorsClean();
+
+        communicator.beforeClientResponse(true);
+        request.complete(IntStream.range(0, 100).boxed());
+        Mockito.verify(pushConnection, Mockito.never()).push();
+
+        session.getPendingAccessQueue().poll().run();
+        Mockito.verify(pushConnection).push();
+        Assert.assertEquals(1, getSetDataCalls(communicator).count());
+    }
+
+    @Test
+    public void asyncBackEnd_failureReadingRowsReported() throws Exception {
+        VaadinService service = Mockito.mock(VaadinService.class);
+        Mockito.when(service.accessSession(Mockito.any(), Mockito.any()))
+                .thenCallRealMethod();
+        Mockito.when(service.ensurePushAvailable()).thenReturn(true);
+        MockVaadinSession session = new MockVaadinSession(service);
+        session.lock();
+
+        UI ui = new TestUI(session);
+        ui.getPushConfiguration().setPushMode(PushMode.AUTOMATIC);
+
+        RuntimeException exception = new RuntimeException("Failed");
+        AsyncBackEndDataSource<Integer> dataSource = new AsyncBackEndDataSource<>(
+                query -> CompletableFuture
+                        .completedFuture(Stream.<Integer> generate(() -> {
+                            throw exception;
+                        })),
+                query -> 100);
+
+        TestDataCommunicator<Integer> communicator = new TestDataCommunicator<>();
+        communicator.setDataSource(dataSource);
+        communicator.extend(ui);
+
+        communicator.beforeClientResponse(true);
+
+        FutureAccess access = session.getPendingAccessQueue().poll();
+        Assert.assertNotNull("Failure should be reported in an access task",
+                access);
+        access.run();
+        try {
+            access.get();
+            Assert.fail("Access task should have failed");
+        } catch (ExecutionException e) {
+            Assert.assertSame(exception, e.getCause().getCause());
+        }
+        Assert.assertEquals(0, getSetDataCalls(communicator).count());
+    }
+
+    @Test
+    public void asyncBackEndWithoutPush_rowsSentSynchronously() {
+        VaadinService service = Mockito.mock(VaadinService.class);
+        MockVaadinSession session = new MockVaadinSession(service);
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        AtomicInteger backEndRequests = new AtomicInteger();
+        AsyncBackEndDataSource<Integer> dataSource = new AsyncBackEndDataSource<Integer>(
+                query -> {
+                    backEndRequests.incrementAndGet();
+                    return CompletableFuture.completedFuture(IntStream
+                            .range(0, 100).boxed().skip(query.getOffset())
+                            .limit(query.getLimit()));
+                }, query -> 100) {
+            @Override
+            public CompletionStage<Stream<Integer>> applyAsync(Query query) {
+                throw new AssertionError("Should not fetch asynchronously");
+            }
+        };
+
+        TestDataCommunicator<Integer> communicator = new TestDataCommunicator<>();
+        communicator.setDataSource(dataSource);
+        communicator.extend(ui);
+
+        communicator.beforeClientResponse(true);
+
+        Assert.assertEquals(1, backEndRequests.get());
+        Assert.assertEquals(1, getSetDataCalls(communicator).count());
+        Assert.assertTrue(communicator.getActiveDataHandler().isActive(0));
+        Assert.assertTrue(session.getPendingAccessQueue().isEmpty());
+    }
+
+    private static Stream<ClientMethodInvocation> getSetDataCalls(
+            DataCommunicator<?> communicator) {
+        return communicator.retrievePendingRpcCalls().stream()
+                .filter(call -> call.getMethodName().equals("setData"));
+    }
 }
@@ -0,0 +1,38 @@
+package com.vaadin.server.data.datasource;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.server.data.BackEndDataSource;
+import com.vaadin.server.data.Query;
+import com.vaadin.server.data.SortOrder;
+import com.vaadin.shared.data.sort.SortDirection;
+
+public class BackEndDataSourceTest {
+
+    @Test
+    public void sortingBy_offsetLimitAndFiltersKept() {
+        AtomicReference<Query> lastQuery = new AtomicReference<>();
+        BackEndDataSource<String> dataSource = new BackEndDataSource<>(
+                query -> {
+                    lastQuery.set(query);
+                    return Stream.empty();
+                }, query -> 0);
+
+        dataSource
+                .sortingBy(Collections.singletonList(
+                        new SortOrder<>("name", SortDirection.ASCENDING)))
+                .apply(new Query(10, 40, Collections.emptyList(),
+                        Collections.singleton("filter")));
+
+        Query query = lastQuery.get();
+        Assert.assertEquals(10, query.getOffset());
+        Assert.assertEquals(40, query.getLimit());
+        Assert.assertEquals("name", query.getSortOrders().get(0).getSorted());
+        Assert.assertEquals("filter", query.getFilter(String.class).get());
+    }
+}
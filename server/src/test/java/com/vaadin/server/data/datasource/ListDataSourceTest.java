@@ -2,9 +2,11 @@ package com.vaadin.server.data.datasource;
 
 import static org.junit.Assert.assertTrue;
 
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.junit.Assert;
@@ -192,4 +194,77 @@ public class ListDataSourceTest {
 
         Assert.assertEquals(size - 1, dataSource.size(query));
     }
+
+    @Test
+    public void apply_offsetAndLimitHonoured() {
+        Query query = new Query(10, 5, Collections.emptyList(),
+                Collections.emptySet());
+        Assert.assertEquals(data.subList(10, 15), dataSource.apply(query)
+                .collect(Collectors.toList()));
+
+        ListDataSource<StrBean> sorted = dataSource
+                .sortingBy(Comparator.comparing(StrBean::getId));
+        List<StrBean> expected = data.stream()
+                .sorted(Comparator.comparing(StrBean::getId))
+                .collect(Collectors.toList()).subList(95, 100);
+        Assert.assertEquals(expected,
+                sorted.apply(new Query(95, 10, Collections.emptyList(),
+                        Collections.emptySet()))
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void sortingBy_sortedOnceUntilRefresh() {
+        AtomicInteger comparisons = new AtomicInteger();
+        ListDataSource<StrBean> sorted = dataSource.sortingBy((a, b) -> {
+            comparisons.incrementAndGet();
+            return Integer.compare(a.getId(), b.getId());
+        });
+
+        sorted.apply(new Query()).count();
+        int sortComparisons = comparisons.get();
+        Assert.assertTrue(sortComparisons > 0);
+
+        sorted.apply(new Query(20, 10, Collections.emptyList(),
+                Collections.emptySet())).count();
+        Assert.assertEquals("Data should not be sorted again",
+                sortComparisons, comparisons.get());
+
+        long version = sorted.getVersion();
+        StrBean bean = new StrBean("foo", -1, -1);
+        data.add(bean);
+        dataSource.refreshAll();
+        Assert.assertNotEquals(version, sorted.getVersion());
+
+        Assert.assertEquals(bean, sorted.apply(new Query()).findFirst().get());
+        Assert.assertTrue(comparisons.get() > sortComparisons);
+    }
+
+    @Test
+    public void sortingBy_refreshAllAndListenersShared() {
+        ListDataSource<StrBean> sorted = dataSource
+                .sortingBy(Comparator.comparing(StrBean::getId));
+        ListDataSource<StrBean> resorted = sorted
+                .sortingBy(Comparator.comparing(StrBean::getValue));
+        AtomicInteger originalEvents = new AtomicInteger();
+        AtomicInteger sortedEvents = new AtomicInteger();
+        dataSource.addDataSourceListener(
+                event -> originalEvents.incrementAndGet());
+        resorted.addDataSourceListener(event -> sortedEvents.incrementAndGet());
+
+        dataSource.refreshAll();
+        Assert.assertEquals(1, originalEvents.get());
+        Assert.assertEquals(1, sortedEvents.get());
+
+        // Refreshing a derived data source refreshes all of them
+        resorted.apply(new Query()).count();
+        StrBean bean = new StrBean("foo", -1, -1);
+        data.add(bean);
+        sorted.refreshAll();
+        Assert.assertEquals(2, originalEvents.get());
+        Assert.assertEquals(2, sortedEvents.get());
+        Assert.assertEquals(dataSource.getVersion(), resorted.getVersion());
+        Assert.assertTrue(resorted.apply(new Query())
+                .collect(Collectors.toList()).contains(bean));
+    }
 }
@@ -73,6 +73,7 @@ public class ClassesSerializableTest {
             "com\\.vaadin\\.server\\.AbstractClientConnector\\$1", //
             "com\\.vaadin\\.server\\.AbstractClientConnector\\$1\\$1", //
             "com\\.vaadin\\.server\\.JsonCodec\\$1", //
+            "com\\.vaadin\\.server\\.JsonCodec\\$PropertyEncoder", //
             "com\\.vaadin\\.server\\.communication\\.PushConnection", //
             "com\\.vaadin\\.server\\.communication\\.AtmospherePushConnection.*", //
             "com\\.vaadin\\.util\\.ConnectorHelper", //
@@ -81,6 +82,14 @@ public class ClassesSerializableTest {
             "com\\.vaadin\\.util\\.WeakValueMap.*", //
             "com\\.vaadin\\.themes\\.valoutil\\.BodyStyleName", //
             "com\\.vaadin\\.server\\.communication\\.JSR356WebsocketInitializer.*", //
+            "com\\.vaadin\\.server\\.communication\\.Utf8BufferWriter", //
+            "com\\.vaadin\\.server\\.communication\\.GzipCompressor", //
+            "com\\.vaadin\\.server\\.communication\\.ResponseBufferPool", //
+            "com\\.vaadin\\.server\\.communication\\.JsonStreamParser", //
+            "com\\.vaadin\\.server\\.communication\\.UidlMetricsCollector", //
+            "com\\.vaadin\\.server\\.EncodedValueCache.*", //
+            "com\\.vaadin\\.server\\.UIBroadcaster.*", //
+            "com\\.vaadin\\.util\\.CurrentInstance\\$Instances", //
             "com\\.vaadin\\.screenshotbrowser\\.ScreenshotBrowser.*", //
     };
 
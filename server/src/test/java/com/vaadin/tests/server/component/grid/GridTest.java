@@ -1,6 +1,8 @@
 package com.vaadin.tests.server.component.grid;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.util.function.Function;
 
@@ -9,6 +11,7 @@ import org.junit.Test;
 
 import com.vaadin.shared.ui.grid.HeightMode;
 import com.vaadin.ui.Grid;
+import com.vaadin.ui.Grid.Column;
 
 public class GridTest {
 
@@ -50,4 +53,14 @@ public class GridTest {
                     grid.getFrozenColumnCount());
         }
     }
+
+    @Test
+    public void testColumnThreadSafeIsOptIn() {
+        Column<String, String> column = grid.addColumn("bar",
+                Function.identity());
+        assertFalse("Column should not be thread safe by default",
+                column.isThreadSafe());
+        column.setThreadSafe(true);
+        assertTrue("Column was not made thread safe", column.isThreadSafe());
+    }
 }
@@ -21,6 +21,8 @@ public class MockDeploymentConfiguration
     private Map<String, String> applicationOrSystemProperty = new HashMap<>();
     private boolean syncIdCheckEnabled = true;
     private boolean sendUrlsAsParameters = true;
+    private boolean compactStateEncoding = false;
+    private int responseCompressionLevel = 0;
 
     @Override
     public boolean isProductionMode() {
@@ -113,4 +115,22 @@ public class MockDeploymentConfiguration
         return sendUrlsAsParameters;
     }
 
+    @Override
+    public boolean isCompactStateEncoding() {
+        return compactStateEncoding;
+    }
+
+    public void setCompactStateEncoding(boolean compactStateEncoding) {
+        this.compactStateEncoding = compactStateEncoding;
+    }
+
+    @Override
+    public int getResponseCompressionLevel() {
+        return responseCompressionLevel;
+    }
+
+    public void setResponseCompressionLevel(int responseCompressionLevel) {
+        this.responseCompressionLevel = responseCompressionLevel;
+    }
+
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.ui;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.tests.util.MockUI;
+
+public class ConnectorTrackerTest {
+
+    private static class CountingRenderer extends CssLayout
+            implements SelectiveRenderer {
+        private Component rendered;
+        private int isRenderedCalls = 0;
+
+        @Override
+        public boolean isRendered(Component childComponent) {
+            isRenderedCalls++;
+            return childComponent == rendered;
+        }
+    }
+
+    private UI ui;
+    private ConnectorTracker tracker;
+    private VerticalLayout layout;
+    private Label label;
+
+    @Before
+    public void setUp() {
+        ui = new MockUI();
+        tracker = ui.getConnectorTracker();
+        label = new Label("foo");
+        layout = new VerticalLayout(label);
+        ui.setContent(layout);
+        tracker.markAllConnectorsClean();
+    }
+
+    @Test
+    public void markDirty_addedToQueueInOrder() {
+        tracker.markDirty(label);
+        tracker.markDirty(layout);
+        tracker.markDirty(label);
+
+        Assert.assertEquals(Arrays.asList(label, layout),
+                tracker.getDirtyConnectorQueue());
+    }
+
+    @Test
+    public void markAllConnectorsClean_queueCleared() {
+        tracker.markDirty(label);
+        tracker.markAllConnectorsClean();
+
+        Assert.assertTrue(tracker.getDirtyConnectorQueue().isEmpty());
+    }
+
+    @Test
+    public void registerConnector_addedToQueue() {
+        Label newLabel = new Label("bar");
+        layout.addComponent(newLabel);
+
+        Assert.assertTrue(tracker.getDirtyConnectorQueue().contains(newLabel));
+    }
+
+    @Test
+    public void setVisible_cachedVisibilityUpdated() {
+        Assert.assertTrue(tracker.isConnectorVisibleToClient(label));
+
+        layout.setVisible(false);
+        Assert.assertFalse(tracker.isConnectorVisibleToClient(layout));
+        Assert.assertFalse(tracker.isConnectorVisibleToClient(label));
+
+        tracker.markAllConnectorsClean();
+        layout.setVisible(true);
+        Assert.assertTrue(tracker.isConnectorVisibleToClient(label));
+    }
+
+    @Test
+    public void moveToHiddenParent_cachedVisibilityUpdated() {
+        VerticalLayout hidden = new VerticalLayout();
+        hidden.setVisible(false);
+        layout.addComponent(hidden);
+        Assert.assertTrue(tracker.isConnectorVisibleToClient(label));
+
+        hidden.addComponent(label);
+
+        Assert.assertFalse(tracker.isConnectorVisibleToClient(label));
+    }
+
+    @Test
+    public void selectTab_cachedVisibilityUpdated() {
+        Label other = new Label("bar");
+        TabSheet tabSheet = new TabSheet(new Label("first"), other);
+        layout.addComponent(tabSheet);
+        tracker.markAllConnectorsClean();
+        Assert.assertFalse(tracker.isConnectorVisibleToClient(other));
+
+        tabSheet.setSelectedTab(other);
+
+        Assert.assertTrue(tracker.isConnectorVisibleToClient(other));
+    }
+
+    @Test
+    public void selectiveRenderer_resultCached() {
+        CountingRenderer renderer = new CountingRenderer();
+        Label child = new Label("bar");
+        renderer.addComponent(child);
+        layout.addComponent(renderer);
+        tracker.markAllConnectorsClean();
+
+        Assert.assertFalse(tracker.isConnectorVisibleToClient(child));
+        Assert.assertFalse(tracker.isConnectorVisibleToClient(child));
+        Assert.assertEquals(1, renderer.isRenderedCalls);
+    }
+
+    @Test
+    public void selectiveRenderer_markVisibilityChanged_cacheUpdated() {
+        CountingRenderer renderer = new CountingRenderer();
+        Label child = new Label("bar");
+        renderer.addComponent(child);
+        layout.addComponent(renderer);
+        tracker.markAllConnectorsClean();
+        Assert.assertFalse(tracker.isConnectorVisibleToClient(child));
+
+        renderer.rendered = child;
+        Assert.assertFalse(tracker.isConnectorVisibleToClient(child));
+        tracker.markVisibilityChanged(renderer);
+
+        Assert.assertTrue(tracker.isConnectorVisibleToClient(child));
+    }
+
+    @Test
+    public void setVisibleOnUI_cachedVisibilityUpdated() {
+        Assert.assertTrue(tracker.isConnectorVisibleToClient(label));
+
+        ui.setVisible(false);
+
+        Assert.assertFalse(tracker.isConnectorVisibleToClient(label));
+    }
+
+    @Test
+    public void detachedConnector_notVisible() {
+        layout.removeComponent(label);
+
+        Assert.assertFalse(tracker.isConnectorVisibleToClient(label));
+    }
+}
@@ -17,7 +17,6 @@ package com.vaadin.util;
 
 import static org.junit.Assert.assertNull;
 
-import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -68,33 +67,7 @@ public class CurrentInstanceTest {
     }
 
     @Test
-    public void testInheritableThreadLocal() throws Exception {
-        final AtomicBoolean threadFailed = new AtomicBoolean(true);
-
-        CurrentInstance.setInheritable(CurrentInstanceTest.class, this);
-        Assert.assertEquals(this,
-                CurrentInstance.get(CurrentInstanceTest.class));
-        Thread t = new Thread() {
-            @Override
-            public void run() {
-                Assert.assertEquals(CurrentInstanceTest.this,
-                        CurrentInstance.get(CurrentInstanceTest.class));
-                threadFailed.set(false);
-            }
-        };
-        t.start();
-        CurrentInstance.set(CurrentInstanceTest.class, null);
-
-        assertCleared();
-        while (t.isAlive()) {
-            Thread.sleep(1000);
-        }
-        Assert.assertFalse("Thread failed", threadFailed.get());
-
-    }
-
-    @Test
-    public void testClearedAfterRemoveInSeparateThread() throws Exception {
+    public void testNotInheritedByNewThread() throws Exception {
         final AtomicBoolean threadFailed = new AtomicBoolean(true);
 
         CurrentInstance.setInheritable(CurrentInstanceTest.class, this);
@@ -104,9 +77,8 @@ public class CurrentInstanceTest {
             @Override
             public void run() {
                 try {
-                    Assert.assertEquals(CurrentInstanceTest.this,
+                    Assert.assertNull(
                             CurrentInstance.get(CurrentInstanceTest.class));
-                    CurrentInstance.set(CurrentInstanceTest.class, null);
                     assertCleared();
 
                     threadFailed.set(false);
@@ -116,22 +88,33 @@ public class CurrentInstanceTest {
             }
         };
         t.start();
-
-        while (t.isAlive()) {
-            Thread.sleep(1000);
-        }
+        t.join();
         Assert.assertFalse("Thread failed", threadFailed.get());
 
-        // Clearing the threadlocal in the thread should not have cleared it
-        // here
+        // The instance is still set in this thread
         Assert.assertEquals(this,
                 CurrentInstance.get(CurrentInstanceTest.class));
-
-        // Clearing the only remaining threadlocal should free all memory
         CurrentInstance.set(CurrentInstanceTest.class, null);
         assertCleared();
     }
 
+    @Test
+    public void testInheritableCarriedByGetInstances() throws Exception {
+        CurrentInstance.setInheritable(CurrentInstanceTest.class, this);
+        CurrentInstance.set(String.class, "not inheritable");
+
+        Map<Class<?>, CurrentInstance> inheritable = CurrentInstance
+                .getInstances(true);
+        Assert.assertEquals(1, inheritable.size());
+
+        CurrentInstance.clearAll();
+        CurrentInstance.restoreInstances(inheritable);
+
+        Assert.assertEquals(this,
+                CurrentInstance.get(CurrentInstanceTest.class));
+        Assert.assertNull(CurrentInstance.get(String.class));
+    }
+
     @Test
     public void testClearedWithClearAll() throws Exception {
         CurrentInstance.set(CurrentInstanceTest.class, this);
@@ -147,13 +130,12 @@ public class CurrentInstanceTest {
         Assert.assertNull(getInternalCurrentInstanceVariable().get());
     }
 
-    private InheritableThreadLocal<Map<Class<?>, CurrentInstance>> getInternalCurrentInstanceVariable()
+    private ThreadLocal<?> getInternalCurrentInstanceVariable()
             throws SecurityException, NoSuchFieldException,
             IllegalAccessException {
         Field f = CurrentInstance.class.getDeclaredField("instances");
         f.setAccessible(true);
-        return (InheritableThreadLocal<Map<Class<?>, CurrentInstance>>) f
-                .get(null);
+        return (ThreadLocal<?>) f.get(null);
     }
 
     public void testInheritedClearedAfterRemove() {
@@ -203,8 +185,7 @@ public class CurrentInstanceTest {
     }
 
     @Test
-    public void testRestoreWithGarbageCollectedValue()
-            throws InterruptedException {
+    public void testRestorePreviousSession() {
         VaadinSession session1 = new VaadinSession(null) {
             @Override
             public String toString() {
@@ -221,28 +202,10 @@ public class CurrentInstanceTest {
         VaadinSession.setCurrent(session1);
         Map<Class<?>, CurrentInstance> previous = CurrentInstance
                 .setCurrent(session2);
-
-        // Use weak ref to verify object is collected
-        WeakReference<VaadinSession> ref = new WeakReference<>(
-                session1);
-
-        session1 = null;
-        waitUntilGarbageCollected(ref);
+        Assert.assertSame(session2, VaadinSession.getCurrent());
 
         CurrentInstance.restoreInstances(previous);
 
-        Assert.assertNull(VaadinSession.getCurrent());
-    }
-
-    private static void waitUntilGarbageCollected(WeakReference<?> ref)
-            throws InterruptedException {
-        for (int i = 0; i < 50; i++) {
-            System.gc();
-            if (ref.get() == null) {
-                return;
-            }
-            Thread.sleep(100);
-        }
-        Assert.fail("Value was not garbage collected.");
+        Assert.assertSame(session1, VaadinSession.getCurrent());
     }
 }
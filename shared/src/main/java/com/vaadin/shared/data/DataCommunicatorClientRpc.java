@@ -50,9 +50,14 @@ public interface DataCommunicatorClientRpc extends ClientRpc {
 
     /**
      * Updates an array of objects based on their identifying key.
+     * <p>
+     * Each updated object contains only the identifying key and the values
+     * that have changed since the object was last sent. Changed nested objects
+     * are described the same way. Keys that have been removed are listed in an
+     * array under {@link DataCommunicatorConstants#REMOVED}.
      *
      * @param data
-     *            array of updated data
+     *            array of changes to data
      */
     void updateData(JsonArray data);
 
@@ -28,4 +28,11 @@ public final class DataCommunicatorConstants implements Serializable {
     public static final String SELECTED = "s";
     public static final String NAME = "n";
     public static final String DATA = "d";
+
+    /**
+     * Key for the array of removed keys in data object updates. The key is
+     * namespaced so that it cannot be confused with keys written by data
+     * generators, which must not use it at any level of the data object.
+     */
+    public static final String REMOVED = "vaadin:removed";
 }
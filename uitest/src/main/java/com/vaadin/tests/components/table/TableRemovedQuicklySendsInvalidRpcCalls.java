@@ -18,11 +18,15 @@ package com.vaadin.tests.components.table;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 import com.vaadin.annotations.Push;
 import com.vaadin.server.ClientConnector;
+import com.vaadin.server.EncodedValueCache;
 import com.vaadin.server.StreamVariable;
 import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.communication.StateKeyDictionary;
 import com.vaadin.tests.components.AbstractTestUI;
 import com.vaadin.ui.Button;
 import com.vaadin.ui.Button.ClickEvent;
@@ -99,6 +103,38 @@ public class TableRemovedQuicklySendsInvalidRpcCalls extends AbstractTestUI {
             tracker.markDirty(connector);
         }
 
+        @Override
+        public void markStateDirty(ClientConnector connector) {
+            tracker.markStateDirty(connector);
+        }
+
+        @Override
+        public void markStatePropertyDirty(ClientConnector connector,
+                String propertyName) {
+            tracker.markStatePropertyDirty(connector, propertyName);
+        }
+
+        @Override
+        public Set<String> getWrittenStateProperties(
+                ClientConnector connector) {
+            return tracker.getWrittenStateProperties(connector);
+        }
+
+        @Override
+        public boolean markStateUnchanged(ClientConnector connector) {
+            return tracker.markStateUnchanged(connector);
+        }
+
+        @Override
+        public void setStateChangeTracking(boolean stateChangeTracking) {
+            tracker.setStateChangeTracking(stateChangeTracking);
+        }
+
+        @Override
+        public boolean isStateChangeTracking() {
+            return tracker.isStateChangeTracking();
+        }
+
         @Override
         public void markClean(ClientConnector connector) {
             tracker.markClean(connector);
@@ -124,6 +160,21 @@ public class TableRemovedQuicklySendsInvalidRpcCalls extends AbstractTestUI {
             return tracker.getDirtyVisibleConnectors();
         }
 
+        @Override
+        public List<ClientConnector> getDirtyConnectorQueue() {
+            return tracker.getDirtyConnectorQueue();
+        }
+
+        @Override
+        public boolean isConnectorVisibleToClient(ClientConnector connector) {
+            return tracker.isConnectorVisibleToClient(connector);
+        }
+
+        @Override
+        public void markVisibilityChanged(ClientConnector connector) {
+            tracker.markVisibilityChanged(connector);
+        }
+
         @Override
         public JsonObject getDiffState(ClientConnector connector) {
             return tracker.getDiffState(connector);
@@ -135,6 +186,33 @@ public class TableRemovedQuicklySendsInvalidRpcCalls extends AbstractTestUI {
             tracker.setDiffState(connector, diffState);
         }
 
+        @Override
+        public List<String> getSentHierarchy(ClientConnector connector) {
+            return tracker.getSentHierarchy(connector);
+        }
+
+        @Override
+        public void setSentHierarchy(ClientConnector connector,
+                List<String> childIds) {
+            tracker.setSentHierarchy(connector, childIds);
+        }
+
+        @Override
+        public StateKeyDictionary getStateKeyDictionary() {
+            return tracker.getStateKeyDictionary();
+        }
+
+        @Override
+        public EncodedValueCache getEncodedValueCache() {
+            return tracker.getEncodedValueCache();
+        }
+
+        @Override
+        public void setEncodedValueCache(
+                EncodedValueCache encodedValueCache) {
+            tracker.setEncodedValueCache(encodedValueCache);
+        }
+
         @Override
         public boolean isDirty(ClientConnector connector) {
             return tracker.isDirty(connector);